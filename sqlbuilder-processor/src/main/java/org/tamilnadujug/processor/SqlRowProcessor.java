@@ -0,0 +1,338 @@
+package org.tamilnadujug.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates, for each record annotated with
+ * {@code org.tamilnadujug.sql.SqlRow}, a class named after it with the
+ * suffix {@code SqlRow}, holding a row mapper and parameter binders written
+ * out component by component. The generated code calls the typed getters of
+ * ResultSet and the typed {@code param} overloads of SQL Builder directly,
+ * so mapping and binding need no reflection at run time.
+ *
+ * <p>The annotation is matched by name, so the processor does not depend on
+ * SQL Builder; the code it generates does.</p>
+ */
+@SupportedAnnotationTypes(SqlRowProcessor.SQL_ROW)
+public final class SqlRowProcessor extends AbstractProcessor {
+
+    /**
+     * The annotation processed.
+     */
+    static final String SQL_ROW = "org.tamilnadujug.sql.SqlRow";
+
+    /**
+     * Suffix of the generated class name.
+     */
+    static final String SUFFIX = "SqlRow";
+
+    /**
+     * Getters of ResultSet by the type they return.
+     */
+    private static final Map<String, String> GETTERS = Map.ofEntries(
+            Map.entry("boolean", "getBoolean"),
+            Map.entry("byte", "getByte"),
+            Map.entry("short", "getShort"),
+            Map.entry("int", "getInt"),
+            Map.entry("long", "getLong"),
+            Map.entry("float", "getFloat"),
+            Map.entry("double", "getDouble"),
+            Map.entry("java.lang.String", "getString"),
+            Map.entry("java.math.BigDecimal", "getBigDecimal"),
+            Map.entry("byte[]", "getBytes"),
+            Map.entry("java.sql.Date", "getDate"),
+            Map.entry("java.sql.Time", "getTime"),
+            Map.entry("java.sql.Timestamp", "getTimestamp"));
+
+    /**
+     * Getters of ResultSet for the primitive of each wrapper type.
+     */
+    private static final Map<String, String> WRAPPER_GETTERS = Map.of(
+            "java.lang.Boolean", "getBoolean",
+            "java.lang.Byte", "getByte",
+            "java.lang.Short", "getShort",
+            "java.lang.Integer", "getInt",
+            "java.lang.Long", "getLong",
+            "java.lang.Float", "getFloat",
+            "java.lang.Double", "getDouble");
+
+    /**
+     * Supports the latest source version, as it only reads records.
+     *
+     * @return the latest supported source version
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Generates the classes of the records annotated in this round.
+     *
+     * @param annotations the annotations processed
+     * @param roundEnv    the round
+     * @return true, as the annotation is claimed
+     */
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+                           final RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element
+                    : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.RECORD) {
+                    error(element, "@SqlRow applies to records only");
+                } else if (element.getModifiers()
+                        .contains(Modifier.PRIVATE)) {
+                    error(element, "@SqlRow record must not be private");
+                } else if (((TypeElement) element).getRecordComponents()
+                        .isEmpty()) {
+                    error(element, "@SqlRow record must have components");
+                } else {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the generated class of a record.
+     *
+     * @param type the record
+     */
+    private void generate(final TypeElement type) {
+        String packageName = processingEnv.getElementUtils()
+                .getPackageOf(type).getQualifiedName().toString();
+        String name = generatedName(type);
+        String qualifiedName = packageName.isEmpty()
+                ? name : packageName + "." + name;
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(qualifiedName, type).openWriter())) {
+            out.print(source(packageName, name, type));
+        } catch (IOException e) {
+            error(type, "Cannot write " + qualifiedName + ": " + e);
+        }
+    }
+
+    /**
+     * Returns the source of the generated class of a record.
+     *
+     * @param packageName the package of the record
+     * @param name        the simple name of the generated class
+     * @param type        the record
+     * @return the source
+     */
+    static String source(final String packageName,
+                         final String name,
+                         final TypeElement type) {
+        String row = type.getQualifiedName().toString();
+        List<String> labels = new ArrayList<>();
+        List<String> getters = new ArrayList<>();
+        List<String> accessors = new ArrayList<>();
+        for (RecordComponentElement component
+                : type.getRecordComponents()) {
+            String label = snakeCase(component.getSimpleName().toString());
+            labels.add(label);
+            getters.add(getter(component.asType(), label));
+            accessors.add(".param(row." + component.getSimpleName() + "())");
+        }
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("""
+                /**
+                 * Maps rows to, and binds parameters from, {@link %1$s}.
+                 * Generated from its components; do not edit.
+                 */
+                @javax.annotation.processing.Generated("%2$s")
+                public final class %3$s {
+
+                    /**
+                     * Column labels, in component order.
+                     */
+                    public static final String COLUMNS = "%4$s";
+
+                    /**
+                     * Maps a row by column label.
+                     */
+                    public static final org.tamilnadujug.sql.RowMapper<%1$s>
+                            MAPPER = %3$s::map;
+
+                    private %3$s() {
+                    }
+
+                    /**
+                     * Maps a row by column label.
+                     *
+                     * @param rs the ResultSet to map from
+                     * @return the record
+                     * @throws java.sql.SQLException if a column cannot be read
+                     */
+                    @SuppressWarnings("unchecked")
+                    public static %1$s map(final java.sql.ResultSet rs)
+                            throws java.sql.SQLException {
+                        return new %1$s(%5$s);
+                    }
+
+                    /**
+                     * Binds the components of a row, in declaration order.
+                     *
+                     * @param builder the prepared SQL builder
+                     * @param row     the record
+                     * @return the builder, for method chaining
+                     */
+                    public static org.tamilnadujug.SqlBuilder.PreparedSqlBuilder
+                            params(final org.tamilnadujug.SqlBuilder
+                                    .PreparedSqlBuilder builder,
+                                   final %1$s row) {
+                        return builder%6$s;
+                    }
+
+                    /**
+                     * Binds the components of a row of a batch, in
+                     * declaration order.
+                     *
+                     * @param row    the record
+                     * @param binder the binder of the row
+                     */
+                    public static void bind(final %1$s row,
+                                            final org.tamilnadujug.Binder binder) {
+                        binder%6$s;
+                    }
+
+                    private static <V> V nullable(final V value,
+                                                  final java.sql.ResultSet rs)
+                            throws java.sql.SQLException {
+                        return rs.wasNull() ? null : value;
+                    }
+
+                    private static Character character(final String value,
+                                                       final Character ifNull) {
+                        return value == null || value.isEmpty()
+                                ? ifNull : Character.valueOf(value.charAt(0));
+                    }
+                }
+                """.formatted(row, SqlRowProcessor.class.getName(), name,
+                String.join(", ", labels),
+                "\n                "
+                        + String.join(",\n                ", getters),
+                "\n                "
+                        + String.join("\n                ", accessors)));
+        return source.toString();
+    }
+
+    /**
+     * Returns the expression reading a column as a component type.
+     *
+     * @param type  the component type
+     * @param label the column label
+     * @return the expression
+     */
+    static String getter(final TypeMirror type, final String label) {
+        String typeName = erasure(type);
+        String quoted = "\"" + label + "\"";
+        if (GETTERS.containsKey(typeName)) {
+            return "rs." + GETTERS.get(typeName) + "(" + quoted + ")";
+        }
+        if (WRAPPER_GETTERS.containsKey(typeName)) {
+            return "nullable(rs." + WRAPPER_GETTERS.get(typeName) + "("
+                    + quoted + "), rs)";
+        }
+        if (type.getKind() == TypeKind.CHAR) {
+            return "character(rs.getString(" + quoted + "), '\\0')";
+        }
+        if (typeName.equals("java.lang.Character")) {
+            return "character(rs.getString(" + quoted + "), null)";
+        }
+        String read = "rs.getObject(" + quoted + ", " + typeName + ".class)";
+        if (type.getKind() == TypeKind.DECLARED
+                && !((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return "(" + type + ") " + read;
+        }
+        return read;
+    }
+
+    /**
+     * Returns the name of the erasure of a type, as written in source.
+     *
+     * @param type the type
+     * @return the name
+     */
+    private static String erasure(final TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) ((DeclaredType) type).asElement())
+                    .getQualifiedName().toString();
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return type.toString().replaceAll("<[^\\[]*>", "");
+        }
+        return type.toString();
+    }
+
+    /**
+     * Returns the simple name of the generated class: the names of the
+     * record and the classes enclosing it, joined by underscores, followed
+     * by {@link #SUFFIX}.
+     *
+     * @param type the record
+     * @return the name
+     */
+    static String generatedName(final TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement enclosingType) {
+            name.insert(0, enclosingType.getSimpleName() + "_");
+            enclosing = enclosingType.getEnclosingElement();
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    /**
+     * Converts a component name to the column label it is read from.
+     *
+     * @param name the component name, e.g. {@code directedBy}
+     * @return the label, e.g. {@code directed_by}
+     */
+    static String snakeCase(final String name) {
+        StringBuilder label = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                label.append('_');
+            }
+            label.append(c);
+        }
+        return label.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Reports an error on an element.
+     *
+     * @param element the element
+     * @param message the message
+     */
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                message, element);
+    }
+}
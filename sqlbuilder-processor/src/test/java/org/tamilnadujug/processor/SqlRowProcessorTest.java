@@ -0,0 +1,209 @@
+package org.tamilnadujug.processor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.tamilnadujug.Binder;
+import org.tamilnadujug.SqlBuilder;
+import org.tamilnadujug.sql.RowMapper;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class SqlRowProcessorTest {
+
+    @TempDir
+    Path output;
+
+    @Test
+    void testGeneratedMapper() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile("sample.Movie", """
+                package sample;
+
+                import java.math.BigDecimal;
+                import org.tamilnadujug.sql.SqlRow;
+
+                @SqlRow
+                public record Movie(Short id, String title, String directedBy, long views,
+                                    BigDecimal rating, java.util.List<String> tags, char grade) {
+                }
+                """);
+        Assertions.assertEquals(List.of(), diagnostics.getDiagnostics());
+
+        String source = Files.readString(output.resolve("sample/MovieSqlRow.java"));
+        Assertions.assertTrue(source.contains("COLUMNS = \"id, title, directed_by, views, rating, tags, grade\""));
+        Assertions.assertTrue(source.contains("nullable(rs.getShort(\"id\"), rs)"));
+        Assertions.assertTrue(source.contains("rs.getLong(\"views\")"));
+        Assertions.assertTrue(source.contains("(java.util.List<java.lang.String>) rs.getObject(\"tags\", java.util.List.class)"));
+        Assertions.assertTrue(source.contains("character(rs.getString(\"grade\"), '\\0')"));
+
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("id", (short) 0);
+        columns.put("title", "Movie 1");
+        columns.put("directed_by", "Director");
+        columns.put("views", 42L);
+        columns.put("rating", new BigDecimal("4.5"));
+        columns.put("tags", List.of("drama"));
+        columns.put("grade", "A");
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()},
+                getClass().getClassLoader())) {
+            Class<?> generated = loader.loadClass("sample.MovieSqlRow");
+            RowMapper<?> mapper = (RowMapper<?>) generated.getField("MAPPER").get(null);
+            Object movie = mapper.get(resultSet(columns, true));
+            Assertions.assertEquals("Movie[id=null, title=Movie 1, directedBy=Director, views=42, "
+                    + "rating=4.5, tags=[drama], grade=A]", movie.toString());
+        }
+    }
+
+    @Test
+    void testRoundTrip() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile("sample.Rating", """
+                package sample;
+
+                import java.math.BigDecimal;
+                import org.tamilnadujug.sql.SqlRow;
+
+                @SqlRow
+                public record Rating(Short id, String title, long views, BigDecimal score,
+                                     char grade, Character mark) {
+                }
+                """);
+        Assertions.assertEquals(List.of(), diagnostics.getDiagnostics());
+
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setURL("jdbc:postgresql://localhost:5432/sampledb");
+        dataSource.setUser("sampledb");
+        dataSource.setPassword("sampledb");
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()},
+                getClass().getClassLoader());
+             Connection connection = dataSource.getConnection()) {
+            Class<?> rating = loader.loadClass("sample.Rating");
+            Class<?> generated = loader.loadClass("sample.RatingSqlRow");
+            String columns = (String) generated.getField("COLUMNS").get(null);
+            Constructor<?> constructor = rating.getConstructors()[0];
+            Object first = constructor.newInstance((short) 1, "Dunkirk", 42L, new BigDecimal("4.5"), 'A', 'x');
+            Object second = constructor.newInstance(null, "Tenet", 7L, null, 'B', null);
+            Object third = constructor.newInstance((short) 3, "Jaws", 0L, new BigDecimal("3.0"), 'C', 'z');
+
+            SqlBuilder.sql("""
+                    CREATE TEMPORARY TABLE rating(id smallint, title text, views bigint, score numeric,
+                                                  grade char(1), mark char(1))
+                    """).execute(connection);
+            String insert = "INSERT INTO rating(" + columns + ") VALUES (?, ?, ?, ?, ?, ?)";
+            Method params = generated.getMethod("params", SqlBuilder.PreparedSqlBuilder.class, rating);
+            Assertions.assertEquals(1, ((SqlBuilder.PreparedSqlBuilder) params
+                    .invoke(null, SqlBuilder.prepareSql(insert), first)).execute(connection));
+            Method bind = generated.getMethod("bind", rating, Binder.class);
+            Assertions.assertArrayEquals(new int[]{1, 1}, SqlBuilder.prepareSql(insert)
+                    .batch(List.of(second, third), (row, binder) -> {
+                        try {
+                            bind.invoke(null, row, binder);
+                        } catch (ReflectiveOperationException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, 10)
+                    .execute(connection));
+
+            RowMapper<?> mapper = (RowMapper<?>) generated.getField("MAPPER").get(null);
+            Assertions.assertEquals(List.of(first, second, third), SqlBuilder
+                    .sql("SELECT " + columns + " FROM rating ORDER BY views DESC")
+                    .queryForList(mapper)
+                    .execute(connection));
+        }
+    }
+
+    @Test
+    void testNestedRecordName() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile("sample.Catalog", """
+                package sample;
+
+                public class Catalog {
+                    @org.tamilnadujug.sql.SqlRow
+                    record Entry(int id) {
+                    }
+                }
+                """);
+        Assertions.assertEquals(List.of(), diagnostics.getDiagnostics());
+        Assertions.assertTrue(Files.exists(output.resolve("sample/Catalog_EntrySqlRow.java")));
+    }
+
+    @Test
+    void testErrors() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile("sample.Invalid", """
+                package sample;
+
+                import org.tamilnadujug.sql.SqlRow;
+
+                @SqlRow
+                public class Invalid {
+                    @SqlRow
+                    private record Hidden(int id) {
+                    }
+
+                    @SqlRow
+                    record Empty() {
+                    }
+                }
+                """);
+        Assertions.assertEquals(List.of("@SqlRow applies to records only",
+                        "@SqlRow record must have components",
+                        "@SqlRow record must not be private"),
+                diagnostics.getDiagnostics().stream()
+                        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                        .map(diagnostic -> diagnostic.getMessage(null))
+                        .sorted()
+                        .toList());
+    }
+
+    private DiagnosticCollector<JavaFileObject> compile(String className, String source) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileObject file = new SimpleJavaFileObject(
+                URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                List.of("-classpath", Path.of(RowMapper.class.getProtectionDomain().getCodeSource()
+                                .getLocation().toURI()).toString(),
+                        "-d", output.toString(), "-s", output.toString()),
+                null, List.of(file));
+        task.setProcessors(List.of(new SqlRowProcessor()));
+        task.call();
+        return diagnostics;
+    }
+
+    private static ResultSet resultSet(Map<String, Object> columns, boolean idIsNull) {
+        AtomicBoolean wasNull = new AtomicBoolean();
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("wasNull")) {
+                        return wasNull.get();
+                    }
+                    wasNull.set(idIsNull && args[0].equals("id"));
+                    return columns.get((String) args[0]);
+                });
+    }
+}
@@ -0,0 +1,453 @@
+package org.tamilnadujug;
+
+import org.tamilnadujug.sql.RowMapper;
+import org.tamilnadujug.sql.Sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Batches lookups by key into {@code IN} queries, to avoid a round trip per
+ * key when many rows are looked up one at a time within a request.
+ *
+ * <p>{@link #load(Object)} only records the key and returns an SQL
+ * operation. The first of those operations to be executed runs one query
+ * for its key and the other keys recorded but not yet loaded, at most
+ * {@link #maxBatchSize(int)} of them, and dispatches the rows by key; the
+ * others then return without a round trip. Loaded values are kept for the
+ * life of the loader, so a loader is meant to be scoped to a request.</p>
+ *
+ * <p>Queries run without holding the loader's lock. An execution whose key
+ * is in a query in flight waits for that query, and, when executed with a
+ * {@link DataSource}, does so without borrowing a Connection. If a query
+ * fails, the executions waiting for it fail too, and its keys are pending
+ * again.</p>
+ *
+ * <p>The SQL has a single parameter marker, in place of the list of keys,
+ * which is expanded to one marker per key. Keys are bound with
+ * {@code setObject}, and the key mapper must read a key from each row that
+ * is equal to the key it was looked up with. Keys without a row load as
+ * null.</p>
+ *
+ * <p>Usage Example:</p>
+ * <pre>
+ * BatchLoader&lt;Long, Movie&gt; movies = BatchLoader.of(
+ *         "SELECT id, title, directed_by FROM movie WHERE id IN (?)",
+ *         rs -&gt; rs.getLong(1),
+ *         this::mapRow)
+ *     .maxBatchSize(100);
+ *
+ * List&lt;Sql&lt;Movie&gt;&gt; lookups = ids.stream()
+ *     .map(movies::load)
+ *     .toList();
+ * for (Sql&lt;Movie&gt; lookup : lookups) {
+ *     render(lookup.execute(connection)); // one query for all ids
+ * }
+ * </pre>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @param <K> the type of key
+ * @param <V> the type of value mapped from each row
+ */
+public final class BatchLoader<K, V> {
+
+    /**
+     * Default maximum number of keys per query.
+     */
+    static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
+    /**
+     * SQL before the parameter marker.
+     */
+    private final String head;
+
+    /**
+     * SQL after the parameter marker.
+     */
+    private final String tail;
+
+    /**
+     * Reads the key of each row.
+     */
+    private final RowMapper<K> keyMapper;
+
+    /**
+     * Maps each row.
+     */
+    private final RowMapper<V> rowMapper;
+
+    /**
+     * Keys recorded and not yet loaded, in the order they were recorded.
+     */
+    private final Set<K> pending = new LinkedHashSet<>();
+
+    /**
+     * Queries in flight, by each key they load.
+     */
+    private final Map<K, CompletableFuture<Map<K, V>>> inFlight
+            = new HashMap<>();
+
+    /**
+     * Loaded values by key.
+     */
+    private final Map<K, V> loaded = new HashMap<>();
+
+    /**
+     * Maximum number of keys per query.
+     */
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    /**
+     * Notified of every query, or null.
+     */
+    private Listener listener;
+
+    /**
+     * Number of queries run.
+     */
+    private long batches;
+
+    /**
+     * Number of keys loaded.
+     */
+    private long keys;
+
+    /**
+     * Creates a batch loader.
+     *
+     * @param theHead      SQL before the parameter marker
+     * @param theTail      SQL after the parameter marker
+     * @param theKeyMapper reads the key of each row
+     * @param theRowMapper maps each row
+     */
+    private BatchLoader(final String theHead,
+                        final String theTail,
+                        final RowMapper<K> theKeyMapper,
+                        final RowMapper<V> theRowMapper) {
+        this.head = theHead;
+        this.tail = theTail;
+        this.keyMapper = theKeyMapper;
+        this.rowMapper = theRowMapper;
+    }
+
+    /**
+     * Creates a batch loader.
+     *
+     * @param sql       the query, with a single parameter marker in place of
+     *                  the list of keys, e.g.
+     *                  {@code "SELECT * FROM movie WHERE id IN (?)"}
+     * @param keyMapper reads the key of each row
+     * @param rowMapper maps each row
+     * @param <K>       the type of key
+     * @param <V>       the type of value
+     * @return a new batch loader
+     */
+    public static <K, V> BatchLoader<K, V> of(final String sql,
+                                              final RowMapper<K> keyMapper,
+                                              final RowMapper<V> rowMapper) {
+        int marker = sql.indexOf('?');
+        if (marker < 0 || sql.indexOf('?', marker + 1) >= 0) {
+            throw new IllegalArgumentException(
+                    "sql must have a single parameter marker: " + sql);
+        }
+        return new BatchLoader<>(sql.substring(0, marker),
+                sql.substring(marker + 1), keyMapper, rowMapper);
+    }
+
+    /**
+     * Sets the maximum number of keys per query.
+     *
+     * @param size the maximum batch size
+     * @return this loader, for method chaining
+     */
+    public synchronized BatchLoader<K, V> maxBatchSize(final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                    "maxBatchSize must be positive: " + size);
+        }
+        this.maxBatchSize = size;
+        return this;
+    }
+
+    /**
+     * Sets the listener notified of every query, with its number of keys and
+     * duration.
+     *
+     * @param theListener the listener
+     * @return this loader, for method chaining
+     */
+    public synchronized BatchLoader<K, V> listener(
+            final Listener theListener) {
+        this.listener = theListener;
+        return this;
+    }
+
+    /**
+     * Number of queries run.
+     *
+     * @return batch count
+     */
+    public synchronized long batches() {
+        return batches;
+    }
+
+    /**
+     * Number of keys loaded by the queries run.
+     *
+     * @return key count
+     */
+    public synchronized long keys() {
+        return keys;
+    }
+
+    /**
+     * Records a key to load with the next query, and returns an SQL
+     * operation for its value.
+     *
+     * @param key the key
+     * @return an SQL operation returning the value of the key, or null if
+     *         it has no row
+     */
+    public synchronized Sql<V> load(final K key) {
+        if (!loaded.containsKey(key) && !inFlight.containsKey(key)) {
+            pending.add(key);
+        }
+        return new Load(key);
+    }
+
+    /**
+     * Forgets the loaded values, so that they are loaded again.
+     */
+    public synchronized void clear() {
+        loaded.clear();
+    }
+
+    /**
+     * Gets the value of a key. If it is not loaded, waits for a query in
+     * flight that loads it, or runs one for it and other pending keys. The
+     * query runs without holding the lock of this loader.
+     *
+     * @param key    the key
+     * @param runner runs the query, borrowing a connection if needed
+     * @return the value, or null if the key has no row
+     * @throws SQLException if the query fails
+     */
+    private V get(final K key, final Runner<List<Row<K, V>>> runner)
+            throws SQLException {
+        List<K> batch = null;
+        CompletableFuture<Map<K, V>> call;
+        synchronized (this) {
+            if (loaded.containsKey(key)) {
+                return loaded.get(key);
+            }
+            call = inFlight.get(key);
+            if (call == null) {
+                batch = take(key);
+                call = new CompletableFuture<>();
+                for (K each : batch) {
+                    inFlight.put(each, call);
+                }
+            }
+        }
+        return batch == null ? await(call).get(key)
+                : dispatch(batch, call, runner).get(key);
+    }
+
+    /**
+     * Takes a key and other pending keys, up to the maximum batch size.
+     *
+     * @param key the key
+     * @return the keys to load
+     */
+    private List<K> take(final K key) {
+        pending.remove(key);
+        List<K> batch = new ArrayList<>();
+        batch.add(key);
+        Iterator<K> iterator = pending.iterator();
+        while (batch.size() < maxBatchSize && iterator.hasNext()) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    /**
+     * Loads a batch of keys and hands the values to the executions waiting
+     * for them. If the query fails, the keys are pending again.
+     *
+     * @param batch  the keys
+     * @param call   completed with the values by key
+     * @param runner runs the query
+     * @return the values by key, null for keys without a row
+     * @throws SQLException if the query fails
+     */
+    private Map<K, V> dispatch(final List<K> batch,
+                               final CompletableFuture<Map<K, V>> call,
+                               final Runner<List<Row<K, V>>> runner)
+            throws SQLException {
+        SqlBuilder.PreparedSqlBuilder query = SqlBuilder.prepareSql(
+                head + "?, ".repeat(batch.size() - 1) + "?" + tail);
+        for (K each : batch) {
+            query.param(each);
+        }
+        long start = System.nanoTime();
+        List<Row<K, V>> rows;
+        try {
+            rows = runner.run(query.queryForList(rs -> new Row<>(
+                    keyMapper.get(rs), rowMapper.get(rs))));
+        } catch (Throwable failure) {
+            synchronized (this) {
+                for (K each : batch) {
+                    inFlight.remove(each);
+                    pending.add(each);
+                }
+            }
+            call.completeExceptionally(failure);
+            throw failure;
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        Map<K, V> values = new HashMap<>();
+        for (K each : batch) {
+            values.put(each, null);
+        }
+        for (Row<K, V> row : rows) {
+            values.replace(row.key(), row.value());
+        }
+        Listener notify;
+        synchronized (this) {
+            loaded.putAll(values);
+            for (K each : batch) {
+                inFlight.remove(each);
+            }
+            batches++;
+            keys += batch.size();
+            notify = listener;
+        }
+        call.complete(values);
+        if (notify != null) {
+            notify.onBatch(batch.size(), elapsed);
+        }
+        return values;
+    }
+
+    /**
+     * Waits for a query in flight.
+     *
+     * @param call the query in flight
+     * @param <K>  the type of key
+     * @param <V>  the type of value
+     * @return the values it loaded by key
+     * @throws SQLException if it failed, or the wait was interrupted
+     */
+    private static <K, V> Map<K, V> await(
+            final CompletableFuture<Map<K, V>> call) throws SQLException {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            Throwable failure = e.getCause();
+            if (failure instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (failure instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(
+                    "Interrupted waiting for a batch in flight", e);
+        }
+    }
+
+    /**
+     * Runs a query on a connection, borrowed if needed.
+     *
+     * @param <R> the type of result
+     */
+    @FunctionalInterface
+    private interface Runner<R> {
+        /**
+         * Runs the query.
+         *
+         * @param query the query
+         * @return the result
+         * @throws SQLException if the query fails
+         */
+        R run(Sql<R> query) throws SQLException;
+    }
+
+    /**
+     * Notified of every query a loader runs.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called after a query.
+         *
+         * @param size    the number of keys it loaded
+         * @param elapsed how long it took
+         */
+        void onBatch(int size, Duration elapsed);
+    }
+
+    /**
+     * A row read by a query.
+     *
+     * @param key   the key of the row
+     * @param value the value mapped from the row
+     * @param <K>   the type of key
+     * @param <V>   the type of value
+     */
+    private record Row<K, V>(K key, V value) {
+    }
+
+    /**
+     * The value of a key. Executed with a DataSource, it borrows a
+     * Connection only when it runs a query, not when the key is loaded or
+     * in a query in flight.
+     */
+    private final class Load implements Sql<V> {
+
+        /**
+         * The key.
+         */
+        private final K key;
+
+        /**
+         * Creates the operation.
+         *
+         * @param theKey the key
+         */
+        private Load(final K theKey) {
+            this.key = theKey;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V execute(final Connection connection) throws SQLException {
+            return get(key, query -> query.execute(connection));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V execute(final DataSource dataSource) throws SQLException {
+            return get(key, query -> query.execute(dataSource));
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package org.tamilnadujug;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+
+/**
+ * Binds the parameters of one row of a streamed batch. A binder is handed
+ * to the callback of {@link SqlBuilder.PreparedSqlBuilder#batch} once per
+ * row, and is reused for the next row as soon as the callback
+ * returns, so it must not be kept.
+ *
+ * <p>Usage Example:</p>
+ * <pre>
+ * SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?)")
+ *     .batch(movies, (movie, binder) -&gt; binder
+ *             .param(movie.title())
+ *             .param(movie.directedBy()), 1000)
+ *     .execute(dataSource);
+ * </pre>
+ */
+public final class Binder {
+
+    /**
+     * Parameters of the current row.
+     */
+    private final Parameters parameters;
+
+    /**
+     * Creates a binder.
+     */
+    Binder() {
+        this.parameters = new Parameters();
+    }
+
+    /**
+     * Parameters of the current row.
+     *
+     * @return parameters
+     */
+    Parameters parameters() {
+        return parameters;
+    }
+
+    /**
+     * Adds a parameter with a null.
+     *
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder paramNull() {
+        parameters.addNull();
+        return this;
+    }
+
+    /**
+     * Adds a parameter with a specific SQL type and type name as `NULL`.
+     *
+     * @param sqlType  the SQL type of the parameter, as defined in
+     *                 {@link java.sql.Types}
+     * @param typeName the type name of the parameter, used for SQL types
+     *                 that require specific type information
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder paramNull(final int sqlType, final String typeName) {
+        parameters.addNull(sqlType, typeName);
+        return this;
+    }
+
+    /**
+     * Adds an int parameter.
+     *
+     * @param value the int value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final int value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a long parameter.
+     *
+     * @param value the long value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final long value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a short parameter.
+     *
+     * @param value the short value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final short value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a byte parameter.
+     *
+     * @param value the byte value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final byte value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a double parameter.
+     *
+     * @param value the double value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final double value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a float parameter.
+     *
+     * @param value the float value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final float value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a boolean parameter.
+     *
+     * @param value the boolean value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final boolean value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a char parameter, bound as a String of length one.
+     *
+     * @param value the char value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final char value) {
+        parameters.add(String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Adds an Integer parameter, bound as SQL NULL when null.
+     *
+     * @param value the Integer value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Integer value) {
+        return value == null ? paramNull() : param(value.intValue());
+    }
+
+    /**
+     * Adds a Long parameter, bound as SQL NULL when null.
+     *
+     * @param value the Long value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Long value) {
+        return value == null ? paramNull() : param(value.longValue());
+    }
+
+    /**
+     * Adds a Short parameter, bound as SQL NULL when null.
+     *
+     * @param value the Short value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Short value) {
+        return value == null ? paramNull() : param(value.shortValue());
+    }
+
+    /**
+     * Adds a Double parameter, bound as SQL NULL when null.
+     *
+     * @param value the Double value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Double value) {
+        return value == null ? paramNull() : param(value.doubleValue());
+    }
+
+    /**
+     * Adds a Float parameter, bound as SQL NULL when null.
+     *
+     * @param value the Float value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Float value) {
+        return value == null ? paramNull() : param(value.floatValue());
+    }
+
+    /**
+     * Adds a Boolean parameter, bound as SQL NULL when null.
+     *
+     * @param value the Boolean value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Boolean value) {
+        return value == null ? paramNull() : param(value.booleanValue());
+    }
+
+    /**
+     * Adds a String parameter.
+     *
+     * @param value the value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final String value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a Date parameter.
+     *
+     * @param value the value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Date value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a Time parameter.
+     *
+     * @param value the value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Time value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a Timestamp parameter.
+     *
+     * @param value the value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Timestamp value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a BigDecimal parameter.
+     *
+     * @param value the value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final BigDecimal value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a byte array parameter.
+     *
+     * @param value the value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final byte[] value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds an Object parameter.
+     *
+     * @param value the value to be added
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Object value) {
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * Adds an Object parameter with targetSqlType.
+     *
+     * @param value         the Object value to be added
+     * @param targetSqlType the targeted SqlType.
+     * @return the current Binder instance, for method chaining
+     */
+    public Binder param(final Object value, final int targetSqlType) {
+        parameters.add(value, targetSqlType);
+        return this;
+    }
+}
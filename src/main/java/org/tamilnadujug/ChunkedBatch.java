@@ -0,0 +1,188 @@
+package org.tamilnadujug;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Sends the rows of a JDBC batch in chunks of a bounded size, so that the
+ * driver never holds more than one chunk of rows in memory.
+ */
+final class ChunkedBatch {
+
+    /**
+     * Utility class.
+     */
+    private ChunkedBatch() {
+    }
+
+    /**
+     * Adds {@code rows} rows to the statement's batch, executing the batch
+     * every {@code batchSize} rows and once more for the remaining rows.
+     *
+     * @param connection      the connection the statement belongs to
+     * @param statement       the statement to batch rows on
+     * @param rows            the number of rows
+     * @param batchSize       rows per executeBatch call, 0 for all rows at
+     *                        once
+     * @param commitEachBatch whether to commit after each executeBatch call
+     * @param row             adds a row, by index, to the statement's batch
+     * @return the update counts of all rows
+     * @throws SQLException if a database access error occurs
+     */
+    static int[] execute(final Connection connection,
+                         final Statement statement,
+                         final int rows,
+                         final int batchSize,
+                         final boolean commitEachBatch,
+                         final Row row) throws SQLException {
+        int[] next = new int[1];
+        return execute(connection, statement, rows, batchSize,
+                commitEachBatch, () -> {
+                    if (next[0] == rows) {
+                        return false;
+                    }
+                    row.add(next[0]++);
+                    return true;
+                });
+    }
+
+    /**
+     * Adds rows to the statement's batch until there are no more, executing
+     * the batch every {@code batchSize} rows and once more for the remaining
+     * rows.
+     *
+     * @param connection      the connection the statement belongs to
+     * @param statement       the statement to batch rows on
+     * @param expectedRows    the expected number of rows, used to size the
+     *                        update counts
+     * @param batchSize       rows per executeBatch call, 0 for all rows at
+     *                        once
+     * @param commitEachBatch whether to commit after each executeBatch call
+     * @param rows            adds the next row to the statement's batch
+     * @return the update counts of all rows
+     * @throws SQLException if a database access error occurs
+     */
+    static int[] execute(final Connection connection,
+                         final Statement statement,
+                         final int expectedRows,
+                         final int batchSize,
+                         final boolean commitEachBatch,
+                         final Rows rows) throws SQLException {
+        boolean autoCommit = commitEachBatch && connection.getAutoCommit();
+        if (commitEachBatch) {
+            connection.setAutoCommit(false);
+        }
+        try {
+            int chunk = batchSize > 0 ? batchSize : Integer.MAX_VALUE;
+            int[] updatedRows = new int[expectedRows];
+            int count = 0;
+            int pending = 0;
+            while (rows.addNext()) {
+                pending++;
+                if (pending == chunk) {
+                    updatedRows = flush(statement, updatedRows, count);
+                    count += pending;
+                    pending = 0;
+                    commit(connection, commitEachBatch);
+                }
+            }
+            if (pending > 0) {
+                updatedRows = flush(statement, updatedRows, count);
+                count += pending;
+                commit(connection, commitEachBatch);
+            }
+            return count == updatedRows.length ? updatedRows
+                    : Arrays.copyOf(updatedRows, count);
+        } catch (SQLException e) {
+            if (commitEachBatch) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if (commitEachBatch) {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Validates a batch size.
+     *
+     * @param rows the number of rows per executeBatch call
+     * @return rows
+     */
+    static int batchSize(final int rows) {
+        if (rows < 1) {
+            throw new IllegalArgumentException(
+                    "batchSize must be positive: " + rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Commits, if requested.
+     *
+     * @param connection      the connection
+     * @param commitEachBatch whether to commit
+     * @throws SQLException if a database access error occurs
+     */
+    private static void commit(final Connection connection,
+                               final boolean commitEachBatch)
+            throws SQLException {
+        if (commitEachBatch) {
+            connection.commit();
+        }
+    }
+
+    /**
+     * Executes the statement's batch, appending its update counts.
+     *
+     * @param statement   the statement
+     * @param updatedRows the update counts so far
+     * @param count       the number of update counts so far
+     * @return the update counts, grown when full
+     * @throws SQLException if a database access error occurs
+     */
+    private static int[] flush(final Statement statement,
+                               final int[] updatedRows,
+                               final int count) throws SQLException {
+        int[] chunk = statement.executeBatch();
+        int[] result = updatedRows;
+        if (count + chunk.length > result.length) {
+            result = Arrays.copyOf(result,
+                    Math.max(result.length * 2, count + chunk.length));
+        }
+        System.arraycopy(chunk, 0, result, count, chunk.length);
+        return result;
+    }
+
+    /**
+     * Adds a row to a statement's batch.
+     */
+    @FunctionalInterface
+    interface Row {
+        /**
+         * Adds a row to the statement's batch.
+         *
+         * @param index the index of the row
+         * @throws SQLException if a database access error occurs
+         */
+        void add(int index) throws SQLException;
+    }
+
+    /**
+     * Adds rows, one at a time, to a statement's batch.
+     */
+    @FunctionalInterface
+    interface Rows {
+        /**
+         * Adds the next row to the statement's batch.
+         *
+         * @return false if there are no more rows
+         * @throws SQLException if a database access error occurs
+         */
+        boolean addNext() throws SQLException;
+    }
+}
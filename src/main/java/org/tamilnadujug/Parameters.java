@@ -0,0 +1,436 @@
+package org.tamilnadujug;
+
+import org.tamilnadujug.sql.ParamMapper;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable list of statement parameters stored in type-tagged arrays.
+ * Primitive values live unboxed in a {@code long[]} (floating point values as
+ * their raw bits), references in an {@code Object[]}, and a {@code byte[]}
+ * records how each parameter is bound. Adding a parameter allocates nothing
+ * beyond the occasional array growth.
+ */
+final class Parameters {
+
+    /**
+     * Initial number of parameters the arrays can hold.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Number of key values each parameter contributes to {@link #values()}.
+     */
+    private static final int KEY_SLOTS = 3;
+
+    /**
+     * Bound with {@code setObject(index, null)}.
+     */
+    private static final byte NULL = 0;
+    /**
+     * Bound with {@code setNull(index, sqlType, typeName)}.
+     */
+    private static final byte TYPED_NULL = 1;
+    /**
+     * Bound with {@code setInt}.
+     */
+    private static final byte INT = 2;
+    /**
+     * Bound with {@code setLong}.
+     */
+    private static final byte LONG = 3;
+    /**
+     * Bound with {@code setShort}.
+     */
+    private static final byte SHORT = 4;
+    /**
+     * Bound with {@code setByte}.
+     */
+    private static final byte BYTE = 5;
+    /**
+     * Bound with {@code setBoolean}.
+     */
+    private static final byte BOOLEAN = 6;
+    /**
+     * Bound with {@code setFloat}.
+     */
+    private static final byte FLOAT = 7;
+    /**
+     * Bound with {@code setDouble}.
+     */
+    private static final byte DOUBLE = 8;
+    /**
+     * Bound with {@code setString}.
+     */
+    private static final byte STRING = 9;
+    /**
+     * Bound with {@code setDate}.
+     */
+    private static final byte DATE = 10;
+    /**
+     * Bound with {@code setTime}.
+     */
+    private static final byte TIME = 11;
+    /**
+     * Bound with {@code setTimestamp}.
+     */
+    private static final byte TIMESTAMP = 12;
+    /**
+     * Bound with {@code setBigDecimal}.
+     */
+    private static final byte BIG_DECIMAL = 13;
+    /**
+     * Bound with {@code setBytes}.
+     */
+    private static final byte BYTES = 14;
+    /**
+     * Bound with {@code setObject(index, value)}.
+     */
+    private static final byte OBJECT = 15;
+    /**
+     * Bound with {@code setObject(index, value, targetSqlType)}.
+     */
+    private static final byte TYPED_OBJECT = 16;
+    /**
+     * Bound by a {@link ParamMapper}.
+     */
+    private static final byte MAPPER = 17;
+
+    /**
+     * How each parameter is bound.
+     */
+    private byte[] types;
+
+    /**
+     * Primitive values and SQL types, by parameter.
+     */
+    private long[] primitives;
+
+    /**
+     * Reference values, type names and mappers, by parameter.
+     */
+    private Object[] references;
+
+    /**
+     * Number of parameters added.
+     */
+    private int size;
+
+    /**
+     * Creates an empty parameter list.
+     */
+    Parameters() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty parameter list sized for the expected number of
+     * parameters.
+     *
+     * @param capacity the number of parameters expected, at least 1
+     */
+    Parameters(final int capacity) {
+        this.types = new byte[capacity];
+        this.primitives = new long[capacity];
+        this.references = new Object[capacity];
+    }
+
+    /**
+     * Number of parameters added.
+     *
+     * @return size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all parameters, keeping the arrays for reuse.
+     */
+    void clear() {
+        Arrays.fill(references, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Adds a {@code NULL} parameter of unspecified type.
+     */
+    void addNull() {
+        add(NULL, 0L, null);
+    }
+
+    /**
+     * Adds a {@code NULL} parameter of the given SQL type.
+     *
+     * @param sqlType  the SQL type, as defined in {@link java.sql.Types}
+     * @param typeName the SQL type name
+     */
+    void addNull(final int sqlType, final String typeName) {
+        add(TYPED_NULL, sqlType, typeName);
+    }
+
+    /**
+     * Adds an int parameter.
+     *
+     * @param value the value
+     */
+    void add(final int value) {
+        add(INT, value, null);
+    }
+
+    /**
+     * Adds a long parameter.
+     *
+     * @param value the value
+     */
+    void add(final long value) {
+        add(LONG, value, null);
+    }
+
+    /**
+     * Adds a short parameter.
+     *
+     * @param value the value
+     */
+    void add(final short value) {
+        add(SHORT, value, null);
+    }
+
+    /**
+     * Adds a byte parameter.
+     *
+     * @param value the value
+     */
+    void add(final byte value) {
+        add(BYTE, value, null);
+    }
+
+    /**
+     * Adds a boolean parameter.
+     *
+     * @param value the value
+     */
+    void add(final boolean value) {
+        add(BOOLEAN, value ? 1L : 0L, null);
+    }
+
+    /**
+     * Adds a float parameter.
+     *
+     * @param value the value
+     */
+    void add(final float value) {
+        add(FLOAT, Float.floatToRawIntBits(value), null);
+    }
+
+    /**
+     * Adds a double parameter.
+     *
+     * @param value the value
+     */
+    void add(final double value) {
+        add(DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    /**
+     * Adds a String parameter.
+     *
+     * @param value the value
+     */
+    void add(final String value) {
+        add(STRING, 0L, value);
+    }
+
+    /**
+     * Adds a Date parameter.
+     *
+     * @param value the value
+     */
+    void add(final Date value) {
+        add(DATE, 0L, value);
+    }
+
+    /**
+     * Adds a Time parameter.
+     *
+     * @param value the value
+     */
+    void add(final Time value) {
+        add(TIME, 0L, value);
+    }
+
+    /**
+     * Adds a Timestamp parameter.
+     *
+     * @param value the value
+     */
+    void add(final Timestamp value) {
+        add(TIMESTAMP, 0L, value);
+    }
+
+    /**
+     * Adds a BigDecimal parameter.
+     *
+     * @param value the value
+     */
+    void add(final BigDecimal value) {
+        add(BIG_DECIMAL, 0L, value);
+    }
+
+    /**
+     * Adds a byte array parameter.
+     *
+     * @param value the value
+     */
+    void add(final byte[] value) {
+        add(BYTES, 0L, value);
+    }
+
+    /**
+     * Adds an Object parameter, bound with {@code setObject}.
+     *
+     * @param value the value
+     */
+    void add(final Object value) {
+        add(OBJECT, 0L, value);
+    }
+
+    /**
+     * Adds an Object parameter with a target SQL type.
+     *
+     * @param value         the value
+     * @param targetSqlType the SQL type, as defined in {@link java.sql.Types}
+     */
+    void add(final Object value, final int targetSqlType) {
+        add(TYPED_OBJECT, targetSqlType, value);
+    }
+
+    /**
+     * Adds a parameter bound by the given mapper.
+     *
+     * @param paramMapper the mapper
+     */
+    void add(final ParamMapper paramMapper) {
+        add(MAPPER, 0L, paramMapper);
+    }
+
+    /**
+     * The parameter values, comparable with {@code equals}, to key cached
+     * query results by. Each parameter contributes how it is bound, its
+     * primitive slot (the value, or the SQL type of typed nulls and typed
+     * objects) and its reference slot. Mappers compare by identity, so a
+     * query with a parameter bound by a mapper never matches another.
+     *
+     * @return the values and how they are bound
+     */
+    List<Object> values() {
+        List<Object> values = new ArrayList<>(size * KEY_SLOTS);
+        for (int i = 0; i < size; i++) {
+            values.add(types[i]);
+            values.add(primitives[i]);
+            values.add(types[i] == BYTES
+                    ? Arrays.toString((byte[]) references[i])
+                    : references[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Binds all parameters to the statement.
+     *
+     * @param ps the PreparedStatement to bind to
+     * @return ps
+     * @throws SQLException if binding fails
+     */
+    PreparedStatement bind(final PreparedStatement ps) throws SQLException {
+        return bind(ps, 0, size);
+    }
+
+    /**
+     * Binds {@code count} parameters, starting at {@code from}, to the
+     * statement's parameters 1 to {@code count}.
+     *
+     * @param ps    the PreparedStatement to bind to
+     * @param from  index of the first parameter to bind
+     * @param count number of parameters to bind
+     * @return ps
+     * @throws SQLException if binding fails
+     */
+    PreparedStatement bind(final PreparedStatement ps,
+                           final int from,
+                           final int count) throws SQLException {
+        for (int i = 0; i < count; i++) {
+            bindOne(ps, i + 1, from + i);
+        }
+        return ps;
+    }
+
+    /**
+     * Binds a single parameter.
+     *
+     * @param ps    the PreparedStatement to bind to
+     * @param index the statement parameter index (1-based)
+     * @param i     position of the parameter in this list
+     * @throws SQLException if binding fails
+     */
+    private void bindOne(final PreparedStatement ps,
+                         final int index,
+                         final int i) throws SQLException {
+        long primitive = primitives[i];
+        Object reference = references[i];
+        switch (types[i]) {
+            case TYPED_NULL -> ps.setNull(index, (int) primitive,
+                    (String) reference);
+            case INT -> ps.setInt(index, (int) primitive);
+            case LONG -> ps.setLong(index, primitive);
+            case SHORT -> ps.setShort(index, (short) primitive);
+            case BYTE -> ps.setByte(index, (byte) primitive);
+            case BOOLEAN -> ps.setBoolean(index, primitive != 0L);
+            case FLOAT -> ps.setFloat(index,
+                    Float.intBitsToFloat((int) primitive));
+            case DOUBLE -> ps.setDouble(index,
+                    Double.longBitsToDouble(primitive));
+            case STRING -> ps.setString(index, (String) reference);
+            case DATE -> ps.setDate(index, (Date) reference);
+            case TIME -> ps.setTime(index, (Time) reference);
+            case TIMESTAMP -> ps.setTimestamp(index, (Timestamp) reference);
+            case BIG_DECIMAL -> ps.setBigDecimal(index,
+                    (BigDecimal) reference);
+            case BYTES -> ps.setBytes(index, (byte[]) reference);
+            case TYPED_OBJECT -> ps.setObject(index, reference,
+                    (int) primitive);
+            case MAPPER -> ((ParamMapper) reference).set(ps, index);
+            default -> ps.setObject(index, reference);
+        }
+    }
+
+    /**
+     * Appends a parameter, growing the arrays when full.
+     *
+     * @param type      how the parameter is bound
+     * @param primitive the primitive value or SQL type
+     * @param reference the reference value, type name or mapper
+     */
+    private void add(final byte type,
+                     final long primitive,
+                     final Object reference) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            primitives = Arrays.copyOf(primitives, capacity);
+            references = Arrays.copyOf(references, capacity);
+        }
+        types[size] = type;
+        primitives[size] = primitive;
+        references[size] = reference;
+        size++;
+    }
+}
@@ -0,0 +1,439 @@
+package org.tamilnadujug;
+
+import org.tamilnadujug.sql.RowMapper;
+import org.tamilnadujug.sql.Sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SQL operation that returns a {@link Flow.Publisher} of rows. Each
+ * subscription runs the query on a dedicated thread, a virtual one where the
+ * JDK offers it, and reads rows only as the subscriber requests them: the
+ * fetch size follows the outstanding demand, so the driver transfers no
+ * more rows than were asked for (up to {@link #MAX_FETCH_SIZE} at a time).
+ *
+ * <p>A connection borrowed from a {@link DataSource} has auto-commit
+ * turned off while rows are published, so that drivers such as
+ * PostgreSQL's honour the fetch size, and restored before it is closed. A
+ * {@link Connection} passed in must have auto-commit off for the same
+ * reason.</p>
+ *
+ * <p>Cancelling the subscription cancels the running statement and closes
+ * the ResultSet and Statement, and the Connection when the publisher was
+ * obtained with a {@link DataSource}. A publisher obtained with a
+ * {@link Connection} uses that connection from its own thread; it must stay
+ * open, and otherwise unused, until the subscription ends.</p>
+ *
+ * @param <S> the type of statement
+ * @param <T> the type of object mapped from each row
+ */
+final class PublisherSql<S extends Statement, T>
+        implements Sql<Flow.Publisher<T>> {
+
+    /**
+     * Largest number of rows fetched at a time, however many are requested.
+     */
+    static final int MAX_FETCH_SIZE = 1000;
+
+    /**
+     * Runs each subscription on a thread of its own.
+     */
+    private static final Executor THREADS = newExecutor();
+
+    /**
+     * Creates the statement on a connection.
+     */
+    private final Sql<S> prepare;
+
+    /**
+     * Executes the statement.
+     */
+    private final Query<S> query;
+
+    /**
+     * Maps each row.
+     */
+    private final RowMapper<T> rowMapper;
+
+    /**
+     * Creates a publisher SQL operation.
+     *
+     * @param thePrepare   creates the statement on a connection
+     * @param theQuery     executes the statement
+     * @param theRowMapper maps each row
+     */
+    PublisherSql(final Sql<S> thePrepare,
+                 final Query<S> theQuery,
+                 final RowMapper<T> theRowMapper) {
+        this.prepare = thePrepare;
+        this.query = theQuery;
+        this.rowMapper = theRowMapper;
+    }
+
+    /**
+     * Returns a publisher whose subscriptions use the given connection.
+     *
+     * @param connection JDBC connection to use for execution
+     * @return publisher of rows
+     */
+    @Override
+    public Flow.Publisher<T> execute(final Connection connection) {
+        return subscriber -> subscribe(subscriber, null, connection);
+    }
+
+    /**
+     * Returns a publisher whose subscriptions each borrow a connection from
+     * the given DataSource, held until the subscription ends.
+     *
+     * @param dataSource JDBC DataSource to use for execution
+     * @return publisher of rows
+     */
+    @Override
+    public Flow.Publisher<T> execute(final DataSource dataSource) {
+        return subscriber -> subscribe(subscriber, dataSource, null);
+    }
+
+    /**
+     * Subscribes and starts reading rows on a thread of its own.
+     *
+     * @param subscriber the subscriber
+     * @param dataSource the DataSource to borrow a connection from, or null
+     * @param connection the connection to use, when dataSource is null
+     */
+    private void subscribe(final Flow.Subscriber<? super T> subscriber,
+                           final DataSource dataSource,
+                           final Connection connection) {
+        RowSubscription subscription = new RowSubscription(subscriber,
+                dataSource, connection);
+        subscriber.onSubscribe(subscription);
+        THREADS.execute(subscription);
+    }
+
+    /**
+     * Fetch size for the given demand.
+     *
+     * @param demand rows requested and not yet delivered
+     * @return the fetch size
+     */
+    private static int fetchSize(final long demand) {
+        return (int) Math.min(demand, MAX_FETCH_SIZE);
+    }
+
+    /**
+     * Creates the executor: a new virtual thread per subscription where the
+     * JDK offers it, otherwise a new daemon thread.
+     *
+     * @return the executor
+     */
+    private static Executor newExecutor() {
+        try {
+            return (Executor) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return task -> {
+                Thread thread = new Thread(task, "sql-publisher");
+                thread.setDaemon(true);
+                thread.start();
+            };
+        }
+    }
+
+    /**
+     * Executes a statement created by {@link #prepare}.
+     *
+     * @param <S> the type of statement
+     */
+    @FunctionalInterface
+    interface Query<S extends Statement> {
+        /**
+         * Executes the statement.
+         *
+         * @param statement the statement
+         * @return the rows
+         * @throws SQLException if a database access error occurs
+         */
+        ResultSet execute(S statement) throws SQLException;
+    }
+
+    /**
+     * A subscription, and the task reading its rows. The reader waits for
+     * demand on a {@link Condition} rather than with {@code Object.wait()},
+     * so that a virtual thread waiting for a slow subscriber does not pin
+     * its carrier thread.
+     */
+    private final class RowSubscription
+            implements Flow.Subscription, Runnable {
+
+        /**
+         * The subscriber.
+         */
+        private final Flow.Subscriber<? super T> subscriber;
+
+        /**
+         * DataSource to borrow a connection from, or null.
+         */
+        private final DataSource dataSource;
+
+        /**
+         * Connection to use when there is no DataSource.
+         */
+        private final Connection connection;
+
+        /**
+         * Guards the state below.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Signalled when rows are requested or the subscription is
+         * cancelled.
+         */
+        private final Condition signalled = lock.newCondition();
+
+        /**
+         * Rows requested and not yet delivered; Long.MAX_VALUE is unbounded.
+         */
+        private long demand;
+
+        /**
+         * Whether the subscriber cancelled.
+         */
+        private boolean cancelled;
+
+        /**
+         * Set when the subscriber requests a non-positive number of rows.
+         */
+        private IllegalArgumentException rejected;
+
+        /**
+         * The statement running, the one to cancel.
+         */
+        private Statement running;
+
+        /**
+         * Creates a subscription.
+         *
+         * @param theSubscriber the subscriber
+         * @param theDataSource the DataSource, or null
+         * @param theConnection the connection, when there is no DataSource
+         */
+        private RowSubscription(final Flow.Subscriber<? super T> theSubscriber,
+                                final DataSource theDataSource,
+                                final Connection theConnection) {
+            this.subscriber = theSubscriber;
+            this.dataSource = theDataSource;
+            this.connection = theConnection;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void request(final long n) {
+            lock.lock();
+            try {
+                if (n <= 0) {
+                    rejected = new IllegalArgumentException(
+                            "requested rows must be positive: " + n);
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                signalled.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Cancels the subscription and the running statement, if any.
+         */
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                signalled.signalAll();
+                if (running != null) {
+                    try {
+                        running.cancel();
+                    } catch (SQLException e) {
+                        // The statement finished; it is closed by the reader.
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Reads the rows, then signals completion or the failure.
+         */
+        @Override
+        public void run() {
+            boolean complete;
+            try {
+                if (dataSource == null) {
+                    complete = publish(connection);
+                } else {
+                    try (Connection borrowed = dataSource.getConnection()) {
+                        complete = publishWithCursor(borrowed);
+                    }
+                }
+            } catch (Throwable e) {
+                if (!isCancelled()) {
+                    subscriber.onError(e);
+                }
+                return;
+            }
+            if (complete) {
+                subscriber.onComplete();
+            }
+        }
+
+        /**
+         * Publishes rows on a borrowed connection with auto-commit off, so
+         * that drivers such as PostgreSQL's read them through a cursor in
+         * batches of the fetch size. The transaction is rolled back if
+         * publishing fails or is cancelled, and auto-commit is restored.
+         *
+         * @param borrowed the borrowed connection
+         * @return true if all rows were published, false if cancelled
+         * @throws Exception if the query, the row mapper or the subscriber
+         *                   fails
+         */
+        private boolean publishWithCursor(final Connection borrowed)
+                throws Exception {
+            boolean autoCommit = borrowed.getAutoCommit();
+            borrowed.setAutoCommit(false);
+            boolean complete;
+            try {
+                complete = publish(borrowed);
+                if (!complete) {
+                    borrowed.rollback();
+                }
+            } catch (Throwable e) {
+                try {
+                    borrowed.rollback();
+                    borrowed.setAutoCommit(autoCommit);
+                } catch (SQLException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            borrowed.setAutoCommit(autoCommit);
+            return complete;
+        }
+
+        /**
+         * Runs the query and publishes rows while there is demand.
+         *
+         * @param theConnection the connection to use
+         * @return true if all rows were published, false if cancelled
+         * @throws Exception if the query, the row mapper or the subscriber
+         *                   fails
+         */
+        private boolean publish(final Connection theConnection)
+                throws Exception {
+            S statement = prepare.execute(theConnection);
+            try {
+                track(statement);
+                long wanted = awaitDemand();
+                if (wanted == 0) {
+                    return false;
+                }
+                statement.setFetchSize(fetchSize(wanted));
+                try (ResultSet rs = query.execute(statement)) {
+                    while (rs.next()) {
+                        T row = rowMapper.get(rs);
+                        deliver(row);
+                        wanted = awaitDemand();
+                        if (wanted == 0) {
+                            return false;
+                        }
+                        rs.setFetchSize(fetchSize(wanted));
+                    }
+                    return true;
+                }
+            } finally {
+                track(null);
+                statement.close();
+            }
+        }
+
+        /**
+         * Sets the statement to cancel.
+         *
+         * @param statement the statement, or null once it finished
+         */
+        private void track(final Statement statement) {
+            lock.lock();
+            try {
+                running = statement;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Waits until rows are requested or the subscription is cancelled.
+         *
+         * @return the demand, or 0 if cancelled
+         * @throws InterruptedException if interrupted while waiting
+         */
+        private long awaitDemand() throws InterruptedException {
+            lock.lock();
+            try {
+                while (demand == 0 && !cancelled && rejected == null) {
+                    signalled.await();
+                }
+                if (rejected != null) {
+                    throw rejected;
+                }
+                return cancelled ? 0 : demand;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Delivers a row, taking it from the demand.
+         *
+         * @param row the row
+         */
+        private void deliver(final T row) {
+            lock.lock();
+            try {
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            } finally {
+                lock.unlock();
+            }
+            subscriber.onNext(row);
+        }
+
+        /**
+         * Whether the subscriber cancelled.
+         *
+         * @return true if cancelled
+         */
+        private boolean isCancelled() {
+            lock.lock();
+            try {
+                return cancelled;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package org.tamilnadujug;
+
+import org.tamilnadujug.sql.Sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A bounded, least recently used cache of query results, keyed by SQL,
+ * bound parameter values and the shape of the result (single row or list,
+ * and the row mapper instance). Entries expire a fixed time after they
+ * were loaded. It saves round trips for reference data, such as country
+ * codes or configuration rows, that is read far more often than it changes.
+ *
+ * <p>Caching is opt-in: pass a cache to
+ * {@link SqlBuilder#resultCache(ResultCache, String...)} or
+ * {@link SqlTemplate#resultCache(ResultCache, String...)}. Only queries
+ * mapping one row or a list of rows, such as
+ * {@link SqlBuilder#queryForOne(org.tamilnadujug.sql.RowMapper)},
+ * {@link SqlBuilder#queryForList(org.tamilnadujug.sql.RowMapper)} and the
+ * typed variants built on them, are cached. Row mappers compare by
+ * identity, so keep the mapper of a cached query in a constant: a mapper
+ * created per call, such as a capturing lambda, never hits. Cached lists are
+ * unmodifiable; other cached results are shared between callers and must
+ * not be modified.</p>
+ *
+ * <p>The cache does not see writes. After changing the underlying tables,
+ * call {@link #invalidate(String)} with a prefix of the cached SQL, or
+ * {@link #invalidateTag(String)} with a tag given when the query was
+ * built. A result whose query was running while any invalidation happened
+ * is returned to its caller but not stored.</p>
+ *
+ * <p>Usage Example:</p>
+ * <pre>
+ * ResultCache cache = new ResultCache(1000, Duration.ofMinutes(5));
+ *
+ * List&lt;String&gt; codes = SqlBuilder
+ *     .prepareSql("SELECT code FROM country WHERE region = ?")
+ *     .param(region)
+ *     .resultCache(cache, "country")
+ *     .queryForListOfString()
+ *     .execute(dataSource);
+ *
+ * cache.invalidateTag("country");
+ * </pre>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+public final class ResultCache {
+
+    /**
+     * Maximum number of results held.
+     */
+    private final int maxEntries;
+
+    /**
+     * How long a result is served after it was loaded, in nanoseconds.
+     */
+    private final long ttlNanos;
+
+    /**
+     * Results, least recently used first.
+     */
+    private final Map<Key, Entry> entries;
+
+    /**
+     * Number of executions served from the cache.
+     */
+    private long hits;
+
+    /**
+     * Number of executions that ran the query.
+     */
+    private long misses;
+
+    /**
+     * Number of results removed to stay within the maximum size, or because
+     * they expired.
+     */
+    private long evictions;
+
+    /**
+     * Time spent running queries on a miss, in nanoseconds.
+     */
+    private long loadNanos;
+
+    /**
+     * Number of invalidations so far; a result loaded across one is not
+     * stored, as it may predate the write that caused it.
+     */
+    private long generation;
+
+    /**
+     * Creates a result cache.
+     *
+     * @param theMaxEntries the maximum number of results to hold
+     * @param theTtl        how long a result is served after it was loaded
+     */
+    public ResultCache(final int theMaxEntries, final Duration theTtl) {
+        if (theMaxEntries < 1) {
+            throw new IllegalArgumentException(
+                    "maxEntries must be positive: " + theMaxEntries);
+        }
+        if (theTtl.isNegative() || theTtl.isZero()) {
+            throw new IllegalArgumentException(
+                    "ttl must be positive: " + theTtl);
+        }
+        this.maxEntries = theMaxEntries;
+        this.ttlNanos = theTtl.toNanos();
+        this.entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Number of executions served from the cache.
+     *
+     * @return hit count
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Number of executions that ran the query.
+     *
+     * @return miss count
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Number of results removed to stay within the maximum size, or because
+     * they expired.
+     *
+     * @return eviction count
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Total time spent running queries on a miss.
+     *
+     * @return load time
+     */
+    public synchronized Duration loadTime() {
+        return Duration.ofNanos(loadNanos);
+    }
+
+    /**
+     * Number of results currently held, including expired ones not yet
+     * removed.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes the results of queries whose SQL starts with the given
+     * prefix.
+     *
+     * @param sqlPrefix the SQL prefix, e.g. {@code "SELECT code FROM country"}
+     */
+    public void invalidate(final String sqlPrefix) {
+        remove(key -> key.sql().startsWith(sqlPrefix));
+    }
+
+    /**
+     * Removes the results of queries built with the given tag.
+     *
+     * @param tag the tag
+     */
+    public void invalidateTag(final String tag) {
+        remove(key -> key.tags().contains(tag));
+    }
+
+    /**
+     * Removes all results.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        generation++;
+    }
+
+    /**
+     * Wraps a query so that its result is served from this cache while
+     * fresh.
+     *
+     * @param sql    the SQL of the query
+     * @param params the bound parameter values
+     * @param shape  distinguishes results of the same SQL mapped differently
+     * @param tags   tags to invalidate the result by
+     * @param query  runs the query on a miss
+     * @param <R>    the type of result
+     * @return the caching query
+     */
+    <R> Sql<R> cached(final String sql,
+                      final List<Object> params,
+                      final Object shape,
+                      final String[] tags,
+                      final Sql<R> query) {
+        return new CachedSql<>(new Key(sql, params, shape, List.of(tags)),
+                query);
+    }
+
+    /**
+     * Serves a fresh result, or runs the query and stores its result.
+     *
+     * @param key    the cache key
+     * @param loader runs the query on a miss
+     * @param <R>    the type of result
+     * @return the result
+     * @throws SQLException if the query fails
+     */
+    @SuppressWarnings("unchecked")
+    private <R> R load(final Key key, final Loader<R> loader)
+            throws SQLException {
+        Entry entry = get(key);
+        if (entry != null) {
+            return (R) entry.value();
+        }
+        long loading = generation();
+        long start = System.nanoTime();
+        R value = loader.load();
+        long now = System.nanoTime();
+        put(key, new Entry(value, now + ttlNanos), now - start, loading);
+        return value;
+    }
+
+    /**
+     * Gets a fresh result, marking it most recently used.
+     *
+     * @param key the cache key
+     * @return the entry, or null on a miss
+     */
+    private synchronized Entry get(final Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null && entry.expiresAt() - System.nanoTime() <= 0) {
+            evictions++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        entries.put(key, entry);
+        hits++;
+        return entry;
+    }
+
+    /**
+     * The current invalidation generation.
+     *
+     * @return the generation
+     */
+    private synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a result, evicting the least recently used results beyond the
+     * maximum size. The result is dropped if an invalidation happened since
+     * its query started.
+     *
+     * @param key       the cache key
+     * @param entry     the result
+     * @param loadTime  time spent running the query, in nanoseconds
+     * @param loading   the generation when the query started
+     */
+    private synchronized void put(final Key key,
+                                  final Entry entry,
+                                  final long loadTime,
+                                  final long loading) {
+        loadNanos += loadTime;
+        if (loading != generation) {
+            return;
+        }
+        entries.remove(key);
+        entries.put(key, entry);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the results whose key matches.
+     *
+     * @param matching selects the keys to remove
+     */
+    private synchronized void remove(final Predicate<Key> matching) {
+        entries.keySet().removeIf(matching);
+        generation++;
+    }
+
+    /**
+     * Runs a query.
+     *
+     * @param <R> the type of result
+     */
+    @FunctionalInterface
+    private interface Loader<R> {
+        /**
+         * Runs the query.
+         *
+         * @return the result
+         * @throws SQLException if the query fails
+         */
+        R load() throws SQLException;
+    }
+
+    /**
+     * A query whose result is served from this cache while fresh. Executed
+     * with a DataSource, it borrows a Connection only on a miss.
+     *
+     * @param <R> the type of result
+     */
+    private final class CachedSql<R> implements Sql<R> {
+
+        /**
+         * The cache key.
+         */
+        private final Key key;
+
+        /**
+         * Runs the query on a miss.
+         */
+        private final Sql<R> query;
+
+        /**
+         * Creates a cached query.
+         *
+         * @param theKey   the cache key
+         * @param theQuery runs the query on a miss
+         */
+        private CachedSql(final Key theKey, final Sql<R> theQuery) {
+            this.key = theKey;
+            this.query = theQuery;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public R execute(final Connection connection) throws SQLException {
+            return load(key, () -> query.execute(connection));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public R execute(final DataSource dataSource) throws SQLException {
+            return load(key, () -> query.execute(dataSource));
+        }
+    }
+
+    /**
+     * Identifies a cached result.
+     *
+     * @param sql    the SQL of the query
+     * @param params the bound parameter values
+     * @param shape  how the rows are mapped
+     * @param tags   tags to invalidate the result by
+     */
+    private record Key(String sql,
+                       List<Object> params,
+                       Object shape,
+                       List<String> tags) {
+    }
+
+    /**
+     * A cached result.
+     *
+     * @param value     the result
+     * @param expiresAt when it expires, in {@link System#nanoTime()} units
+     */
+    private record Entry(Object value, long expiresAt) {
+    }
+}
@@ -0,0 +1,284 @@
+package org.tamilnadujug;
+
+import org.tamilnadujug.sql.Sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable policy for re-running a {@link Transaction} that failed with
+ * a transient error, such as a serialization failure ({@code 40001}) or a
+ * deadlock ({@code 40P01}). Each retry waits for an exponentially growing,
+ * jittered backoff, and retries stop after a maximum number of attempts or
+ * once the total deadline would be exceeded.
+ *
+ * <p>Usage Example:</p>
+ * <pre>
+ * RetryPolicy policy = RetryPolicy.of(5)
+ *     .backoff(Duration.ofMillis(20), Duration.ofSeconds(1))
+ *     .deadline(Duration.ofSeconds(10))
+ *     .listener((attempt, failure) -&gt; log(attempt, failure));
+ *
+ * Transaction.begin(debitSql)
+ *     .thenApply(balance -&gt; creditSql)
+ *     .retry(policy)
+ *     .execute(dataSource);
+ * </pre>
+ */
+public final class RetryPolicy {
+
+    /**
+     * Default backoff before the first retry.
+     */
+    private static final Duration DEFAULT_INITIAL_BACKOFF
+            = Duration.ofMillis(10);
+
+    /**
+     * Default upper bound of the backoff.
+     */
+    private static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(1);
+
+    /**
+     * Maximum number of attempts, including the first one.
+     */
+    private final int maxAttempts;
+
+    /**
+     * SQLStates that are retried.
+     */
+    private final Set<String> sqlStates;
+
+    /**
+     * Backoff before the first retry.
+     */
+    private final Duration initialBackoff;
+
+    /**
+     * Upper bound of the backoff before a retry.
+     */
+    private final Duration maxBackoff;
+
+    /**
+     * Total time allowed across all attempts, null for no deadline.
+     */
+    private final Duration deadline;
+
+    /**
+     * Listener notified after each attempt, null for none.
+     */
+    private final Listener listener;
+
+    /**
+     * Creates a retry policy.
+     *
+     * @param theMaxAttempts    the maximum number of attempts
+     * @param theSqlStates      the SQLStates to retry
+     * @param theInitialBackoff the backoff before the first retry
+     * @param theMaxBackoff     the upper bound of the backoff
+     * @param theDeadline       the total time allowed, or null
+     * @param theListener       the attempt listener, or null
+     */
+    private RetryPolicy(final int theMaxAttempts,
+                        final Set<String> theSqlStates,
+                        final Duration theInitialBackoff,
+                        final Duration theMaxBackoff,
+                        final Duration theDeadline,
+                        final Listener theListener) {
+        this.maxAttempts = theMaxAttempts;
+        this.sqlStates = theSqlStates;
+        this.initialBackoff = theInitialBackoff;
+        this.maxBackoff = theMaxBackoff;
+        this.deadline = theDeadline;
+        this.listener = theListener;
+    }
+
+    /**
+     * Creates a policy that makes up to the given number of attempts on
+     * serialization failures ({@code 40001}) and deadlocks
+     * ({@code 40P01}), backing off from 10 milliseconds up to 1 second,
+     * with no deadline.
+     *
+     * @param maxAttempts the maximum number of attempts, including the
+     *                    first one
+     * @return a new policy
+     */
+    public static RetryPolicy of(final int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException(
+                    "maxAttempts must be positive: " + maxAttempts);
+        }
+        return new RetryPolicy(maxAttempts, Set.of("40001", "40P01"),
+                DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, null, null);
+    }
+
+    /**
+     * Returns a copy of this policy that retries the given SQLStates
+     * instead.
+     *
+     * @param states the SQLStates to retry
+     * @return a new policy
+     */
+    public RetryPolicy sqlStates(final String... states) {
+        return new RetryPolicy(maxAttempts, Set.copyOf(Arrays.asList(states)),
+                initialBackoff, maxBackoff, deadline, listener);
+    }
+
+    /**
+     * Returns a copy of this policy with the given backoff. The backoff
+     * doubles with each retry, up to {@code max}; the actual wait is picked
+     * at random between half the backoff and the full backoff, so that
+     * transactions that failed together do not retry together.
+     *
+     * @param initial the backoff before the first retry
+     * @param max     the upper bound of the backoff
+     * @return a new policy
+     */
+    public RetryPolicy backoff(final Duration initial, final Duration max) {
+        if (initial.isNegative() || max.compareTo(initial) < 0) {
+            throw new IllegalArgumentException(
+                    "Invalid backoff: " + initial + ", " + max);
+        }
+        return new RetryPolicy(maxAttempts, sqlStates, initial, max,
+                deadline, listener);
+    }
+
+    /**
+     * Returns a copy of this policy that stops retrying once the time spent
+     * since the first attempt, plus the next backoff, would exceed the given
+     * deadline.
+     *
+     * @param total the total time allowed across all attempts
+     * @return a new policy
+     */
+    public RetryPolicy deadline(final Duration total) {
+        return new RetryPolicy(maxAttempts, sqlStates, initialBackoff,
+                maxBackoff, total, listener);
+    }
+
+    /**
+     * Returns a copy of this policy that notifies the given listener after
+     * each attempt.
+     *
+     * @param theListener the attempt listener
+     * @return a new policy
+     */
+    public RetryPolicy listener(final Listener theListener) {
+        return new RetryPolicy(maxAttempts, sqlStates, initialBackoff,
+                maxBackoff, deadline, theListener);
+    }
+
+    /**
+     * Runs the SQL on the connection until it succeeds, fails with an error
+     * that is not retried, or this policy gives up.
+     *
+     * @param connection the database connection
+     * @param sql        the SQL to run; it must leave the connection ready
+     *                   for another attempt when it fails
+     * @param <T>        the result type
+     * @return the result of the successful attempt
+     * @throws SQLException the failure of the last attempt
+     */
+    <T> T execute(final Connection connection, final Sql<T> sql)
+            throws SQLException {
+        long start = System.nanoTime();
+        for (int i = 1;; i++) {
+            try {
+                T t = sql.execute(connection);
+                report(i, null);
+                return t;
+            } catch (SQLException e) {
+                report(i, e);
+                long backoff = backoff(i);
+                if (i == maxAttempts || !isRetryable(e)
+                        || deadline != null && System.nanoTime() - start
+                        + backoff > deadline.toNanos()) {
+                    throw e;
+                }
+                sleep(backoff, e);
+            }
+        }
+    }
+
+    /**
+     * Notifies the listener, if any.
+     *
+     * @param attempt the attempt number, starting at 1
+     * @param failure the failure, or null if the attempt succeeded
+     */
+    private void report(final int attempt, final SQLException failure) {
+        if (listener != null) {
+            listener.onAttempt(attempt, failure);
+        }
+    }
+
+    /**
+     * Checks whether the exception, or one of its causes, has a SQLState
+     * that is retried.
+     *
+     * @param e the exception
+     * @return true if retryable
+     */
+    private boolean isRetryable(final SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sqlException
+                    && sqlStates.contains(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks the jittered backoff after the given attempt.
+     *
+     * @param attempt the attempt number, starting at 1
+     * @return the backoff in nanoseconds
+     */
+    private long backoff(final int attempt) {
+        long max = maxBackoff.toNanos();
+        long backoff = initialBackoff.toNanos();
+        for (int i = 1; i < attempt && backoff < max; i++) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, max);
+        return backoff / 2
+                + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * Waits before the next attempt.
+     *
+     * @param nanos   the time to wait
+     * @param failure the failure of the last attempt
+     * @throws SQLException the failure, if the thread is interrupted
+     */
+    private static void sleep(final long nanos, final SQLException failure)
+            throws SQLException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.addSuppressed(e);
+            throw failure;
+        }
+    }
+
+    /**
+     * Notified after each attempt of a retried transaction.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called after an attempt.
+         *
+         * @param attempt the attempt number, starting at 1
+         * @param failure the failure of the attempt, or null if it succeeded
+         */
+        void onAttempt(int attempt, SQLException failure);
+    }
+}
@@ -0,0 +1,317 @@
+package org.tamilnadujug;
+
+import org.tamilnadujug.sql.Sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent executions of identical queries, keyed like
+ * {@link ResultCache} by SQL, bound parameter values and the shape of the
+ * result, including the row mapper instance compared by identity. The
+ * first execution runs the query; executions that arrive while it is in
+ * flight wait for it and receive the same result, or the same failure,
+ * instead of running the query again. This keeps a burst of
+ * identical reads, such as the one that follows the expiry of a hot cached
+ * result, down to one database call.
+ *
+ * <p>Coalescing is opt-in: pass it to
+ * {@link SqlBuilder#singleFlight(SingleFlight)}. Only queries mapping one
+ * row or a list of rows are coalesced, and shared lists are unmodifiable.
+ * A waiting execution that is executed with a {@link DataSource} does not
+ * borrow a Connection. Waiting executions give up with an
+ * {@link SQLTimeoutException} after the maximum wait. As waiting executions
+ * see the result of another one's connection, coalesce only reads that do
+ * not depend on the caller's transaction.</p>
+ *
+ * <p>Usage Example:</p>
+ * <pre>
+ * SingleFlight flights = new SingleFlight(Duration.ofSeconds(2));
+ *
+ * Config config = SqlBuilder
+ *     .prepareSql("SELECT * FROM config WHERE name = ?")
+ *     .param(name)
+ *     .singleFlight(flights)
+ *     .queryForOne(this::mapConfig)
+ *     .execute(dataSource);
+ * </pre>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+public final class SingleFlight {
+
+    /**
+     * How long an execution waits for an identical one, in nanoseconds.
+     */
+    private final long maxWaitNanos;
+
+    /**
+     * Queries in flight.
+     */
+    private final Map<Key, CompletableFuture<Object>> calls;
+
+    /**
+     * Number of executions that ran the query.
+     */
+    private long executions;
+
+    /**
+     * Number of executions that shared the result of an identical one.
+     */
+    private long collapsed;
+
+    /**
+     * Number of executions that gave up waiting.
+     */
+    private long timeouts;
+
+    /**
+     * Creates a single flight group.
+     *
+     * @param theMaxWait how long an execution waits for an identical one
+     */
+    public SingleFlight(final Duration theMaxWait) {
+        if (theMaxWait.isNegative() || theMaxWait.isZero()) {
+            throw new IllegalArgumentException(
+                    "maxWait must be positive: " + theMaxWait);
+        }
+        this.maxWaitNanos = theMaxWait.toNanos();
+        this.calls = new HashMap<>();
+    }
+
+    /**
+     * Number of executions that ran the query.
+     *
+     * @return execution count
+     */
+    public synchronized long executions() {
+        return executions;
+    }
+
+    /**
+     * Number of executions that waited for an identical one instead of
+     * running the query.
+     *
+     * @return collapsed count
+     */
+    public synchronized long collapsed() {
+        return collapsed;
+    }
+
+    /**
+     * Number of executions that gave up waiting for an identical one.
+     *
+     * @return timeout count
+     */
+    public synchronized long timeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Number of queries currently in flight.
+     *
+     * @return in flight count
+     */
+    public synchronized int inFlight() {
+        return calls.size();
+    }
+
+    /**
+     * Wraps a query so that concurrent identical executions share one call.
+     *
+     * @param sql    the SQL of the query
+     * @param params the bound parameter values
+     * @param shape  distinguishes results of the same SQL mapped differently
+     * @param query  runs the query
+     * @param <R>    the type of result
+     * @return the coalescing query
+     */
+    <R> Sql<R> coalesced(final String sql,
+                         final List<Object> params,
+                         final Object shape,
+                         final Sql<R> query) {
+        return new CoalescedSql<>(new Key(sql, params, shape), query);
+    }
+
+    /**
+     * Runs the query, or waits for an identical one in flight.
+     *
+     * @param key    identifies the query
+     * @param loader runs the query
+     * @param <R>    the type of result
+     * @return the result
+     * @throws SQLException if the query fails or the wait times out
+     */
+    @SuppressWarnings("unchecked")
+    private <R> R load(final Key key, final Loader<R> loader)
+            throws SQLException {
+        CompletableFuture<Object> call;
+        synchronized (this) {
+            call = calls.get(key);
+            if (call == null) {
+                calls.put(key, new CompletableFuture<>());
+                executions++;
+            } else {
+                collapsed++;
+            }
+        }
+        return call == null ? run(key, loader) : (R) await(call);
+    }
+
+    /**
+     * Runs the query and hands its outcome to the waiting executions.
+     *
+     * @param key    identifies the query
+     * @param loader runs the query
+     * @param <R>    the type of result
+     * @return the result
+     * @throws SQLException if the query fails
+     */
+    private <R> R run(final Key key, final Loader<R> loader)
+            throws SQLException {
+        CompletableFuture<Object> call;
+        R value;
+        try {
+            value = loader.load();
+        } catch (Throwable failure) {
+            synchronized (this) {
+                call = calls.remove(key);
+            }
+            call.completeExceptionally(failure);
+            throw failure;
+        }
+        synchronized (this) {
+            call = calls.remove(key);
+        }
+        call.complete(value);
+        return value;
+    }
+
+    /**
+     * Waits for an identical query in flight.
+     *
+     * @param call the query in flight
+     * @return its result
+     * @throws SQLException if it failed, or the wait timed out or was
+     *                      interrupted
+     */
+    private Object await(final CompletableFuture<Object> call)
+            throws SQLException {
+        try {
+            return call.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (TimeoutException e) {
+            synchronized (this) {
+                timeouts++;
+            }
+            throw new SQLTimeoutException(
+                    "Timed out waiting for an identical query", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(
+                    "Interrupted waiting for an identical query", e);
+        }
+    }
+
+    /**
+     * Rethrows the failure of the query.
+     *
+     * @param failure the failure, an SQLException or unchecked
+     * @return never returns normally
+     * @throws SQLException if the failure is one
+     */
+    private static SQLException rethrow(final Throwable failure)
+            throws SQLException {
+        if (failure instanceof SQLException sqlException) {
+            throw sqlException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        throw (RuntimeException) failure;
+    }
+
+    /**
+     * Runs a query.
+     *
+     * @param <R> the type of result
+     */
+    @FunctionalInterface
+    private interface Loader<R> {
+        /**
+         * Runs the query.
+         *
+         * @return the result
+         * @throws SQLException if the query fails
+         */
+        R load() throws SQLException;
+    }
+
+    /**
+     * A query whose concurrent identical executions share one call.
+     * Executed with a DataSource, it borrows a Connection only when it runs
+     * the query.
+     *
+     * @param <R> the type of result
+     */
+    private final class CoalescedSql<R> implements Sql<R> {
+
+        /**
+         * Identifies the query.
+         */
+        private final Key key;
+
+        /**
+         * Runs the query.
+         */
+        private final Sql<R> query;
+
+        /**
+         * Creates a coalesced query.
+         *
+         * @param theKey   identifies the query
+         * @param theQuery runs the query
+         */
+        private CoalescedSql(final Key theKey, final Sql<R> theQuery) {
+            this.key = theKey;
+            this.query = theQuery;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public R execute(final Connection connection) throws SQLException {
+            return load(key, () -> query.execute(connection));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public R execute(final DataSource dataSource) throws SQLException {
+            return load(key, () -> query.execute(dataSource));
+        }
+    }
+
+    /**
+     * Identifies a query.
+     *
+     * @param sql    the SQL of the query
+     * @param params the bound parameter values
+     * @param shape  how the rows are mapped
+     */
+    private record Key(String sql, List<Object> params, Object shape) {
+    }
+}
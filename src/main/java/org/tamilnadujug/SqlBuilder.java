@@ -1,6 +1,7 @@
 package org.tamilnadujug;
 
 import org.tamilnadujug.sql.ParamMapper;
+import org.tamilnadujug.sql.RowConsumer;
 import org.tamilnadujug.sql.RowMapper;
 import org.tamilnadujug.sql.Sql;
 import org.tamilnadujug.sql.StatementMapper;
@@ -18,7 +19,17 @@ import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
 /**
  * Utility class for building and executing SQL queries with dynamic
@@ -28,11 +39,48 @@ import java.util.List;
  */
 public sealed class SqlBuilder implements Sql<Integer> {
 
+    /**
+     * Initial capacity of the primitive arrays read by array queries.
+     */
+    private static final int INITIAL_ARRAY_SIZE = 16;
+
     /**
      * The SQL query to be executed.
      */
     private final String sql;
 
+    /**
+     * Number of rows fetched from the database per round trip. Zero leaves
+     * the driver default in place.
+     */
+    private int fetchSize;
+
+    /**
+     * Maximum number of rows a query can return. Zero means no limit.
+     */
+    private long maxRows;
+
+    /**
+     * Whether queries use a forward-only, read-only cursor.
+     */
+    private boolean forwardOnly;
+
+    /**
+     * Cache to serve query results from, null when results are not cached.
+     */
+    private ResultCache resultCache;
+
+    /**
+     * Tags to invalidate cached results by.
+     */
+    private String[] cacheTags;
+
+    /**
+     * Coalesces identical concurrent queries, null when they run
+     * independently.
+     */
+    private SingleFlight singleFlight;
+
     /**
      * Constructor that initializes the SqlBuilder with a given SQL query.
      *
@@ -62,6 +110,17 @@ public sealed class SqlBuilder implements Sql<Integer> {
         return new PreparedSqlBuilder(theSql);
     }
 
+    /**
+     * Builds an immutable, thread-safe template of Sql and its options, to
+     * be created once and bound for every execution.
+     *
+     * @param theSql the SQL query to be prepared and executed
+     * @return sqlTemplate
+     */
+    public static SqlTemplate template(final String theSql) {
+        return new SqlTemplate(theSql);
+    }
+
     /**
      * Builds Sql Builder from Sql.
      *
@@ -81,6 +140,258 @@ public sealed class SqlBuilder implements Sql<Integer> {
         return sql;
     }
 
+    /**
+     * Sets the number of rows the driver fetches per round trip for queries
+     * built from this builder. Bounds client side memory for large results;
+     * note that some drivers (e.g. PostgreSQL) only honour it when auto-commit
+     * is disabled.
+     *
+     * @param rows the number of rows to fetch, 0 for the driver default
+     * @return the current SqlBuilder instance, for method chaining
+     */
+    public SqlBuilder fetchSize(final int rows) {
+        this.fetchSize = rows;
+        return this;
+    }
+
+    /**
+     * Limits the number of rows returned by queries built from this builder.
+     * Excess rows are silently dropped by the driver. Limits beyond
+     * {@link Integer#MAX_VALUE} are capped, since not every driver supports
+     * {@link Statement#setLargeMaxRows(long)}. Queries that read a single
+     * row, such as {@link #queryForOne(RowMapper)} and
+     * {@link #queryForExists()}, always fetch at most one row.
+     *
+     * @param rows the maximum number of rows, 0 for no limit
+     * @return the current SqlBuilder instance, for method chaining
+     */
+    public SqlBuilder maxRows(final long rows) {
+        this.maxRows = rows;
+        return this;
+    }
+
+    /**
+     * Runs queries built from this builder on a forward-only, read-only
+     * cursor, fetching in forward direction.
+     *
+     * @return the current SqlBuilder instance, for method chaining
+     */
+    public SqlBuilder forwardOnly() {
+        this.forwardOnly = true;
+        return this;
+    }
+
+    /**
+     * Serves the results of queries built from this builder that map one
+     * row or a list of rows from the given cache while they are fresh,
+     * keyed by SQL, parameter values and row mapper.
+     *
+     * @param cache the result cache
+     * @param tags  tags to invalidate the results by, see
+     *              {@link ResultCache#invalidateTag(String)}
+     * @return the current SqlBuilder instance, for method chaining
+     * @see ResultCache
+     */
+    public SqlBuilder resultCache(final ResultCache cache,
+                                  final String... tags) {
+        this.resultCache = cache;
+        this.cacheTags = tags;
+        return this;
+    }
+
+    /**
+     * The parameter values to key cached results by.
+     *
+     * @return the values
+     */
+    protected List<Object> cacheParams() {
+        return List.of();
+    }
+
+    /**
+     * Coalesces identical concurrent queries built from this builder that
+     * map one row or a list of rows, so that they share one database call.
+     *
+     * @param flights the single flight group
+     * @return the current SqlBuilder instance, for method chaining
+     * @see SingleFlight
+     */
+    public SqlBuilder singleFlight(final SingleFlight flights) {
+        this.singleFlight = flights;
+        return this;
+    }
+
+    /**
+     * Serves a single row query from the result cache and coalesces it with
+     * identical ones in flight, if set.
+     *
+     * @param rowMapper the row mapper of the query
+     * @param query     the query
+     * @param <T>       the type of result
+     * @return the query, shared or as is
+     */
+    protected <T> Sql<T> sharedOne(final RowMapper<?> rowMapper,
+                                   final Sql<T> query) {
+        return share(new Shape(false, rowMapper), query);
+    }
+
+    /**
+     * Serves a list query from the result cache and coalesces it with
+     * identical ones in flight, if set. Shared lists are unmodifiable.
+     *
+     * @param rowMapper the row mapper of the query
+     * @param query     the query
+     * @param <T>       the type of row
+     * @return the query, shared or as is
+     */
+    protected <T> Sql<List<T>> sharedList(final RowMapper<T> rowMapper,
+                                          final Sql<List<T>> query) {
+        return resultCache == null && singleFlight == null ? query
+                : share(new Shape(true, rowMapper),
+                        connection -> Collections.unmodifiableList(
+                                query.execute(connection)));
+    }
+
+    /**
+     * Wraps a query with the result cache and the single flight group, if
+     * set.
+     *
+     * @param shape distinguishes results of the same SQL mapped differently
+     * @param query the query
+     * @param <T>   the type of result
+     * @return the query, shared or as is
+     */
+    private <T> Sql<T> share(final Object shape, final Sql<T> query) {
+        if (resultCache == null && singleFlight == null) {
+            return query;
+        }
+        List<Object> params = cacheParams();
+        Sql<T> loading = singleFlight == null ? query
+                : singleFlight.coalesced(getSql(), params, shape, query);
+        return resultCache == null ? loading
+                : resultCache.cached(getSql(), params, shape, cacheTags,
+                        loading);
+    }
+
+    /**
+     * Distinguishes results of the same SQL and parameters: whether the
+     * query maps one row or a list of rows, and the row mapper instance,
+     * compared by identity so that mappers of one class never share results.
+     *
+     * @param list   whether the query maps a list of rows
+     * @param mapper the row mapper
+     */
+    private record Shape(boolean list, RowMapper<?> mapper) {
+
+        /**
+         * Equal when both map the same kind of result with the same mapper
+         * instance.
+         *
+         * @param other the other shape
+         * @return true if equal
+         */
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Shape shape && shape.list == list
+                    && shape.mapper == mapper;
+        }
+
+        /**
+         * Hash code from the identity of the mapper.
+         *
+         * @return hash code
+         */
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(mapper) ^ Boolean.hashCode(list);
+        }
+    }
+
+    /**
+     * Creates a Statement for queries, applying the configured fetch size,
+     * max rows and cursor mode.
+     *
+     * @param connection   the JDBC connection
+     * @param firstRowOnly whether only the first row will be read, in which
+     *                     case the driver is told to fetch a single row
+     * @return statement to be executed
+     * @throws SQLException if a database access error occurs
+     */
+    protected Statement createStatement(final Connection connection,
+                                        final boolean firstRowOnly)
+            throws SQLException {
+        return configure(forwardOnly
+                ? connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)
+                : connection.createStatement(), firstRowOnly);
+    }
+
+    /**
+     * Creates a PreparedStatement for queries, applying the configured fetch
+     * size, max rows and cursor mode.
+     *
+     * @param connection   the JDBC connection
+     * @param firstRowOnly whether only the first row will be read, in which
+     *                     case the driver is told to fetch a single row
+     * @return statement to be executed
+     * @throws SQLException if a database access error occurs
+     */
+    protected PreparedStatement prepareStatement(final Connection connection,
+                                                 final boolean firstRowOnly)
+            throws SQLException {
+        return configure(prepareStatement(connection), firstRowOnly);
+    }
+
+    /**
+     * Creates a PreparedStatement for queries in the configured cursor mode.
+     *
+     * @param connection the JDBC connection
+     * @return statement to be configured and executed
+     * @throws SQLException if a database access error occurs
+     */
+    protected PreparedStatement prepareStatement(final Connection connection)
+            throws SQLException {
+        return forwardOnly
+                ? connection.prepareStatement(getSql(),
+                        ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)
+                : connection.prepareStatement(getSql());
+    }
+
+    /**
+     * Applies fetch size, max rows and fetch direction to the statement.
+     * Queries reading only the first row always use a fetch size and max
+     * rows of 1, so that the driver does not transfer rows that are never
+     * read.
+     *
+     * @param stmt         the statement to configure
+     * @param firstRowOnly whether only the first row will be read
+     * @param <S>          the type of statement
+     * @return stmt
+     * @throws SQLException if a database access error occurs
+     */
+    private <S extends Statement> S configure(final S stmt,
+                                              final boolean firstRowOnly)
+            throws SQLException {
+        int rows = firstRowOnly ? 1 : fetchSize;
+        long limit = firstRowOnly ? 1 : maxRows;
+        try {
+            if (rows != 0) {
+                stmt.setFetchSize(rows);
+            }
+            if (limit > 0) {
+                stmt.setMaxRows((int) Math.min(limit, Integer.MAX_VALUE));
+            }
+            if (forwardOnly) {
+                stmt.setFetchDirection(ResultSet.FETCH_FORWARD);
+            }
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+        return stmt;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -404,6 +715,141 @@ public sealed class SqlBuilder implements Sql<Integer> {
         return queryForList(RowMapper.OBJECT_MAPPER);
     }
 
+    /**
+     * Creates a new Query object that can be used to execute a SELECT query and
+     * pass every row to a consumer as it is read, without collecting the
+     * rows.
+     *
+     * @param consumer consumes each row
+     * @return a new Query instance returning the number of rows
+     */
+    public Sql<Integer> queryForEach(final RowConsumer consumer) {
+        return queryForResult(rs -> {
+            int rows = 0;
+            while (rs.next()) {
+                consumer.accept(rs);
+                rows++;
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Creates a new Query object that can be used to execute a SELECT query and
+     * reduce the mapped rows with a {@link Collector} as they are read, so
+     * that aggregates or groupings are built without a list of all rows.
+     *
+     * @param <T>       the type of object to map each row to
+     * @param <A>       the mutable accumulation type of the collector
+     * @param <R>       the type of result
+     * @param rowMapper an implementation of RowMapper to map each row of the
+     *                  result set
+     * @param collector reduces the mapped rows
+     * @return a new Query instance for execution
+     */
+    public <T, A, R> Sql<R> queryAndCollect(
+            final RowMapper<T> rowMapper,
+            final Collector<? super T, A, R> collector) {
+        return queryForResult(rs -> {
+            A container = collector.supplier().get();
+            BiConsumer<A, ? super T> accumulator = collector.accumulator();
+            while (rs.next()) {
+                accumulator.accept(container, rowMapper.get(rs));
+            }
+            return collector.finisher().apply(container);
+        });
+    }
+
+    /**
+     * Creates a new Query object that can be used to execute a SELECT query and
+     * read the first column of every row into an int array, without boxing.
+     * NULL is read as 0.
+     *
+     * @return a new Query instance for execution
+     */
+    public Sql<int[]> queryForIntArray() {
+        return queryForResult(SqlBuilder::readInts);
+    }
+
+    /**
+     * Creates a new Query object that can be used to execute a SELECT query and
+     * read the first column of every row into a long array, without boxing.
+     * NULL is read as 0.
+     *
+     * @return a new Query instance for execution
+     */
+    public Sql<long[]> queryForLongArray() {
+        return queryForResult(SqlBuilder::readLongs);
+    }
+
+    /**
+     * Creates a new Query object that can be used to execute a SELECT query and
+     * read the first column of every row into a double array, without boxing.
+     * NULL is read as 0.
+     *
+     * @return a new Query instance for execution
+     */
+    public Sql<double[]> queryForDoubleArray() {
+        return queryForResult(SqlBuilder::readDoubles);
+    }
+
+    /**
+     * Creates a new Query object that can be used to execute a SELECT query and
+     * pass the first column of every row to a consumer as an int, without
+     * holding the values. NULL is passed as 0.
+     *
+     * @param consumer receives the value of each row
+     * @return a new Query instance returning the number of rows
+     */
+    public Sql<Integer> queryForEachInt(final IntConsumer consumer) {
+        return queryForResult(rs -> {
+            int rows = 0;
+            while (rs.next()) {
+                consumer.accept(rs.getInt(1));
+                rows++;
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Creates a new Query object that can be used to execute a SELECT query and
+     * pass the first column of every row to a consumer as a long, without
+     * holding the values. NULL is passed as 0.
+     *
+     * @param consumer receives the value of each row
+     * @return a new Query instance returning the number of rows
+     */
+    public Sql<Integer> queryForEachLong(final LongConsumer consumer) {
+        return queryForResult(rs -> {
+            int rows = 0;
+            while (rs.next()) {
+                consumer.accept(rs.getLong(1));
+                rows++;
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Creates a new Query object that can be used to execute a SELECT query and
+     * pass the first column of every row to a consumer as a double, without
+     * holding the values. NULL is passed as 0.
+     *
+     * @param consumer receives the value of each row
+     * @return a new Query instance returning the number of rows
+     */
+    public Sql<Integer> queryForEachDouble(final DoubleConsumer consumer) {
+        return queryForResult(rs -> {
+            int rows = 0;
+            while (rs.next()) {
+                consumer.accept(rs.getDouble(1));
+                rows++;
+            }
+            return rows;
+        });
+    }
+
     /**
      * Creates a new Query object that can be used to execute a SELECT query and
      * map the result set to a specific object type using the provided
@@ -416,9 +862,9 @@ public sealed class SqlBuilder implements Sql<Integer> {
      */
     public <T> Sql<T> queryForOne(
             final RowMapper<T> rowMapper) {
-        return connection -> {
+        return sharedOne(rowMapper, connection -> {
             T result = null;
-            try (Statement stmt = connection.createStatement()) {
+            try (Statement stmt = createStatement(connection, true)) {
                 try (ResultSet rs = stmt.executeQuery(getSql())) {
                     if (rs.next()) {
                         result = rowMapper.get(rs);
@@ -426,7 +872,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
                 }
             }
             return result;
-        };
+        });
     }
 
     /**
@@ -441,9 +887,9 @@ public sealed class SqlBuilder implements Sql<Integer> {
      */
     public <T> Sql<List<T>> queryForList(
             final RowMapper<T> rowMapper) {
-        return connection -> {
+        return sharedList(rowMapper, connection -> {
             List<T> result = new ArrayList<>();
-            try (Statement stmt = connection.createStatement()) {
+            try (Statement stmt = createStatement(connection, false)) {
                 try (ResultSet rs = stmt.executeQuery(getSql())) {
                     while (rs.next()) {
                         result.add(rowMapper.get(rs));
@@ -451,7 +897,67 @@ public sealed class SqlBuilder implements Sql<Integer> {
                 }
             }
             return result;
-        };
+        });
+    }
+
+    /**
+     * Creates a new Query object that can be used to execute a SELECT query and
+     * map the result set to a lazily fetched stream of a specific object type
+     * using the provided RowMapper. The stream must be closed to release the
+     * Statement and ResultSet (and the Connection, when executed with a
+     * DataSource).
+     *
+     * <p>Executed with a DataSource, the stream turns auto-commit off on the
+     * Connection it borrows, so that rows are fetched from the database in
+     * batches as the stream is consumed. Executed with a Connection, that
+     * happens only if auto-commit is off, for example in a
+     * {@link Transaction}; otherwise PostgreSQL reads all rows when the query
+     * executes. A statement without a {@link #fetchSize(int)} fetches
+     * {@value StreamSql#DEFAULT_FETCH_SIZE} rows at a time.</p>
+     *
+     * @param <T>       the type of object to map the result set to
+     * @param rowMapper an implementation of RowMapper to map each row of the
+     *                  result set
+     * @return a new Query instance for execution
+     */
+    public <T> Sql<Stream<T>> queryForStream(
+            final RowMapper<T> rowMapper) {
+        return new StreamSql<>(connection -> {
+            Statement stmt = createStatement(connection, false);
+            try {
+                StreamSql.fetchInBatches(stmt);
+                return StreamSql.stream(stmt, stmt.executeQuery(getSql()),
+                        rowMapper);
+            } catch (SQLException e) {
+                stmt.close();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Creates a new Query object that can be used to execute a SELECT query and
+     * publish the result set as a {@link Flow.Publisher} of a specific object
+     * type using the provided RowMapper. Each subscription runs the query on
+     * a dedicated thread and reads rows only as they are requested, with the
+     * fetch size following the subscriber's demand. Cancelling the
+     * subscription cancels the statement and releases the Statement and
+     * ResultSet (and the Connection, when executed with a DataSource).
+     *
+     * <p>As with {@link #fetchSize(int)}, PostgreSQL only fetches in batches
+     * with auto-commit disabled; otherwise the driver reads all rows when the
+     * query executes, and demand only paces their delivery.</p>
+     *
+     * @param <T>       the type of object to map the result set to
+     * @param rowMapper an implementation of RowMapper to map each row of the
+     *                  result set
+     * @return a new Query instance for execution
+     */
+    public <T> Sql<Flow.Publisher<T>> queryForPublisher(
+            final RowMapper<T> rowMapper) {
+        return new PublisherSql<>(
+                connection -> createStatement(connection, false),
+                statement -> statement.executeQuery(getSql()), rowMapper);
     }
 
     /**
@@ -463,7 +969,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
      */
     protected boolean exists(final Connection connection) throws SQLException {
         boolean exists;
-        try (Statement stmt = connection.createStatement()) {
+        try (Statement stmt = createStatement(connection, true)) {
             try (ResultSet rs = stmt.executeQuery(getSql())) {
                 exists = rs.next();
             }
@@ -784,68 +1290,228 @@ public sealed class SqlBuilder implements Sql<Integer> {
     }
 
     /**
-     * Creates a new Generated Keys object that can be used to execute a SELECT
-     * query and map the result set to a specific object type using the provided
-     * RowMapper.
+     * Creates query to get Generated Keys as an int array, without boxing.
      *
-     * @param <T>       the type of object to map the result set to
-     * @param rowMapper an implementation of RowMapper to map each row of the
-     *                  result set
      * @return a new Query instance for execution
      */
-    public <T> Sql<T> queryGeneratedKeys(final RowMapper<T> rowMapper) {
+    public Sql<int[]> queryGeneratedKeysAsIntArray() {
+        return queryGeneratedKeysForResult(SqlBuilder::readInts);
+    }
+
+    /**
+     * Creates query to get Generated Keys as a long array, without boxing.
+     *
+     * @return a new Query instance for execution
+     */
+    public Sql<long[]> queryGeneratedKeysAsLongArray() {
+        return queryGeneratedKeysForResult(SqlBuilder::readLongs);
+    }
+
+    /**
+     * Creates query to get Generated Keys as a double array, without boxing.
+     *
+     * @return a new Query instance for execution
+     */
+    public Sql<double[]> queryGeneratedKeysAsDoubleArray() {
+        return queryGeneratedKeysForResult(SqlBuilder::readDoubles);
+    }
+
+    /**
+     * Creates a query that executes the SELECT and reads its ResultSet.
+     *
+     * @param reader reads the whole ResultSet
+     * @param <T>    the type of result
+     * @return a new Query instance for execution
+     */
+    protected <T> Sql<T> queryForResult(final ResultReader<T> reader) {
         return connection -> {
-            T result = null;
-            try (Statement stmt = connection.createStatement()) {
-                stmt.executeUpdate(getSql(), Statement.RETURN_GENERATED_KEYS);
-                try (ResultSet rs = stmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        result = rowMapper.get(rs);
-                    }
+            try (Statement stmt = createStatement(connection, false)) {
+                try (ResultSet rs = stmt.executeQuery(getSql())) {
+                    return reader.read(rs);
                 }
             }
-            return result;
         };
     }
 
     /**
-     * Creates query to get Generated Keys As a List.
+     * Creates a query that executes the update and reads its generated
+     * keys.
      *
-     * @param <T>       the type of object to map the result set to
-     * @param rowMapper an implementation of RowMapper to map each row of the
-     *                  result set
+     * @param reader reads the whole ResultSet of generated keys
+     * @param <T>    the type of result
      * @return a new Query instance for execution
      */
-    public <T> Sql<List<T>>
-    queryGeneratedKeysAsList(final RowMapper<T> rowMapper) {
+    protected <T> Sql<T> queryGeneratedKeysForResult(
+            final ResultReader<T> reader) {
         return connection -> {
-            List<T> result = new ArrayList<>();
             try (Statement stmt = connection.createStatement()) {
                 stmt.executeUpdate(getSql(), Statement.RETURN_GENERATED_KEYS);
                 try (ResultSet rs = stmt.getGeneratedKeys()) {
-                    while (rs.next()) {
-                        result.add(rowMapper.get(rs));
-                    }
+                    return reader.read(rs);
                 }
             }
-            return result;
         };
     }
 
-    public static final class PreparedSqlBuilder extends SqlBuilder {
-        /**
-         * A list of parameters for the query.
-         */
-        private final List<ParamMapper> paramMappers;
-
-        /**
-         * Constructor that initializes the SqlBuilder with a given SQL query.
+    /**
+     * Reads the first column of every row into an int array, doubling its
+     * capacity as needed.
+     *
+     * @param rs the ResultSet
+     * @return the values
+     * @throws SQLException if a database access error occurs
+     */
+    private static int[] readInts(final ResultSet rs) throws SQLException {
+        int[] values = new int[INITIAL_ARRAY_SIZE];
+        int size = 0;
+        while (rs.next()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = rs.getInt(1);
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads the first column of every row into a long array, doubling its
+     * capacity as needed.
+     *
+     * @param rs the ResultSet
+     * @return the values
+     * @throws SQLException if a database access error occurs
+     */
+    private static long[] readLongs(final ResultSet rs) throws SQLException {
+        long[] values = new long[INITIAL_ARRAY_SIZE];
+        int size = 0;
+        while (rs.next()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = rs.getLong(1);
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads the first column of every row into a double array, doubling its
+     * capacity as needed.
+     *
+     * @param rs the ResultSet
+     * @return the values
+     * @throws SQLException if a database access error occurs
+     */
+    private static double[] readDoubles(final ResultSet rs)
+            throws SQLException {
+        double[] values = new double[INITIAL_ARRAY_SIZE];
+        int size = 0;
+        while (rs.next()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = rs.getDouble(1);
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads a whole ResultSet.
+     *
+     * @param <T> the type of result
+     */
+    @FunctionalInterface
+    protected interface ResultReader<T> {
+        /**
+         * Reads the rows.
+         *
+         * @param rs the ResultSet, positioned before the first row
+         * @return the result
+         * @throws SQLException if a database access error occurs
+         */
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Creates a new Generated Keys object that can be used to execute a SELECT
+     * query and map the result set to a specific object type using the provided
+     * RowMapper.
+     *
+     * @param <T>       the type of object to map the result set to
+     * @param rowMapper an implementation of RowMapper to map each row of the
+     *                  result set
+     * @return a new Query instance for execution
+     */
+    public <T> Sql<T> queryGeneratedKeys(final RowMapper<T> rowMapper) {
+        return connection -> {
+            T result = null;
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate(getSql(), Statement.RETURN_GENERATED_KEYS);
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        result = rowMapper.get(rs);
+                    }
+                }
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Creates query to get Generated Keys As a List.
+     *
+     * @param <T>       the type of object to map the result set to
+     * @param rowMapper an implementation of RowMapper to map each row of the
+     *                  result set
+     * @return a new Query instance for execution
+     */
+    public <T> Sql<List<T>>
+    queryGeneratedKeysAsList(final RowMapper<T> rowMapper) {
+        return connection -> {
+            List<T> result = new ArrayList<>();
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate(getSql(), Statement.RETURN_GENERATED_KEYS);
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        result.add(rowMapper.get(rs));
+                    }
+                }
+            }
+            return result;
+        };
+    }
+
+    public static final class PreparedSqlBuilder extends SqlBuilder {
+        /**
+         * The parameters for the query.
+         */
+        private final Parameters parameters;
+
+        /**
+         * Cache to take statements from, null when statements are not cached.
+         */
+        private StatementCache statementCache;
+
+        /**
+         * Constructor that initializes the SqlBuilder with a given SQL query.
          *
          * @param theSql the SQL query to be prepared and executed
          */
         private PreparedSqlBuilder(final String theSql) {
             super(theSql);
-            this.paramMappers = new ArrayList<>();
+            this.parameters = new Parameters();
+        }
+
+        /**
+         * Constructor for PreparedSqlBuilder, sizing the parameter list for
+         * the expected number of parameters.
+         *
+         * @param theSql         the SQL query to be prepared and executed
+         * @param parameterCount the number of parameters expected, at
+         *                       least 1
+         */
+        PreparedSqlBuilder(final String theSql, final int parameterCount) {
+            super(theSql);
+            this.parameters = new Parameters(parameterCount);
         }
 
         /**
@@ -861,13 +1527,82 @@ public sealed class SqlBuilder implements Sql<Integer> {
             return updatedRows;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public PreparedSqlBuilder fetchSize(final int rows) {
+            super.fetchSize(rows);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public PreparedSqlBuilder maxRows(final long rows) {
+            super.maxRows(rows);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public PreparedSqlBuilder forwardOnly() {
+            super.forwardOnly();
+            return this;
+        }
+
+        /**
+         * Takes statements from the given cache instead of preparing a new
+         * one on every execution, so that repeated executions on the same
+         * connection are parsed and planned once.
+         *
+         * @param cache the statement cache
+         * @return the current SqlBuilder instance, for method chaining
+         * @see StatementCache
+         */
+        public PreparedSqlBuilder statementCache(final StatementCache cache) {
+            this.statementCache = cache;
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public PreparedSqlBuilder resultCache(final ResultCache cache,
+                                              final String... tags) {
+            super.resultCache(cache, tags);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public PreparedSqlBuilder singleFlight(final SingleFlight flights) {
+            super.singleFlight(flights);
+            return this;
+        }
+
+        /**
+         * The parameter values bound so far. {@inheritDoc}
+         */
+        @Override
+        protected List<Object> cacheParams() {
+            return parameters.values();
+        }
+
         /**
          * Adds a parameter with a null.
          *
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder paramNull() {
-            return param((ps, index) -> ps.setObject(index, null));
+            this.parameters.addNull();
+            return this;
         }
 
         /**
@@ -884,7 +1619,8 @@ public sealed class SqlBuilder implements Sql<Integer> {
          */
         public PreparedSqlBuilder paramNull(final int sqlType,
                                             final String typeName) {
-            return param((ps, index) -> ps.setNull(index, sqlType, typeName));
+            this.parameters.addNull(sqlType, typeName);
+            return this;
         }
 
         /**
@@ -895,7 +1631,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final Integer value) {
-            return param((ps, index) -> ps.setInt(index, value));
+            return value == null ? paramNull() : param(value.intValue());
         }
 
         /**
@@ -905,7 +1641,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final Short value) {
-            return param((ps, index) -> ps.setShort(index, value));
+            return value == null ? paramNull() : param(value.shortValue());
         }
 
         /**
@@ -916,7 +1652,8 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final String value) {
-            return param((ps, index) -> ps.setString(index, value));
+            this.parameters.add(value);
+            return this;
         }
 
         /**
@@ -926,7 +1663,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final Double value) {
-            return param((ps, index) -> ps.setDouble(index, value));
+            return value == null ? paramNull() : param(value.doubleValue());
         }
 
         /**
@@ -936,7 +1673,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final Boolean value) {
-            return param((ps, index) -> ps.setBoolean(index, value));
+            return value == null ? paramNull() : param(value.booleanValue());
         }
 
         /**
@@ -946,7 +1683,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final Long value) {
-            return param((ps, index) -> ps.setLong(index, value));
+            return value == null ? paramNull() : param(value.longValue());
         }
 
         /**
@@ -956,7 +1693,8 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final java.sql.Date value) {
-            return param((ps, index) -> ps.setDate(index, value));
+            this.parameters.add(value);
+            return this;
         }
 
         /**
@@ -966,7 +1704,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final Float value) {
-            return param((ps, index) -> ps.setFloat(index, value));
+            return value == null ? paramNull() : param(value.floatValue());
         }
 
         /**
@@ -976,7 +1714,8 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final byte[] value) {
-            return param((ps, index) -> ps.setBytes(index, value));
+            this.parameters.add(value);
+            return this;
         }
 
         /**
@@ -986,7 +1725,8 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final BigDecimal value) {
-            return param((ps, index) -> ps.setBigDecimal(index, value));
+            this.parameters.add(value);
+            return this;
         }
 
         /**
@@ -996,7 +1736,8 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final java.sql.Time value) {
-            return param((ps, index) -> ps.setTime(index, value));
+            this.parameters.add(value);
+            return this;
         }
 
         /**
@@ -1006,7 +1747,97 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final java.sql.Timestamp value) {
-            return param((ps, index) -> ps.setTimestamp(index, value));
+            this.parameters.add(value);
+            return this;
+        }
+
+        /**
+         * Adds an int parameter to the SQL query, without boxing it.
+         *
+         * @param value the int value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public PreparedSqlBuilder param(final int value) {
+            this.parameters.add(value);
+            return this;
+        }
+
+        /**
+         * Adds a long parameter to the SQL query, without boxing it.
+         *
+         * @param value the long value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public PreparedSqlBuilder param(final long value) {
+            this.parameters.add(value);
+            return this;
+        }
+
+        /**
+         * Adds a short parameter to the SQL query, without boxing it.
+         *
+         * @param value the short value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public PreparedSqlBuilder param(final short value) {
+            this.parameters.add(value);
+            return this;
+        }
+
+        /**
+         * Adds a byte parameter to the SQL query, without boxing it.
+         *
+         * @param value the byte value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public PreparedSqlBuilder param(final byte value) {
+            this.parameters.add(value);
+            return this;
+        }
+
+        /**
+         * Adds a double parameter to the SQL query, without boxing it.
+         *
+         * @param value the double value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public PreparedSqlBuilder param(final double value) {
+            this.parameters.add(value);
+            return this;
+        }
+
+        /**
+         * Adds a float parameter to the SQL query, without boxing it.
+         *
+         * @param value the float value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public PreparedSqlBuilder param(final float value) {
+            this.parameters.add(value);
+            return this;
+        }
+
+        /**
+         * Adds a boolean parameter to the SQL query, without boxing it.
+         *
+         * @param value the boolean value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public PreparedSqlBuilder param(final boolean value) {
+            this.parameters.add(value);
+            return this;
+        }
+
+        /**
+         * Adds a char parameter to the SQL query, bound as a String of length
+         * one.
+         *
+         * @param value the char value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public PreparedSqlBuilder param(final char value) {
+            this.parameters.add(String.valueOf(value));
+            return this;
         }
 
         /**
@@ -1016,7 +1847,8 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return the current SqlBuilder instance, for method chaining
          */
         public PreparedSqlBuilder param(final Object value) {
-            return param((ps, index) -> ps.setObject(index, value));
+            this.parameters.add(value);
+            return this;
         }
 
         /**
@@ -1028,8 +1860,8 @@ public sealed class SqlBuilder implements Sql<Integer> {
          */
         public PreparedSqlBuilder param(final Object value,
                                         final int targetSqlType) {
-            return param((ps, index)
-                    -> ps.setObject(index, value, targetSqlType));
+            this.parameters.add(value, targetSqlType);
+            return this;
         }
 
         /**
@@ -1039,40 +1871,71 @@ public sealed class SqlBuilder implements Sql<Integer> {
          * @return sqlbuilder
          */
         private PreparedSqlBuilder param(final ParamMapper paramMapper) {
-            this.paramMappers.add(paramMapper);
+            this.parameters.add(paramMapper);
             return this;
         }
 
         /**
-         * Prepare Statement with Parameters.
+         * Get the Statement for Query.
          *
-         * @param ps
-         * @param pMappers
-         * @return ps
+         * @param connection
+         * @param theSql
+         * @return statement to be executed
          * @throws SQLException
          */
-        private PreparedStatement prepare(final PreparedStatement ps,
-                                          final List<ParamMapper> pMappers)
+        private PreparedStatement getStatement(final Connection connection,
+                                               final String theSql)
                 throws SQLException {
-            for (int i = 0; i < pMappers.size(); i++) {
-                pMappers.get(i).set(ps, (i + 1));
-            }
-            return ps;
+            return this.parameters.bind(cached(connection, false,
+                    () -> connection.prepareStatement(theSql)));
         }
 
         /**
-         * Get the Statement for Query.
+         * {@inheritDoc}
+         */
+        @Override
+        protected PreparedStatement prepareStatement(
+                final Connection connection) throws SQLException {
+            return cached(connection, false,
+                    () -> super.prepareStatement(connection));
+        }
+
+        /**
+         * Takes a statement from the statement cache, if any, or prepares
+         * one.
+         *
+         * @param connection    the JDBC connection
+         * @param generatedKeys whether the statement returns generated keys
+         * @param factory       prepares a new statement
+         * @return statement to be executed
+         * @throws SQLException if a database access error occurs
+         */
+        private PreparedStatement cached(
+                final Connection connection,
+                final boolean generatedKeys,
+                final StatementCache.Factory<PreparedStatement> factory)
+                throws SQLException {
+            return statementCache == null
+                    ? factory.create()
+                    : statementCache.prepare(connection, getSql(),
+                            generatedKeys, ResultSet.TYPE_FORWARD_ONLY,
+                            PreparedStatement.class, factory);
+        }
+
+        /**
+         * Get the Statement for a Query, with fetch size, max rows and cursor
+         * mode applied.
          *
          * @param connection
-         * @param theSql
+         * @param firstRowOnly
          * @return statement to be executed
          * @throws SQLException
          */
-        private PreparedStatement getStatement(final Connection connection,
-                                               final String theSql)
+        private PreparedStatement getQueryStatement(
+                final Connection connection, final boolean firstRowOnly)
                 throws SQLException {
-            return prepare(connection.prepareStatement(theSql),
-                    this.paramMappers);
+            return this.parameters.bind(
+                    prepareStatement(connection, firstRowOnly));
         }
 
         /**
@@ -1086,8 +1949,8 @@ public sealed class SqlBuilder implements Sql<Integer> {
                                                final String theSql,
                                                final int resultSetType)
                 throws SQLException {
-            return prepare(connection.prepareStatement(theSql, resultSetType),
-                    this.paramMappers);
+            return this.parameters.bind(cached(connection, true,
+                    () -> connection.prepareStatement(theSql, resultSetType)));
         }
 
         /**
@@ -1101,7 +1964,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
         protected boolean exists(final Connection connection)
                 throws SQLException {
             boolean exists;
-            try (PreparedStatement ps = getStatement(connection, getSql())) {
+            try (PreparedStatement ps = getQueryStatement(connection, true)) {
                 try (ResultSet rs = ps.executeQuery()) {
                     exists = rs.next();
                 }
@@ -1118,10 +1981,10 @@ public sealed class SqlBuilder implements Sql<Integer> {
          */
         @Override
         public <T> Sql<T> queryForOne(final RowMapper<T> query) {
-            return connection -> {
+            return sharedOne(query, connection -> {
                 T result = null;
                 try (PreparedStatement ps
-                             = getStatement(connection, getSql())) {
+                             = getQueryStatement(connection, true)) {
                     try (ResultSet rs = ps.executeQuery()) {
                         if (rs.next()) {
                             result = query.get(rs);
@@ -1129,7 +1992,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
                     }
                 }
                 return result;
-            };
+            });
         }
 
         /**
@@ -1137,10 +2000,10 @@ public sealed class SqlBuilder implements Sql<Integer> {
          */
         @Override
         public <T> Sql<List<T>> queryForList(final RowMapper<T> query) {
-            return connection -> {
+            return sharedList(query, connection -> {
                 List<T> result = new ArrayList<>();
-                try (PreparedStatement ps = getStatement(connection,
-                        getSql())) {
+                try (PreparedStatement ps = getQueryStatement(
+                        connection, false)) {
                     try (ResultSet rs = ps.executeQuery()) {
                         while (rs.next()) {
                             result.add(query.get(rs));
@@ -1148,7 +2011,35 @@ public sealed class SqlBuilder implements Sql<Integer> {
                     }
                 }
                 return result;
-            };
+            });
+        }
+
+        /**
+         * Get Result as a Stream for a Query. {@inheritDoc}
+         */
+        @Override
+        public <T> Sql<Stream<T>> queryForStream(final RowMapper<T> query) {
+            return new StreamSql<>(connection -> {
+                PreparedStatement ps = getQueryStatement(connection, false);
+                try {
+                    StreamSql.fetchInBatches(ps);
+                    return StreamSql.stream(ps, ps.executeQuery(), query);
+                } catch (SQLException e) {
+                    ps.close();
+                    throw e;
+                }
+            });
+        }
+
+        /**
+         * Get Result as a Publisher for a Query. {@inheritDoc}
+         */
+        @Override
+        public <T> Sql<Flow.Publisher<T>> queryForPublisher(
+                final RowMapper<T> query) {
+            return new PublisherSql<>(
+                    connection -> getQueryStatement(connection, false),
+                    PreparedStatement::executeQuery, query);
         }
 
         /**
@@ -1192,6 +2083,38 @@ public sealed class SqlBuilder implements Sql<Integer> {
             };
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected <T> Sql<T> queryForResult(final ResultReader<T> reader) {
+            return connection -> {
+                try (PreparedStatement ps = getQueryStatement(
+                        connection, false)) {
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return reader.read(rs);
+                    }
+                }
+            };
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected <T> Sql<T> queryGeneratedKeysForResult(
+                final ResultReader<T> reader) {
+            return connection -> {
+                try (PreparedStatement ps = getStatement(connection,
+                        this.getSql(), Statement.RETURN_GENERATED_KEYS)) {
+                    ps.executeUpdate();
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        return reader.read(rs);
+                    }
+                }
+            };
+        }
+
         /**
          * Builds JDBC Batch Builder.
          *
@@ -1201,10 +2124,57 @@ public sealed class SqlBuilder implements Sql<Integer> {
             return new PreparedBatch();
         }
 
+        /**
+         * Builds a batch that binds and sends the given rows while iterating
+         * them, so that the driver holds one chunk of rows at a time and no
+         * parameters are kept for rows already sent. The binder sets all
+         * the parameters of a row; parameters added to this builder are not
+         * used. Every row must bind as many parameters as the first one, or
+         * the batch fails with an SQLException. To batch a Stream, pass
+         * {@code stream::iterator}.
+         *
+         * @param rows      the rows to bind
+         * @param binder    binds the parameters of a row
+         * @param chunkSize the number of rows per executeBatch call
+         * @param <T>       the type of row
+         * @return an Sql returning the update counts of all rows
+         */
+        public <T> Sql<int[]> batch(final Iterable<T> rows,
+                                    final BiConsumer<T, Binder> binder,
+                                    final int chunkSize) {
+            int batchSize = ChunkedBatch.batchSize(chunkSize);
+            return connection -> {
+                Binder rowBinder = new Binder();
+                Iterator<T> iterator = rows.iterator();
+                int[] paramsPerRow = {-1};
+                try (PreparedStatement ps = cached(connection, false,
+                        () -> connection.prepareStatement(getSql()))) {
+                    return ChunkedBatch.execute(connection, ps, batchSize,
+                            batchSize, false, () -> {
+                                if (!iterator.hasNext()) {
+                                    return false;
+                                }
+                                binder.accept(iterator.next(), rowBinder);
+                                int size = rowBinder.parameters().size();
+                                if (paramsPerRow[0] == -1) {
+                                    paramsPerRow[0] = size;
+                                } else if (size != paramsPerRow[0]) {
+                                    throw new SQLException(
+                                            "Parameters do not match "
+                                            + "with first set of parameters");
+                                }
+                                rowBinder.parameters().bind(ps).addBatch();
+                                rowBinder.parameters().clear();
+                                return true;
+                            });
+                }
+            };
+        }
+
         /**
          * JDBC Batch Builder.
          */
-        public final class PreparedBatch {
+        public final class PreparedBatch implements Sql<int[]> {
 
             /**
              * No ofParams in Batch Statement.
@@ -1218,6 +2188,14 @@ public sealed class SqlBuilder implements Sql<Integer> {
              * No ofParams in Batch Statement.
              */
             private int capacity;
+            /**
+             * Rows per executeBatch call, 0 for all rows at once.
+             */
+            private int batchSize;
+            /**
+             * Whether to commit after each executeBatch call.
+             */
+            private boolean commitEachBatch;
 
             /**
              * SQL Builder for the query.
@@ -1225,7 +2203,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
 
             private PreparedBatch() {
                 this.paramsPerBatch = PreparedSqlBuilder
-                        .this.paramMappers.size();
+                        .this.parameters.size();
                 this.capacity = paramsPerBatch;
                 this.preparedSqlBuilder = new PreparedSqlBuilder(
                         PreparedSqlBuilder.this.getSql());
@@ -1243,13 +2221,39 @@ public sealed class SqlBuilder implements Sql<Integer> {
             }
 
             private void validate() throws SQLException {
-                if (this.preparedSqlBuilder.paramMappers.size() != capacity) {
+                if (this.preparedSqlBuilder.parameters.size() != capacity) {
                     throw new SQLException(
                             "Parameters do not match "
                             + "with first set of parameters");
                 }
             }
 
+            /**
+             * Sends the rows to the database in chunks of the given size,
+             * instead of all at once, so that large loads run in bounded
+             * memory. The update counts of all chunks are returned together.
+             *
+             * @param rows the number of rows per executeBatch call
+             * @return the current batch, for method chaining
+             */
+            public PreparedBatch batchSize(final int rows) {
+                this.batchSize = ChunkedBatch.batchSize(rows);
+                return this;
+            }
+
+            /**
+             * Commits after each chunk of rows is executed. Chunks already
+             * committed stay committed if a later chunk fails; the failing
+             * chunk is rolled back.
+             *
+             * @return the current batch, for method chaining
+             * @see #batchSize(int)
+             */
+            public PreparedBatch commitEachBatch() {
+                this.commitEachBatch = true;
+                return this;
+            }
+
             /**
              * executes the Batch.
              *
@@ -1258,30 +2262,43 @@ public sealed class SqlBuilder implements Sql<Integer> {
              */
             public int[] executeBatch(final DataSource dataSource)
                     throws SQLException {
-                validate();
-                int[] updatedRows;
-                try (Connection connection = dataSource.getConnection();
-                     PreparedStatement ps = connection
-                             .prepareStatement(getSql())) {
-                    prepare(ps);
+                return execute(dataSource);
+            }
 
-                    updatedRows = ps.executeBatch();
+            /**
+             * Executes the Batch on the given connection, so that it can be
+             * part of a {@link Transaction}. Do not combine with
+             * {@link #commitEachBatch()} inside a transaction, as that
+             * commits the transaction's work.
+             *
+             * @param connection the connection
+             * @return an array of update counts
+             * @throws SQLException if a database access error occurs
+             */
+            @Override
+            public int[] execute(final Connection connection)
+                    throws SQLException {
+                validate();
+                try (PreparedStatement ps = cached(connection, false,
+                        () -> connection.prepareStatement(getSql()))) {
+                    return ChunkedBatch.execute(connection, ps,
+                            1 + this.preparedSqlBuilder.parameters.size()
+                                    / this.paramsPerBatch,
+                            batchSize, commitEachBatch,
+                            index -> addRow(ps, index));
                 }
-                return updatedRows;
             }
 
-            private void prepare(final PreparedStatement ps)
+            private void addRow(final PreparedStatement ps, final int index)
                     throws SQLException {
-                int batchCount = (this.preparedSqlBuilder.paramMappers.size()
-                                  / this.paramsPerBatch);
-                PreparedSqlBuilder.this.prepare(ps, PreparedSqlBuilder.this
-                        .paramMappers).addBatch();
-                for (int i = 0; i < batchCount; i++) {
-                    int from = i * this.paramsPerBatch;
-                    PreparedSqlBuilder.this.prepare(ps, this.preparedSqlBuilder
-                            .paramMappers.subList(from,
-                                    from + this.paramsPerBatch)).addBatch();
+                if (index == 0) {
+                    PreparedSqlBuilder.this.parameters.bind(ps);
+                } else {
+                    this.preparedSqlBuilder.parameters.bind(ps,
+                            (index - 1) * this.paramsPerBatch,
+                            this.paramsPerBatch);
                 }
+                ps.addBatch();
             }
 
             /**
@@ -1397,53 +2414,142 @@ public sealed class SqlBuilder implements Sql<Integer> {
             }
 
             /**
-             * Adds a Float parameter to the SQL query.
+             * Adds a Float parameter to the SQL query.
+             *
+             * @param value the Float value to be added
+             * @return the current PreparedBatch instance for chaining
+             */
+            public PreparedBatch param(final Float value) {
+                return preparedParam(value);
+            }
+
+            /**
+             * Adds a byte array parameter to the SQL query.
+             *
+             * @param value the byte array to be added
+             * @return the current PreparedBatch instance for chaining
+             */
+            public PreparedBatch param(final byte[] value) {
+                return preparedParam(value);
+            }
+
+            /**
+             * Adds a BigDecimal parameter to the SQL query.
+             *
+             * @param value the BigDecimal value to be added
+             * @return the current PreparedBatch instance for chaining
+             */
+            public PreparedBatch param(final BigDecimal value) {
+                return preparedParam(value);
+            }
+
+            /**
+             * Adds a Time parameter to the SQL query.
+             *
+             * @param value the Time value to be added
+             * @return the current PreparedBatch instance for chaining
+             */
+            public PreparedBatch param(final Time value) {
+                return preparedParam(value);
+            }
+
+            /**
+             * Adds a Timestamp parameter to the SQL query.
+             *
+             * @param value the Timestamp value to be added
+             * @return the current PreparedBatch instance for chaining
+             */
+            public PreparedBatch param(final Timestamp value) {
+                return preparedParam(value);
+            }
+
+            /**
+             * Adds an int parameter to the SQL query, without boxing it.
+             *
+             * @param value the int value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public PreparedBatch param(final int value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
+            /**
+             * Adds a long parameter to the SQL query, without boxing it.
+             *
+             * @param value the long value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public PreparedBatch param(final long value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
+            /**
+             * Adds a short parameter to the SQL query, without boxing it.
+             *
+             * @param value the short value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public PreparedBatch param(final short value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
+            /**
+             * Adds a byte parameter to the SQL query, without boxing it.
              *
-             * @param value the Float value to be added
-             * @return the current PreparedBatch instance for chaining
+             * @param value the byte value to be added
+             * @return the current SqlBuilder instance, for method chaining
              */
-            public PreparedBatch param(final Float value) {
-                return preparedParam(value);
+            public PreparedBatch param(final byte value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
             }
 
             /**
-             * Adds a byte array parameter to the SQL query.
+             * Adds a double parameter to the SQL query, without boxing it.
              *
-             * @param value the byte array to be added
-             * @return the current PreparedBatch instance for chaining
+             * @param value the double value to be added
+             * @return the current SqlBuilder instance, for method chaining
              */
-            public PreparedBatch param(final byte[] value) {
-                return preparedParam(value);
+            public PreparedBatch param(final double value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
             }
 
             /**
-             * Adds a BigDecimal parameter to the SQL query.
+             * Adds a float parameter to the SQL query, without boxing it.
              *
-             * @param value the BigDecimal value to be added
-             * @return the current PreparedBatch instance for chaining
+             * @param value the float value to be added
+             * @return the current SqlBuilder instance, for method chaining
              */
-            public PreparedBatch param(final BigDecimal value) {
-                return preparedParam(value);
+            public PreparedBatch param(final float value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
             }
 
             /**
-             * Adds a Time parameter to the SQL query.
+             * Adds a boolean parameter to the SQL query, without boxing it.
              *
-             * @param value the Time value to be added
-             * @return the current PreparedBatch instance for chaining
+             * @param value the boolean value to be added
+             * @return the current SqlBuilder instance, for method chaining
              */
-            public PreparedBatch param(final Time value) {
-                return preparedParam(value);
+            public PreparedBatch param(final boolean value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
             }
 
             /**
-             * Adds a Timestamp parameter to the SQL query.
+             * Adds a char parameter to the SQL query, bound as a String of
+             * length one.
              *
-             * @param value the Timestamp value to be added
-             * @return the current PreparedBatch instance for chaining
+             * @param value the char value to be added
+             * @return the current SqlBuilder instance, for method chaining
              */
-            public PreparedBatch param(final Timestamp value) {
-                return preparedParam(value);
+            public PreparedBatch param(final char value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
             }
 
             /**
@@ -1482,6 +2588,11 @@ public sealed class SqlBuilder implements Sql<Integer> {
          */
         private final CallableSqlBuilderWrapper callableSqlBuilderWrapper;
 
+        /**
+         * Cache to take statements from, null when statements are not cached.
+         */
+        private StatementCache statementCache;
+
         /**
          * Creates Callable Sql Builder.
          *
@@ -1517,11 +2628,45 @@ public sealed class SqlBuilder implements Sql<Integer> {
         private CallableStatement getStatement(final Connection connection,
                                                final String theSql)
                 throws SQLException {
-            CallableStatement ps = connection.prepareCall(theSql);
+            CallableStatement ps = prepareCall(connection, theSql);
             prepare(ps);
             return ps;
         }
 
+        /**
+         * Prepares a CallableStatement for the Query, taking it from the
+         * statement cache when one is set.
+         *
+         * @param connection
+         * @param theSql
+         * @return statement without parameters bound
+         * @throws SQLException
+         */
+        private CallableStatement prepareCall(final Connection connection,
+                                              final String theSql)
+                throws SQLException {
+            return statementCache == null
+                    ? connection.prepareCall(theSql)
+                    : statementCache.prepare(connection, theSql, false,
+                            ResultSet.TYPE_FORWARD_ONLY,
+                            CallableStatement.class,
+                            () -> connection.prepareCall(theSql));
+        }
+
+        /**
+         * Takes statements from the given cache instead of preparing a new
+         * one on every execution, so that repeated calls on the same
+         * connection are parsed once.
+         *
+         * @param cache the statement cache
+         * @return the current SqlBuilder instance, for method chaining
+         * @see StatementCache
+         */
+        public CallableSqlBuilder statementCache(final StatementCache cache) {
+            this.statementCache = cache;
+            return this;
+        }
+
         /**
          * Prepares the PreparedStatement by binding all the parameters to their
          * respective positions in the SQL query.
@@ -1533,24 +2678,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
          */
         private PreparedStatement prepare(final PreparedStatement ps)
                 throws SQLException {
-            return prepare(ps, this.preparedSqlBuilder.paramMappers);
-        }
-
-        /**
-         * Prepare Statement with Parameters.
-         *
-         * @param ps
-         * @param pMappers
-         * @return ps
-         * @throws SQLException
-         */
-        private PreparedStatement prepare(final PreparedStatement ps,
-                                          final List<ParamMapper> pMappers)
-                throws SQLException {
-            for (int i = 0; i < pMappers.size(); i++) {
-                pMappers.get(i).set(ps, (i + 1));
-            }
-            return ps;
+            return this.preparedSqlBuilder.parameters.bind(ps);
         }
 
         /**
@@ -1712,6 +2840,95 @@ public sealed class SqlBuilder implements Sql<Integer> {
             return inParam(value);
         }
 
+        /**
+         * Adds an int parameter to the SQL query, without boxing it.
+         *
+         * @param value the int value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public CallableSqlBuilder param(final int value) {
+            this.preparedSqlBuilder.param(value);
+            return this;
+        }
+
+        /**
+         * Adds a long parameter to the SQL query, without boxing it.
+         *
+         * @param value the long value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public CallableSqlBuilder param(final long value) {
+            this.preparedSqlBuilder.param(value);
+            return this;
+        }
+
+        /**
+         * Adds a short parameter to the SQL query, without boxing it.
+         *
+         * @param value the short value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public CallableSqlBuilder param(final short value) {
+            this.preparedSqlBuilder.param(value);
+            return this;
+        }
+
+        /**
+         * Adds a byte parameter to the SQL query, without boxing it.
+         *
+         * @param value the byte value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public CallableSqlBuilder param(final byte value) {
+            this.preparedSqlBuilder.param(value);
+            return this;
+        }
+
+        /**
+         * Adds a double parameter to the SQL query, without boxing it.
+         *
+         * @param value the double value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public CallableSqlBuilder param(final double value) {
+            this.preparedSqlBuilder.param(value);
+            return this;
+        }
+
+        /**
+         * Adds a float parameter to the SQL query, without boxing it.
+         *
+         * @param value the float value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public CallableSqlBuilder param(final float value) {
+            this.preparedSqlBuilder.param(value);
+            return this;
+        }
+
+        /**
+         * Adds a boolean parameter to the SQL query, without boxing it.
+         *
+         * @param value the boolean value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public CallableSqlBuilder param(final boolean value) {
+            this.preparedSqlBuilder.param(value);
+            return this;
+        }
+
+        /**
+         * Adds a char parameter to the SQL query, bound as a String of length
+         * one.
+         *
+         * @param value the char value to be added
+         * @return the current SqlBuilder instance, for method chaining
+         */
+        public CallableSqlBuilder param(final char value) {
+            this.preparedSqlBuilder.param(value);
+            return this;
+        }
+
         /**
          * Adds a parameter to the SQL query. The method allows chaining and is
          * used to bind values to placeholders in the SQL query.
@@ -1760,8 +2977,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
         private <T> CallableSqlBuilderWrapper inOutParam(final int type,
                                                          final T value) {
             this.preparedSqlBuilder.param((ps, index) -> {
-                new PreparedSqlBuilder(this.preparedSqlBuilder.getSql())
-                        .param(value).paramMappers.get(0).set(ps, index);
+                ps.setObject(index, value);
                 ((CallableStatement) ps).registerOutParameter(index, type);
             });
             return this.callableSqlBuilderWrapper;
@@ -2386,7 +3602,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
         /**
          * JDBC Batch Builder.
          */
-        public final class CallableBatch {
+        public final class CallableBatch implements Sql<int[]> {
 
             /**
              * No ofParams in Batch Statement.
@@ -2400,6 +3616,14 @@ public sealed class SqlBuilder implements Sql<Integer> {
              * No ofParams in Batch Statement.
              */
             private int capacity;
+            /**
+             * Rows per executeBatch call, 0 for all rows at once.
+             */
+            private int batchSize;
+            /**
+             * Whether to commit after each executeBatch call.
+             */
+            private boolean commitEachBatch;
 
             /**
              * SQL Builder for the query.
@@ -2407,7 +3631,7 @@ public sealed class SqlBuilder implements Sql<Integer> {
 
             private CallableBatch() {
                 this.paramsPerBatch = CallableSqlBuilder
-                        .this.preparedSqlBuilder.paramMappers.size();
+                        .this.preparedSqlBuilder.parameters.size();
                 this.capacity = paramsPerBatch;
                 this.preparedSqlBuilder = new PreparedSqlBuilder(
                         CallableSqlBuilder.this.preparedSqlBuilder.getSql());
@@ -2425,13 +3649,39 @@ public sealed class SqlBuilder implements Sql<Integer> {
             }
 
             private void validate() throws SQLException {
-                if (this.preparedSqlBuilder.paramMappers.size() != capacity) {
+                if (this.preparedSqlBuilder.parameters.size() != capacity) {
                     throw new SQLException(
                             "Parameters do not match "
                             + "with first set of parameters");
                 }
             }
 
+            /**
+             * Sends the rows to the database in chunks of the given size,
+             * instead of all at once, so that large calls run in bounded
+             * memory. The update counts of all chunks are returned together.
+             *
+             * @param rows the number of rows per executeBatch call
+             * @return the current batch, for method chaining
+             */
+            public CallableBatch batchSize(final int rows) {
+                this.batchSize = ChunkedBatch.batchSize(rows);
+                return this;
+            }
+
+            /**
+             * Commits after each chunk of rows is executed. Chunks already
+             * committed stay committed if a later chunk fails; the failing
+             * chunk is rolled back.
+             *
+             * @return the current batch, for method chaining
+             * @see #batchSize(int)
+             */
+            public CallableBatch commitEachBatch() {
+                this.commitEachBatch = true;
+                return this;
+            }
+
             /**
              * executes the Batch.
              *
@@ -2440,33 +3690,47 @@ public sealed class SqlBuilder implements Sql<Integer> {
              */
             public int[] executeBatch(final DataSource dataSource)
                     throws SQLException {
-                validate();
-                int[] updatedRows;
-                try (Connection connection = dataSource.getConnection();
-                     PreparedStatement ps = connection
-                             .prepareStatement(preparedSqlBuilder.getSql())) {
-                    prepare(ps);
+                return execute(dataSource);
+            }
 
-                    updatedRows = ps.executeBatch();
+            /**
+             * Executes the Batch on the given connection, so that it can be
+             * part of a {@link Transaction}. Do not combine with
+             * {@link #commitEachBatch()} inside a transaction, as that
+             * commits the transaction's work.
+             *
+             * <p>The rows are sent on a CallableStatement from
+             * {@link Connection#prepareCall(String)}, so JDBC escape syntax
+             * such as {@code {call proc(?)}} is translated by the driver.</p>
+             *
+             * @param connection the connection
+             * @return an array of update counts
+             * @throws SQLException if a database access error occurs
+             */
+            @Override
+            public int[] execute(final Connection connection)
+                    throws SQLException {
+                validate();
+                try (CallableStatement ps = prepareCall(connection,
+                        preparedSqlBuilder.getSql())) {
+                    return ChunkedBatch.execute(connection, ps,
+                            1 + this.preparedSqlBuilder.parameters.size()
+                                    / this.paramsPerBatch,
+                            batchSize, commitEachBatch,
+                            index -> addRow(ps, index));
                 }
-                return updatedRows;
             }
 
-            private void prepare(final PreparedStatement ps)
+            private void addRow(final CallableStatement ps, final int index)
                     throws SQLException {
-
-                int batchCount = (this.preparedSqlBuilder.paramMappers.size()
-                                  / this.paramsPerBatch);
-
-                CallableSqlBuilder.this.prepare(ps, CallableSqlBuilder.this
-                        .preparedSqlBuilder.paramMappers).addBatch();
-
-                for (int i = 0; i < batchCount; i++) {
-                    int from = i * this.paramsPerBatch;
-                    CallableSqlBuilder.this.prepare(ps, this.preparedSqlBuilder
-                            .paramMappers.subList(from,
-                                    from + this.paramsPerBatch)).addBatch();
+                if (index == 0) {
+                    CallableSqlBuilder.this.prepare(ps);
+                } else {
+                    this.preparedSqlBuilder.parameters.bind(ps,
+                            (index - 1) * this.paramsPerBatch,
+                            this.paramsPerBatch);
                 }
+                ps.addBatch();
             }
 
             /**
@@ -2629,6 +3893,95 @@ public sealed class SqlBuilder implements Sql<Integer> {
                 return callableParam(value);
             }
 
+            /**
+             * Adds an int parameter to the SQL query, without boxing it.
+             *
+             * @param value the int value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public CallableBatch param(final int value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
+            /**
+             * Adds a long parameter to the SQL query, without boxing it.
+             *
+             * @param value the long value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public CallableBatch param(final long value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
+            /**
+             * Adds a short parameter to the SQL query, without boxing it.
+             *
+             * @param value the short value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public CallableBatch param(final short value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
+            /**
+             * Adds a byte parameter to the SQL query, without boxing it.
+             *
+             * @param value the byte value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public CallableBatch param(final byte value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
+            /**
+             * Adds a double parameter to the SQL query, without boxing it.
+             *
+             * @param value the double value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public CallableBatch param(final double value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
+            /**
+             * Adds a float parameter to the SQL query, without boxing it.
+             *
+             * @param value the float value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public CallableBatch param(final float value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
+            /**
+             * Adds a boolean parameter to the SQL query, without boxing it.
+             *
+             * @param value the boolean value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public CallableBatch param(final boolean value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
+            /**
+             * Adds a char parameter to the SQL query, bound as a String of
+             * length one.
+             *
+             * @param value the char value to be added
+             * @return the current SqlBuilder instance, for method chaining
+             */
+            public CallableBatch param(final char value) {
+                this.preparedSqlBuilder.param(value);
+                return this;
+            }
+
             /**
              * Adds an Object parameter to the SQL query.
              *
@@ -2657,12 +4010,22 @@ public sealed class SqlBuilder implements Sql<Integer> {
     /**
      * inner Batch class of SqlBuilder.
      */
-    public class Batch {
+    public class Batch implements Sql<int[]> {
         /**
          * List of sqls using String.
          */
         private final List<String> sqls;
 
+        /**
+         * Statements per executeBatch call, 0 for all at once.
+         */
+        private int batchSize;
+
+        /**
+         * Whether to commit after each executeBatch call.
+         */
+        private boolean commitEachBatch;
+
         /**
          * constructor of Batch and it takes the sql query.
          *
@@ -2684,6 +4047,32 @@ public sealed class SqlBuilder implements Sql<Integer> {
             return this;
         }
 
+        /**
+         * Sends the statements to the database in chunks of the given size,
+         * instead of all at once. The update counts of all chunks are
+         * returned together.
+         *
+         * @param statements the number of statements per executeBatch call
+         * @return batch
+         */
+        public Batch batchSize(final int statements) {
+            this.batchSize = ChunkedBatch.batchSize(statements);
+            return this;
+        }
+
+        /**
+         * Commits after each chunk of statements is executed. Chunks already
+         * committed stay committed if a later chunk fails; the failing chunk
+         * is rolled back.
+         *
+         * @return batch
+         * @see #batchSize(int)
+         */
+        public Batch commitEachBatch() {
+            this.commitEachBatch = true;
+            return this;
+        }
+
         /**
          * executeBatch of the no of querys.
          *
@@ -2693,16 +4082,29 @@ public sealed class SqlBuilder implements Sql<Integer> {
          */
         public int[] executeBatch(final DataSource dataSource)
                 throws SQLException {
-            int[] updatedRows;
-            try (Connection connection = dataSource.getConnection();
-                 Statement statement = connection.createStatement()) {
-                statement.addBatch(SqlBuilder.this.getSql());
-                for (String batchSql : this.sqls) {
-                    statement.addBatch(batchSql);
-                }
-                updatedRows = statement.executeBatch();
+            return execute(dataSource);
+        }
+
+        /**
+         * Executes the batch on the given connection, so that it can be part
+         * of a {@link Transaction}. Do not combine with
+         * {@link #commitEachBatch()} inside a transaction, as that commits
+         * the transaction's work.
+         *
+         * @param connection the connection
+         * @return updatedRows
+         * @throws SQLException if a database access error occurs
+         */
+        @Override
+        public int[] execute(final Connection connection)
+                throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                return ChunkedBatch.execute(connection, statement,
+                        1 + this.sqls.size(), batchSize, commitEachBatch,
+                        index -> statement.addBatch(index == 0
+                                ? SqlBuilder.this.getSql()
+                                : this.sqls.get(index - 1)));
             }
-            return updatedRows;
         }
     }
 }
@@ -0,0 +1,226 @@
+package org.tamilnadujug;
+
+import org.tamilnadujug.SqlBuilder.PreparedSqlBuilder;
+
+import java.util.Arrays;
+
+/**
+ * An immutable form of a parameterized SQL statement together with its
+ * query options. A template is created once, shared freely across threads
+ * and bound per call; binding returns a fresh {@link PreparedSqlBuilder}
+ * that is confined to the calling thread and holds only that call's
+ * parameter values. The parameter markers are counted once, so the
+ * builder's parameter list is allocated at its final size. The statement
+ * itself is prepared by the driver on each execution, unless a
+ * {@link StatementCache} is set to reuse it.
+ *
+ * <p>Usage Example:</p>
+ * <pre>
+ * private static final SqlTemplate FIND_MOVIE = SqlBuilder
+ *     .template("SELECT id, title, directed_by FROM movie WHERE id = ?");
+ *
+ * Movie movie = FIND_MOVIE.bind()
+ *     .param(id)
+ *     .queryForOne(this::mapRow)
+ *     .execute(dataSource);
+ * </pre>
+ */
+public final class SqlTemplate {
+
+    /**
+     * The SQL query to be executed.
+     */
+    private final String sql;
+
+    /**
+     * Number of parameter markers in the SQL, at least 1.
+     */
+    private final int parameterCount;
+
+    /**
+     * Number of rows fetched from the database per round trip.
+     */
+    private final int fetchSize;
+
+    /**
+     * Maximum number of rows a query can return.
+     */
+    private final long maxRows;
+
+    /**
+     * Whether queries use a forward-only, read-only cursor.
+     */
+    private final boolean forwardOnly;
+
+    /**
+     * Cache to take statements from, null when statements are not cached.
+     */
+    private final StatementCache statementCache;
+
+    /**
+     * How query results are shared between executions.
+     */
+    private final Sharing sharing;
+
+    /**
+     * Creates a template with default query options.
+     *
+     * @param theSql the SQL query to be prepared and executed
+     */
+    SqlTemplate(final String theSql) {
+        this(theSql, 0, 0, false, null,
+                new Sharing(null, new String[0], null));
+    }
+
+    /**
+     * Creates a template.
+     *
+     * @param theSql         the SQL query to be prepared and executed
+     * @param theFetchSize   the number of rows to fetch per round trip
+     * @param theMaxRows     the maximum number of rows
+     * @param theForwardOnly whether to use a forward-only cursor
+     * @param theCache       the statement cache, or null
+     * @param theSharing     how query results are shared
+     */
+    private SqlTemplate(final String theSql,
+                        final int theFetchSize,
+                        final long theMaxRows,
+                        final boolean theForwardOnly,
+                        final StatementCache theCache,
+                        final Sharing theSharing) {
+        this.sql = theSql;
+        this.parameterCount = countMarkers(theSql);
+        this.fetchSize = theFetchSize;
+        this.maxRows = theMaxRows;
+        this.forwardOnly = theForwardOnly;
+        this.statementCache = theCache;
+        this.sharing = theSharing;
+    }
+
+    /**
+     * Counts the parameter markers in the SQL. Markers within literals are
+     * counted too, which only oversizes the parameter list.
+     *
+     * @param theSql the SQL
+     * @return the number of markers, at least 1
+     */
+    private static int countMarkers(final String theSql) {
+        int count = 0;
+        for (int i = 0; i < theSql.length(); i++) {
+            if (theSql.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return Math.max(1, count);
+    }
+
+    /**
+     * Returns a copy of this template with the given fetch size.
+     *
+     * @param rows the number of rows to fetch, 0 for the driver default
+     * @return a new template
+     * @see SqlBuilder#fetchSize(int)
+     */
+    public SqlTemplate fetchSize(final int rows) {
+        return new SqlTemplate(sql, rows, maxRows, forwardOnly,
+                statementCache, sharing);
+    }
+
+    /**
+     * Returns a copy of this template with the given row limit.
+     *
+     * @param rows the maximum number of rows, 0 for no limit
+     * @return a new template
+     * @see SqlBuilder#maxRows(long)
+     */
+    public SqlTemplate maxRows(final long rows) {
+        return new SqlTemplate(sql, fetchSize, rows, forwardOnly,
+                statementCache, sharing);
+    }
+
+    /**
+     * Returns a copy of this template that runs queries on a forward-only,
+     * read-only cursor.
+     *
+     * @return a new template
+     * @see SqlBuilder#forwardOnly()
+     */
+    public SqlTemplate forwardOnly() {
+        return new SqlTemplate(sql, fetchSize, maxRows, true,
+                statementCache, sharing);
+    }
+
+    /**
+     * Returns a copy of this template that takes statements from the given
+     * cache.
+     *
+     * @param cache the statement cache
+     * @return a new template
+     * @see SqlBuilder.PreparedSqlBuilder#statementCache(StatementCache)
+     */
+    public SqlTemplate statementCache(final StatementCache cache) {
+        return new SqlTemplate(sql, fetchSize, maxRows, forwardOnly, cache,
+                sharing);
+    }
+
+    /**
+     * Returns a copy of this template whose query results are served from
+     * the given cache while fresh.
+     *
+     * @param cache the result cache
+     * @param tags  tags to invalidate the results by
+     * @return a new template
+     * @see SqlBuilder#resultCache(ResultCache, String...)
+     */
+    public SqlTemplate resultCache(final ResultCache cache,
+                                   final String... tags) {
+        return new SqlTemplate(sql, fetchSize, maxRows, forwardOnly,
+                statementCache, new Sharing(cache,
+                        Arrays.copyOf(tags, tags.length),
+                        sharing.singleFlight()));
+    }
+
+    /**
+     * Returns a copy of this template whose identical concurrent queries
+     * share one database call.
+     *
+     * @param flights the single flight group
+     * @return a new template
+     * @see SqlBuilder#singleFlight(SingleFlight)
+     */
+    public SqlTemplate singleFlight(final SingleFlight flights) {
+        return new SqlTemplate(sql, fetchSize, maxRows, forwardOnly,
+                statementCache, new Sharing(sharing.resultCache(),
+                        sharing.cacheTags(), flights));
+    }
+
+    /**
+     * Starts binding parameters for a single execution of this template.
+     * The returned builder is not thread-safe and should not outlive the
+     * call it was created for.
+     *
+     * @return a new PreparedSqlBuilder for this template
+     */
+    public PreparedSqlBuilder bind() {
+        PreparedSqlBuilder builder = new PreparedSqlBuilder(sql,
+                parameterCount)
+                .fetchSize(fetchSize)
+                .maxRows(maxRows)
+                .statementCache(statementCache)
+                .resultCache(sharing.resultCache(), sharing.cacheTags())
+                .singleFlight(sharing.singleFlight());
+        return forwardOnly ? builder.forwardOnly() : builder;
+    }
+
+    /**
+     * How query results are shared between executions.
+     *
+     * @param resultCache  cache to serve query results from, or null
+     * @param cacheTags    tags to invalidate cached results by
+     * @param singleFlight group to coalesce identical queries in, or null
+     */
+    private record Sharing(ResultCache resultCache,
+                           String[] cacheTags,
+                           SingleFlight singleFlight) {
+    }
+}
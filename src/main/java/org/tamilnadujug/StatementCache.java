@@ -0,0 +1,426 @@
+package org.tamilnadujug;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, least recently used cache of prepared statements, keyed by
+ * connection, SQL, generated-keys flag and result set type. It saves the
+ * driver and the database from parsing and planning the same SQL again when
+ * a statement is executed many times on one connection, typically within a
+ * {@link Transaction}.
+ *
+ * <p>Caching is opt-in: pass a cache to
+ * {@link SqlBuilder.PreparedSqlBuilder#statementCache(StatementCache)},
+ * {@link SqlBuilder.CallableSqlBuilder#statementCache(StatementCache)} or
+ * {@link SqlTemplate#statementCache(StatementCache)}. Closing a statement
+ * obtained from the cache returns it to the cache with its parameters,
+ * batch and query options reset; statements evicted to stay within the
+ * maximum size are closed. A statement is handed out to one caller at a
+ * time, so nested or concurrent use of the same SQL on a connection
+ * prepares another one.</p>
+ *
+ * <p>Statements belong to their connection. Call
+ * {@link #evict(Connection)} before closing a connection to close its cached
+ * statements straight away, instead of waiting for them to be evicted. The
+ * wrappers this library puts around a connection, for a transaction timeout
+ * or an asynchronous execution, share the statements of the connection they
+ * wrap.</p>
+ *
+ * <p>Usage Example:</p>
+ * <pre>
+ * StatementCache cache = new StatementCache(64);
+ * SqlTemplate insert = SqlBuilder
+ *     .template("INSERT INTO movie(title) VALUES (?)")
+ *     .statementCache(cache);
+ *
+ * Transaction.begin(connection -&gt; {
+ *     for (String title : titles) {
+ *         insert.bind().param(title).execute(connection);
+ *     }
+ *     return titles.size();
+ * }).execute(dataSource);
+ * </pre>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+public final class StatementCache {
+
+    /**
+     * Maximum number of idle statements held.
+     */
+    private final int maxSize;
+
+    /**
+     * Idle statements, least recently used first.
+     */
+    private final Map<Key, PreparedStatement> statements;
+
+    /**
+     * Number of requests served from the cache.
+     */
+    private long hits;
+
+    /**
+     * Number of requests that prepared a new statement.
+     */
+    private long misses;
+
+    /**
+     * Number of statements closed to stay within the maximum size.
+     */
+    private long evictions;
+
+    /**
+     * Creates a statement cache.
+     *
+     * @param theMaxSize the maximum number of idle statements to hold
+     */
+    public StatementCache(final int theMaxSize) {
+        if (theMaxSize < 1) {
+            throw new IllegalArgumentException(
+                    "maxSize must be positive: " + theMaxSize);
+        }
+        this.maxSize = theMaxSize;
+        this.statements = new LinkedHashMap<>();
+    }
+
+    /**
+     * Number of statement requests served from the cache.
+     *
+     * @return hit count
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Number of statement requests that prepared a new statement.
+     *
+     * @return miss count
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Number of statements closed to stay within the maximum size.
+     *
+     * @return eviction count
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Number of idle statements currently held.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes and removes the idle statements of the given connection.
+     *
+     * @param connection the connection
+     * @throws SQLException if closing a statement fails
+     */
+    public void evict(final Connection connection) throws SQLException {
+        List<PreparedStatement> removed = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<Key, PreparedStatement>> iterator
+                    = statements.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, PreparedStatement> entry = iterator.next();
+                if (entry.getKey().connection() == owner(connection)) {
+                    removed.add(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        close(removed);
+    }
+
+    /**
+     * Closes and removes all idle statements.
+     *
+     * @throws SQLException if closing a statement fails
+     */
+    public void clear() throws SQLException {
+        List<PreparedStatement> removed;
+        synchronized (this) {
+            removed = new ArrayList<>(statements.values());
+            statements.clear();
+        }
+        close(removed);
+    }
+
+    /**
+     * Gets a statement from the cache, or prepares one using the factory.
+     * Closing the returned statement hands it back to this cache.
+     *
+     * @param connection    the connection
+     * @param sql           the SQL of the statement
+     * @param generatedKeys whether the statement returns generated keys
+     * @param resultSetType the result set type of the statement
+     * @param type          PreparedStatement or CallableStatement
+     * @param factory       prepares a new statement on a miss
+     * @param <S>           the type of statement
+     * @return the statement
+     * @throws SQLException if preparing the statement fails
+     */
+    <S extends PreparedStatement> S prepare(final Connection connection,
+                                            final String sql,
+                                            final boolean generatedKeys,
+                                            final int resultSetType,
+                                            final Class<S> type,
+                                            final Factory<S> factory)
+            throws SQLException {
+        TimedConnection timed = TimedConnection.of(connection);
+        Key key = new Key(owner(connection), sql, generatedKeys,
+                resultSetType, type);
+        PreparedStatement statement;
+        synchronized (this) {
+            statement = statements.remove(key);
+            if (statement == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+        }
+        if (statement == null) {
+            statement = factory.create();
+        } else {
+            try {
+                if (timed != null) {
+                    timed.applyTo(statement);
+                }
+                track(connection, statement);
+            } catch (SQLException | RuntimeException e) {
+                statement.close();
+                throw e;
+            }
+        }
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[]{type}, new Lease(key, statement)));
+    }
+
+    /**
+     * Returns the connection that statements are cached for: the one
+     * beneath the wrappers of a transaction timeout or an asynchronous
+     * execution, which are created per use.
+     *
+     * @param connection the connection, possibly wrapped
+     * @return the wrapped connection
+     */
+    private static Connection owner(final Connection connection) {
+        Connection current = connection;
+        Connection target = target(current);
+        while (target != null) {
+            current = target;
+            target = target(current);
+        }
+        return current;
+    }
+
+    /**
+     * Returns the connection wrapped by a timed connection, or by a proxy
+     * whose handler supplies its target, as that of an asynchronous
+     * execution does.
+     *
+     * @param connection the connection
+     * @return the wrapped connection, or null if it is not such a wrapper
+     */
+    private static Connection target(final Connection connection) {
+        if (!Proxy.isProxyClass(connection.getClass())) {
+            return null;
+        }
+        InvocationHandler handler = Proxy.getInvocationHandler(connection);
+        if (handler instanceof TimedConnection timed) {
+            return timed.target();
+        }
+        return handler instanceof Supplier<?> supplier
+                && supplier.get() instanceof Connection wrapped
+                ? wrapped : null;
+    }
+
+    /**
+     * Hands a reused statement to the wrappers of a connection that track
+     * the statements created through them, such as that of an asynchronous
+     * execution, which cancels its running statement.
+     *
+     * @param connection the connection, possibly wrapped
+     * @param statement  the reused statement
+     */
+    @SuppressWarnings("unchecked")
+    private static void track(final Connection connection,
+                              final Statement statement) {
+        for (Connection current = connection; current != null;
+             current = target(current)) {
+            if (Proxy.isProxyClass(current.getClass())
+                    && Proxy.getInvocationHandler(current)
+                    instanceof Consumer<?> tracker) {
+                ((Consumer<Statement>) tracker).accept(statement);
+            }
+        }
+    }
+
+    /**
+     * Returns a statement to the cache, evicting the least recently used
+     * statements beyond the maximum size. The statement is closed instead
+     * if an idle statement for the same key is already held.
+     *
+     * @param key       the cache key
+     * @param statement the statement
+     * @throws SQLException if resetting or closing a statement fails
+     */
+    private void release(final Key key, final PreparedStatement statement)
+            throws SQLException {
+        List<PreparedStatement> removed = new ArrayList<>();
+        removed.add(statement);
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.setMaxRows(0);
+            statement.setFetchSize(0);
+            statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+            statement.setQueryTimeout(0);
+            synchronized (this) {
+                if (statements.putIfAbsent(key, statement) == null) {
+                    removed.clear();
+                }
+                Iterator<PreparedStatement> iterator
+                        = statements.values().iterator();
+                while (statements.size() > maxSize) {
+                    removed.add(iterator.next());
+                    iterator.remove();
+                    evictions++;
+                }
+            }
+        } finally {
+            close(removed);
+        }
+    }
+
+    /**
+     * Closes the given statements.
+     *
+     * @param removed statements removed from the cache
+     * @throws SQLException if closing a statement fails
+     */
+    private static void close(final List<PreparedStatement> removed)
+            throws SQLException {
+        for (PreparedStatement statement : removed) {
+            statement.close();
+        }
+    }
+
+    /**
+     * Prepares a new statement.
+     *
+     * @param <S> the type of statement
+     */
+    @FunctionalInterface
+    interface Factory<S extends PreparedStatement> {
+        /**
+         * Prepares a new statement.
+         *
+         * @return the statement
+         * @throws SQLException if a database access error occurs
+         */
+        S create() throws SQLException;
+    }
+
+    /**
+     * Cache key.
+     *
+     * @param connection    the connection the statement belongs to
+     * @param sql           the SQL of the statement
+     * @param generatedKeys whether the statement returns generated keys
+     * @param resultSetType the result set type of the statement
+     * @param type          PreparedStatement or CallableStatement
+     */
+    private record Key(Connection connection,
+                       String sql,
+                       boolean generatedKeys,
+                       int resultSetType,
+                       Class<?> type) {
+    }
+
+    /**
+     * Hands a cached statement to one caller, returning it to the cache
+     * when the caller closes it.
+     */
+    private final class Lease implements InvocationHandler {
+
+        /**
+         * The cache key.
+         */
+        private final Key key;
+
+        /**
+         * The cached statement.
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * Whether the caller has closed the statement.
+         */
+        private boolean closed;
+
+        /**
+         * Creates a lease.
+         *
+         * @param theKey       the cache key
+         * @param theStatement the cached statement
+         */
+        private Lease(final Key theKey, final PreparedStatement theStatement) {
+            this.key = theKey;
+            this.statement = theStatement;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object invoke(final Object proxy,
+                             final Method method,
+                             final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        release(key, statement);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed;
+                }
+                default -> {
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.tamilnadujug;
+
+import org.tamilnadujug.sql.RowMapper;
+import org.tamilnadujug.sql.Sql;
+import org.tamilnadujug.sql.UncheckedSQLException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * SQL operation that returns a lazily fetched {@link Stream} of rows. The
+ * underlying Statement and ResultSet stay open while the stream is consumed
+ * and are closed by {@link Stream#close()}; callers are expected to use the
+ * stream in a try-with-resources block.
+ *
+ * <p>When executed with a {@link DataSource}, the borrowed Connection is
+ * also held until the stream is closed. The stream then owns the
+ * Connection: it turns auto-commit off, so that drivers such as
+ * PostgreSQL's read rows through a cursor, and restores it on close.
+ * Statements without a fetch size get {@link #DEFAULT_FETCH_SIZE} whenever
+ * auto-commit is off. When executed with a Connection in auto-commit mode,
+ * PostgreSQL reads all rows when the query executes, as described at
+ * {@link SqlBuilder#fetchSize(int)}.</p>
+ *
+ * @param <T> the type of object mapped from each row
+ */
+final class StreamSql<T> implements Sql<Stream<T>> {
+
+    /**
+     * Rows fetched per round trip by statements without a fetch size.
+     */
+    static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Opens the stream on a given connection.
+     */
+    private final Sql<Stream<T>> sql;
+
+    /**
+     * Constructs a StreamSql from the given SQL operation.
+     *
+     * @param theSql the SQL operation opening the stream
+     */
+    StreamSql(final Sql<Stream<T>> theSql) {
+        this.sql = theSql;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<T> execute(final Connection connection) throws SQLException {
+        return sql.execute(connection);
+    }
+
+    /**
+     * Executes the SQL operation using a Connection from the given
+     * DataSource, with auto-commit off so that rows are read through a
+     * cursor. Auto-commit is restored and the Connection closed when the
+     * returned stream is closed, or immediately if the query fails.
+     *
+     * @param dataSource JDBC DataSource to use for execution
+     * @return lazily fetched stream of rows
+     * @throws SQLException if an error occurs during execution
+     */
+    @Override
+    public Stream<T> execute(final DataSource dataSource) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        boolean autoCommit = true;
+        try {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            boolean restored = autoCommit;
+            return execute(connection)
+                    .onClose(closing(() -> connection.setAutoCommit(restored)))
+                    .onClose(closing(connection::close));
+        } catch (SQLException | RuntimeException e) {
+            release(connection, autoCommit, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Rolls back and restores auto-commit on a connection whose query
+     * failed, then closes it.
+     *
+     * @param connection the connection
+     * @param autoCommit the original auto-commit mode
+     * @param failure    the failure, to add restore failures to
+     * @throws SQLException if the connection cannot be closed
+     */
+    private static void release(final Connection connection,
+                                final boolean autoCommit,
+                                final Throwable failure) throws SQLException {
+        try {
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Gives a statement without a fetch size the default one, when its
+     * connection has auto-commit off, so that the driver reads rows in
+     * batches rather than all at once.
+     *
+     * @param statement the statement
+     * @param <S>       the type of statement
+     * @return the statement
+     * @throws SQLException if a database access error occurs
+     */
+    static <S extends Statement> S fetchInBatches(final S statement)
+            throws SQLException {
+        if (statement.getFetchSize() == 0
+                && !statement.getConnection().getAutoCommit()) {
+            statement.setFetchSize(DEFAULT_FETCH_SIZE);
+        }
+        return statement;
+    }
+
+    /**
+     * Creates a stream that maps rows of the ResultSet on demand. Closing
+     * the stream closes both the ResultSet and the Statement.
+     *
+     * @param statement the Statement that produced the ResultSet
+     * @param resultSet the ResultSet to read rows from
+     * @param rowMapper maps each row of the ResultSet
+     * @param <T>       the type of object mapped from each row
+     * @return lazily fetched stream of rows
+     */
+    static <T> Stream<T> stream(final Statement statement,
+                                final ResultSet resultSet,
+                                final RowMapper<T> rowMapper) {
+        return StreamSupport.stream(new Spliterators
+                        .AbstractSpliterator<T>(Long.MAX_VALUE,
+                        Spliterator.ORDERED) {
+                    @Override
+                    public boolean tryAdvance(
+                            final Consumer<? super T> action) {
+                        try {
+                            if (!resultSet.next()) {
+                                return false;
+                            }
+                            action.accept(rowMapper.get(resultSet));
+                            return true;
+                        } catch (SQLException e) {
+                            throw new UncheckedSQLException(e);
+                        }
+                    }
+                }, false)
+                .onClose(closing(resultSet::close))
+                .onClose(closing(statement::close));
+    }
+
+    /**
+     * Creates a close handler for the given resource, wrapping any
+     * SQLException so that it can be registered with
+     * {@link Stream#onClose(Runnable)}.
+     *
+     * @param resource the JDBC resource to close
+     * @return close handler
+     */
+    private static Runnable closing(final JdbcResource resource) {
+        return () -> {
+            try {
+                resource.close();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        };
+    }
+
+    /**
+     * A JDBC resource whose close may fail with an SQLException.
+     */
+    @FunctionalInterface
+    private interface JdbcResource {
+        /**
+         * Closes the resource.
+         *
+         * @throws SQLException if a database access error occurs
+         */
+        void close() throws SQLException;
+    }
+}
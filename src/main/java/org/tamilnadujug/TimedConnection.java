@@ -0,0 +1,134 @@
+package org.tamilnadujug;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Wraps a connection so that every statement created on it gets a query
+ * timeout of the time left until a deadline, which makes a
+ * {@link Transaction#timeout(Duration)} apply to each statement in the
+ * chain.
+ */
+final class TimedConnection implements InvocationHandler {
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * The wrapped connection.
+     */
+    private final Connection target;
+
+    /**
+     * The deadline, in {@link System#nanoTime()} units.
+     */
+    private final long deadline;
+
+    /**
+     * Creates a timed connection handler.
+     *
+     * @param theTarget   the wrapped connection
+     * @param theDeadline the deadline, in {@link System#nanoTime()} units
+     */
+    private TimedConnection(final Connection theTarget,
+                            final long theDeadline) {
+        this.target = theTarget;
+        this.deadline = theDeadline;
+    }
+
+    /**
+     * Wraps a connection with a deadline the given time from now.
+     *
+     * @param connection the connection
+     * @param timeout    the time allowed
+     * @return the wrapped connection
+     */
+    static Connection wrap(final Connection connection,
+                           final Duration timeout) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new TimedConnection(connection,
+                        System.nanoTime() + timeout.toNanos()));
+    }
+
+    /**
+     * Gets the handler of a wrapped connection.
+     *
+     * @param connection a connection
+     * @return the handler, or null if the connection is not wrapped
+     */
+    static TimedConnection of(final Connection connection) {
+        return Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection)
+                instanceof TimedConnection timed ? timed : null;
+    }
+
+    /**
+     * The wrapped connection.
+     *
+     * @return the connection
+     */
+    Connection target() {
+        return target;
+    }
+
+    /**
+     * Sets the statement's query timeout to the time left, rounded up to
+     * whole seconds.
+     *
+     * @param statement the statement
+     * @throws SQLException if the deadline has passed
+     */
+    void applyTo(final Statement statement) throws SQLException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new SQLTimeoutException("Transaction timed out");
+        }
+        statement.setQueryTimeout((int) Math.min(Integer.MAX_VALUE,
+                (remaining + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object invoke(final Object proxy,
+                         final Method method,
+                         final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            default -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Statement statement) {
+                    try {
+                        applyTo(statement);
+                    } catch (SQLException e) {
+                        statement.close();
+                        throw e;
+                    }
+                }
+                return result;
+            }
+        }
+    }
+}
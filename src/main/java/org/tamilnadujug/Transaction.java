@@ -5,6 +5,8 @@ import org.tamilnadujug.sql.Sql;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /**
@@ -26,26 +28,91 @@ import java.util.function.Function;
  *   <li>Disables auto-commit before execution</li>
  *   <li>Executes the SQL chain atomically</li>
  *   <li>Commits after successful execution</li>
- *   <li>Caller handles rollback on exceptions</li>
- *   <li>Restores auto-commit at the end</li>
+ *   <li>Rolls back on any failure and counts it in {@link #rollbacks()}</li>
+ *   <li>Restores auto-commit, read-only and isolation at the end</li>
  * </ul>
  *
  * @param <T> the result type of the SQL operation at the current stage
  */
 public class Transaction<T> implements Sql<T> {
 
+    /**
+     * Number of transactions rolled back after a failure.
+     */
+    private static final AtomicLong ROLLBACKS = new AtomicLong();
+
+    /**
+     * Isolation level value meaning the connection's level is kept.
+     */
+    private static final int DEFAULT_ISOLATION = -1;
+
     /**
      * The SQL operation to be executed in this transaction stage.
      */
     private final Sql<T> sql;
 
+    /**
+     * Policy for re-running the transaction, null to run it once.
+     */
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Isolation level of the transaction, or DEFAULT_ISOLATION.
+     */
+    private final int isolation;
+
+    /**
+     * Whether the transaction is read-only.
+     */
+    private final boolean readOnly;
+
+    /**
+     * Time allowed for the transaction, null for no limit.
+     */
+    private final Duration timeout;
+
     /**
      * Constructs a transaction stage with the given SQL operation.
      *
      * @param theSql the SQL operation to be executed
      */
     protected Transaction(final Sql<T> theSql) {
+        this(theSql, null, DEFAULT_ISOLATION, false, null);
+    }
+
+    /**
+     * Constructs a transaction stage with the given SQL operation and
+     * options.
+     *
+     * @param theSql         the SQL operation to be executed
+     * @param theRetryPolicy the retry policy, or null
+     * @param theIsolation   the isolation level, or DEFAULT_ISOLATION
+     * @param theReadOnly    whether the transaction is read-only
+     * @param theTimeout     the time allowed, or null
+     */
+    private Transaction(final Sql<T> theSql,
+                        final RetryPolicy theRetryPolicy,
+                        final int theIsolation,
+                        final boolean theReadOnly,
+                        final Duration theTimeout) {
         this.sql = theSql;
+        this.retryPolicy = theRetryPolicy;
+        this.isolation = theIsolation;
+        this.readOnly = theReadOnly;
+        this.timeout = theTimeout;
+    }
+
+    /**
+     * Creates a transaction stage with the given SQL operation and the
+     * options of this one.
+     *
+     * @param next the SQL operation of the new stage
+     * @param <R>  the result type of the SQL operation
+     * @return a new {@code Transaction} instance
+     */
+    private <R> Transaction<R> with(final Sql<R> next) {
+        return new Transaction<>(next, retryPolicy, isolation, readOnly,
+                timeout);
     }
 
     /**
@@ -72,21 +139,90 @@ public class Transaction<T> implements Sql<T> {
      */
     public <R> Transaction<R> thenApply(
             final Function<T, Sql<R>> tSqlFunction) {
-        return new Transaction<>(connection -> {
+        return with(connection -> {
             T t = sql.execute(connection);
             return tSqlFunction.apply(t).execute(connection);
         });
     }
 
+    /**
+     * Re-runs the whole transaction, from the first SQL operation, when it
+     * fails with an error the given policy retries, such as a serialization
+     * failure or a deadlock. Each failed attempt is rolled back before the
+     * next one. Stages chained after this call are retried too.
+     *
+     * <p>The SQL operations may run more than once, so they should not have
+     * side effects outside the database.</p>
+     *
+     * @param policy the retry policy
+     * @return a new {@code Transaction} instance
+     * @see RetryPolicy
+     */
+    public Transaction<T> retry(final RetryPolicy policy) {
+        return new Transaction<>(sql, policy, isolation, readOnly, timeout);
+    }
+
+    /**
+     * Runs the transaction at the given isolation level. The connection's
+     * level is restored afterward.
+     *
+     * @param level one of the {@code Connection.TRANSACTION_*} levels
+     * @return a new {@code Transaction} instance
+     * @see Connection#setTransactionIsolation(int)
+     */
+    public Transaction<T> isolation(final int level) {
+        return new Transaction<>(sql, retryPolicy, level, readOnly, timeout);
+    }
+
+    /**
+     * Runs the transaction in read-only mode, which lets the database skip
+     * write bookkeeping and lets drivers or proxies route it to a replica.
+     * The connection's mode is restored afterward.
+     *
+     * @return a new {@code Transaction} instance
+     * @see Connection#setReadOnly(boolean)
+     */
+    public Transaction<T> readOnly() {
+        return new Transaction<>(sql, retryPolicy, isolation, true, timeout);
+    }
+
+    /**
+     * Limits the time the transaction may take. Every statement created in
+     * the chain gets the time left, rounded up to whole seconds, as its
+     * query timeout, and creating a statement once the time is up fails
+     * with a {@link java.sql.SQLTimeoutException}. With a retry policy,
+     * each attempt gets the full time.
+     *
+     * @param time the time allowed
+     * @return a new {@code Transaction} instance
+     * @see java.sql.Statement#setQueryTimeout(int)
+     */
+    public Transaction<T> timeout(final Duration time) {
+        return new Transaction<>(sql, retryPolicy, isolation, readOnly, time);
+    }
+
+    /**
+     * Number of transactions, across all instances, rolled back because the
+     * SQL chain or the commit failed.
+     *
+     * @return rollback count
+     */
+    public static long rollbacks() {
+        return ROLLBACKS.get();
+    }
+
     /**
      * Executes the transaction on the given database connection.
      *
-    * <p>Manages transaction boundaries automatically:</p>
-    * <ul>
-    *   <li>Disables auto-commit before execution</li>
-    *   <li>Commits the transaction upon success</li>
-    *   <li>Restores auto-commit afterward</li>
-    * </ul>
+     * <p>Manages transaction boundaries automatically:</p>
+     * <ul>
+     *   <li>Disables auto-commit before execution</li>
+     *   <li>Commits the transaction upon success</li>
+     *   <li>Rolls back the transaction upon any failure, so that the
+     *   connection holds no locks when it goes back to a pool</li>
+     *   <li>Restores the connection's auto-commit, read-only and isolation
+     *   state afterward</li>
+     * </ul>
      *
      * @param connection the database connection
      * @return the result of the SQL execution
@@ -94,13 +230,77 @@ public class Transaction<T> implements Sql<T> {
      */
     @Override
     public T execute(final Connection connection) throws SQLException {
-        connection.setAutoCommit(false);
-        T t = sql.execute(connection);
-        connection.commit();
-        connection.setAutoCommit(true);
+        return retryPolicy == null ? executeOnce(connection)
+                : retryPolicy.execute(connection, this::executeOnce);
+    }
+
+    /**
+     * Executes the transaction once on the given database connection.
+     *
+     * @param connection the database connection
+     * @return the result of the SQL execution
+     * @throws SQLException if a database error occurs
+     */
+    private T executeOnce(final Connection connection) throws SQLException {
+        boolean wasAutoCommit = connection.getAutoCommit();
+        boolean wasReadOnly = connection.isReadOnly();
+        int wasIsolation = isolation == DEFAULT_ISOLATION ? DEFAULT_ISOLATION
+                : connection.getTransactionIsolation();
+        T t;
+        try {
+            if (isolation != DEFAULT_ISOLATION) {
+                connection.setTransactionIsolation(isolation);
+            }
+            if (readOnly) {
+                connection.setReadOnly(true);
+            }
+            connection.setAutoCommit(false);
+            t = sql.execute(timeout == null ? connection
+                    : TimedConnection.wrap(connection, timeout));
+            connection.commit();
+        } catch (Throwable failure) {
+            ROLLBACKS.incrementAndGet();
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                failure.addSuppressed(e);
+            } finally {
+                try {
+                    restore(connection, wasAutoCommit, wasReadOnly,
+                            wasIsolation);
+                } catch (SQLException e) {
+                    failure.addSuppressed(e);
+                }
+            }
+            throw failure;
+        }
+        restore(connection, wasAutoCommit, wasReadOnly, wasIsolation);
         return t;
     }
 
+    /**
+     * Restores the state a connection had before the transaction.
+     *
+     * @param connection the database connection
+     * @param autoCommit the original auto-commit mode
+     * @param readOnly   the original read-only mode
+     * @param isolation  the original isolation level, or DEFAULT_ISOLATION
+     *                   if it was not changed
+     * @throws SQLException if a database error occurs
+     */
+    private static void restore(final Connection connection,
+                                final boolean autoCommit,
+                                final boolean readOnly,
+                                final int isolation) throws SQLException {
+        if (isolation != DEFAULT_ISOLATION) {
+            connection.setTransactionIsolation(isolation);
+        }
+        if (connection.isReadOnly() != readOnly) {
+            connection.setReadOnly(readOnly);
+        }
+        connection.setAutoCommit(autoCommit);
+    }
+
     /**
      * Creates a savepoint within the current transaction.
      * <p>
@@ -111,6 +311,11 @@ public class Transaction<T> implements Sql<T> {
      * operations intact.
      * </p>
      *
+     * <p>If the next Transaction fails, its work is rolled back to the
+     * savepoint and the result is null. Use
+     * {@link #savePoint(String, Function, Recovery)} to supply another
+     * result or to rethrow.</p>
+     *
      * <pre>
      * Transaction
      *     .begin(...)
@@ -129,17 +334,69 @@ public class Transaction<T> implements Sql<T> {
     public <R> Transaction<R> savePoint(final String savePointId,
                                         final Function<T,
                                         Transaction<R>> transactionFn) {
-        return new Transaction<>(connection -> {
+        return savePoint(savePointId, transactionFn, (t, e) -> null);
+    }
+
+    /**
+     * Creates a savepoint within the current transaction and runs the next
+     * Transaction after it. On success the savepoint is released; on failure
+     * the work is rolled back to the savepoint, the savepoint is released
+     * and the recovery function supplies the result. Either way no
+     * savepoint is left behind, so savepoints can be chained or nested any
+     * number of times.
+     *
+     * <pre>
+     * Transaction
+     *     .begin(...)
+     *     .savePoint("sp1", id -&gt; Transaction.begin(insertAuditSql(id)),
+     *             (id, e) -&gt; 0)
+     *     .execute(dataSource);
+     * </pre>
+     *
+     * @param savePointId   a unique identifier for the savepoint
+     * @param transactionFn function mapping the result of this Transaction to
+     *                      next Transaction
+     * @param recovery      supplies the result when the next Transaction
+     *                      fails, or rethrows to fail this Transaction
+     * @param <R>           the result type of the next SQL operation
+     * @return a new {@code Transaction} instance
+     */
+    public <R> Transaction<R> savePoint(final String savePointId,
+                                        final Function<T,
+                                        Transaction<R>> transactionFn,
+                                        final Recovery<T, R> recovery) {
+        return with(connection -> {
             T t = sql.execute(connection);
             Savepoint savepoint = connection.setSavepoint(savePointId);
-            R r = null;
+            R r;
             try {
                 r = transactionFn.apply(t).sql.execute(connection);
             } catch (SQLException sqlException) {
                 connection.rollback(savepoint);
+                connection.releaseSavepoint(savepoint);
+                return recovery.recover(t, sqlException);
             }
+            connection.releaseSavepoint(savepoint);
             return r;
         });
     }
 
+    /**
+     * Supplies the result of a savepoint whose Transaction failed.
+     *
+     * @param <T> the result type before the savepoint
+     * @param <R> the result type of the failed Transaction
+     */
+    @FunctionalInterface
+    public interface Recovery<T, R> {
+        /**
+         * Recovers from a failure rolled back to a savepoint.
+         *
+         * @param t         the result before the savepoint
+         * @param exception the failure
+         * @return the result to continue with
+         * @throws SQLException to fail the whole transaction instead
+         */
+        R recover(T t, SQLException exception) throws SQLException;
+    }
 }
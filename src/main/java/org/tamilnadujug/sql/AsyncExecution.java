@@ -0,0 +1,214 @@
+package org.tamilnadujug.sql;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The future of an SQL operation running on an {@link Executor}.
+ * Cancelling it cancels the statement being executed, through
+ * {@link Statement#cancel()}, so that the database stops working on it.
+ *
+ * @param <R> the type of result returned by the SQL operation
+ */
+final class AsyncExecution<R> extends CompletableFuture<R> {
+
+    /**
+     * Executor used when none is given: a virtual thread per task where the
+     * JDK offers it, otherwise a cached pool of daemon threads.
+     */
+    static final Executor DEFAULT_EXECUTOR = newExecutor();
+
+    /**
+     * The most recently created statement, the one to cancel.
+     */
+    private volatile Statement running;
+
+    /**
+     * Creates a future.
+     */
+    private AsyncExecution() {
+    }
+
+    /**
+     * Starts executing an SQL operation with a connection from the given
+     * DataSource.
+     *
+     * @param sql        the SQL operation
+     * @param dataSource the DataSource
+     * @param executor   runs the SQL operation
+     * @param <R>        the type of result
+     * @return the future result
+     */
+    static <R> CompletableFuture<R> execute(final Sql<R> sql,
+                                            final DataSource dataSource,
+                                            final Executor executor) {
+        AsyncExecution<R> future = new AsyncExecution<>();
+        DataSource tracked = future.track(DataSource.class, dataSource);
+        try {
+            executor.execute(() -> {
+                if (!future.isDone()) {
+                    try {
+                        future.complete(sql.execute(tracked));
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Cancels this future and the statement being executed, if any.
+     *
+     * @param mayInterruptIfRunning ignored; the statement is cancelled
+     *                              instead of interrupting the thread
+     * @return true if this call cancelled the future
+     */
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        boolean cancelled = !isDone() && super.cancel(mayInterruptIfRunning);
+        Statement statement = running;
+        if (cancelled && statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // The statement already finished; its result is discarded.
+                return true;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Wraps a DataSource or Connection so that the statements created
+     * through it can be cancelled.
+     *
+     * @param type   DataSource or Connection
+     * @param target the object to wrap
+     * @param <T>    the type
+     * @return the wrapped object
+     */
+    private <T> T track(final Class<T> type, final T target) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[]{type}, new Tracker(target)));
+    }
+
+    /**
+     * Registers a statement as the one to cancel.
+     *
+     * @param statement the statement
+     * @throws SQLException if this future is already cancelled
+     */
+    private void register(final Statement statement) throws SQLException {
+        running = statement;
+        if (isCancelled()) {
+            statement.close();
+            throw new SQLException("Execution cancelled", "57014");
+        }
+    }
+
+    /**
+     * Creates the default executor.
+     *
+     * @return the executor
+     */
+    private static Executor newExecutor() {
+        try {
+            return (Executor) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "sql-async");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Wraps connections and registers statements created through the
+     * wrapped object. A statement cache reuses statements of the wrapped
+     * connection, found through {@link #get()}, and registers them through
+     * {@link #accept(Statement)}.
+     */
+    private final class Tracker implements InvocationHandler,
+            Supplier<Object>, Consumer<Statement> {
+
+        /**
+         * The wrapped object.
+         */
+        private final Object target;
+
+        /**
+         * Creates a tracker.
+         *
+         * @param theTarget the wrapped object
+         */
+        private Tracker(final Object theTarget) {
+            this.target = theTarget;
+        }
+
+        /**
+         * Returns the wrapped object.
+         *
+         * @return the wrapped object
+         */
+        @Override
+        public Object get() {
+            return target;
+        }
+
+        /**
+         * Registers a statement reused rather than created through the
+         * wrapped connection.
+         *
+         * @param statement the statement
+         * @throws UncheckedSQLException if this future is already cancelled
+         */
+        @Override
+        public void accept(final Statement statement) {
+            running = statement;
+            if (isCancelled()) {
+                throw new UncheckedSQLException(new SQLException(
+                        "Execution cancelled", "57014"));
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object invoke(final Object proxy,
+                             final Method method,
+                             final Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection connection) {
+                return track(Connection.class, connection);
+            }
+            if (result instanceof Statement statement) {
+                register(statement);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.tamilnadujug.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adapts a {@link NamedRowMapper} to a {@link RowMapper}. Column labels are
+ * read from the metadata once per ResultSet, and the label to index
+ * resolution built from them is cached by labels, so a mapper held for a
+ * query resolves its columns once across executions. Each row then costs a
+ * hash lookup per column read, instead of a lookup by the driver.
+ *
+ * <p>Each thread keeps the row accessor of the last ResultSet it mapped, so
+ * that a mapper shared by threads builds one accessor per ResultSet rather
+ * than one per row. The accessor references its ResultSet weakly, so the
+ * mapper does not keep a closed ResultSet reachable.</p>
+ *
+ * @param <T> the type of object mapped from each row
+ */
+final class LabelIndexMapper<T> implements RowMapper<T> {
+
+    /**
+     * The mapper reading columns by label.
+     */
+    private final NamedRowMapper<T> mapper;
+
+    /**
+     * Resolutions by column labels.
+     */
+    private final Map<List<String>, Columns> columns =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The row accessor of the last ResultSet mapped, per thread.
+     */
+    private final ThreadLocal<NamedRowMapper.Row> last = new ThreadLocal<>();
+
+    /**
+     * Creates an adapter.
+     *
+     * @param theMapper the mapper reading columns by label
+     */
+    LabelIndexMapper(final NamedRowMapper<T> theMapper) {
+        this.mapper = theMapper;
+    }
+
+    /**
+     * Maps the current row through the row accessor of its ResultSet.
+     *
+     * @param rs the ResultSet to map from
+     * @return mapped object of type T
+     * @throws SQLException if an error occurs during mapping
+     */
+    @Override
+    public T get(final ResultSet rs) throws SQLException {
+        NamedRowMapper.Row row = last.get();
+        if (row == null || row.resultSet() != rs) {
+            Columns resolved = resolve(rs.getMetaData());
+            row = new NamedRowMapper.Row(rs, resolved.indexes(),
+                    resolved.folded());
+            last.set(row);
+        }
+        return mapper.get(row);
+    }
+
+    /**
+     * Resolves column labels to indexes, reusing the resolution of an
+     * earlier layout with the same labels.
+     *
+     * @param metaData the metadata of the ResultSet
+     * @return the resolution
+     * @throws SQLException if the metadata cannot be read
+     */
+    private Columns resolve(final ResultSetMetaData metaData)
+            throws SQLException {
+        List<String> labels = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            labels.add(metaData.getColumnLabel(i));
+        }
+        return columns.computeIfAbsent(labels, LabelIndexMapper::index);
+    }
+
+    /**
+     * Builds the resolution of a column layout.
+     *
+     * @param labels the column labels, in order
+     * @return the resolution
+     */
+    private static Columns index(final List<String> labels) {
+        Map<String, Integer> indexes = new HashMap<>();
+        Map<String, Integer> folded = new HashMap<>();
+        for (int i = 0; i < labels.size(); i++) {
+            indexes.putIfAbsent(labels.get(i), i + 1);
+            folded.putIfAbsent(labels.get(i).toLowerCase(Locale.ROOT), i + 1);
+        }
+        return new Columns(indexes, folded);
+    }
+
+    /**
+     * The resolution of a column layout.
+     *
+     * @param indexes column indexes by label
+     * @param folded  column indexes by lower case label
+     */
+    private record Columns(Map<String, Integer> indexes,
+                           Map<String, Integer> folded) {
+    }
+}
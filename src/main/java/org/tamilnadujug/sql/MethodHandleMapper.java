@@ -0,0 +1,454 @@
+package org.tamilnadujug.sql;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps rows to records or beans by column label, through a
+ * {@link MethodHandle} composed once per column layout.
+ *
+ * <p>Labels are matched to record components, or bean setters, ignoring
+ * case and underscores, so {@code directed_by} maps to
+ * {@code directedBy}. For each layout the matching columns are bound to
+ * typed getters, {@code getLong} for a {@code long} component,
+ * {@code getString} for a {@code String} one and so on, and composed with
+ * the canonical constructor, or the no-arg constructor and setters, into a
+ * single handle taking the ResultSet. Primitive columns are not boxed; a
+ * boxed component such as {@link Integer} reads the primitive and checks
+ * {@link ResultSet#wasNull()}.</p>
+ *
+ * <p>Handles are cached by column labels. Each thread also keeps the
+ * handle of the last ResultSet it mapped, through a weak reference, so that
+ * each row costs an identity check of its ResultSet and one invocation,
+ * however many threads share the mapper, without keeping a closed
+ * ResultSet or its Connection reachable. Mappers are shared per class and
+ * are thread-safe.</p>
+ *
+ * <p>Classes in named modules are accessed through a private lookup where
+ * their package is open to this module, and otherwise, if they are public,
+ * through the public lookup.</p>
+ *
+ * @param <T> the type of object mapped from each row
+ */
+final class MethodHandleMapper<T> implements RowMapper<T> {
+
+    /**
+     * Mappers of records, per class.
+     */
+    private static final ClassValue<MethodHandleMapper<?>> RECORDS =
+            new ClassValue<>() {
+                @Override
+                protected MethodHandleMapper<?> computeValue(
+                        final Class<?> type) {
+                    return new MethodHandleMapper<>(type, true);
+                }
+            };
+
+    /**
+     * Mappers of beans, per class.
+     */
+    private static final ClassValue<MethodHandleMapper<?>> BEANS =
+            new ClassValue<>() {
+                @Override
+                protected MethodHandleMapper<?> computeValue(
+                        final Class<?> type) {
+                    return new MethodHandleMapper<>(type, false);
+                }
+            };
+
+    /**
+     * Getters of ResultSet by the Java type they return.
+     */
+    private static final Map<Class<?>, String> GETTERS = Map.ofEntries(
+            Map.entry(boolean.class, "getBoolean"),
+            Map.entry(byte.class, "getByte"),
+            Map.entry(short.class, "getShort"),
+            Map.entry(int.class, "getInt"),
+            Map.entry(long.class, "getLong"),
+            Map.entry(float.class, "getFloat"),
+            Map.entry(double.class, "getDouble"),
+            Map.entry(String.class, "getString"),
+            Map.entry(BigDecimal.class, "getBigDecimal"),
+            Map.entry(byte[].class, "getBytes"),
+            Map.entry(Date.class, "getDate"),
+            Map.entry(Time.class, "getTime"),
+            Map.entry(Timestamp.class, "getTimestamp"));
+
+    /**
+     * Primitive types by their wrapper.
+     */
+    private static final Map<Class<?>, Class<?>> PRIMITIVES = Map.of(
+            Boolean.class, boolean.class,
+            Byte.class, byte.class,
+            Short.class, short.class,
+            Integer.class, int.class,
+            Long.class, long.class,
+            Float.class, float.class,
+            Double.class, double.class);
+
+    /**
+     * Lookup of this class, for ResultSet methods.
+     */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * Returns null if the last column read was SQL NULL.
+     */
+    private static final MethodHandle NULLABLE;
+
+    /**
+     * ResultSet.getObject(int, Class).
+     */
+    private static final MethodHandle GET_OBJECT;
+
+    static {
+        try {
+            NULLABLE = LOOKUP.findStatic(MethodHandleMapper.class,
+                    "nullable", MethodType.methodType(Object.class,
+                            Object.class, ResultSet.class));
+            GET_OBJECT = LOOKUP.findVirtual(ResultSet.class, "getObject",
+                    MethodType.methodType(Object.class, int.class,
+                            Class.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The mapped class.
+     */
+    private final Class<?> type;
+
+    /**
+     * Whether the class is mapped as a record, or as a bean.
+     */
+    private final boolean asRecord;
+
+    /**
+     * The canonical constructor of a record, or the no-arg constructor of
+     * a bean.
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * Record components, or bean setters, by normalised property name, in
+     * declaration order.
+     */
+    private final Map<String, Class<?>> properties;
+
+    /**
+     * Setters of a bean by normalised property name; empty for a record.
+     */
+    private final Map<String, MethodHandle> setters;
+
+    /**
+     * Row handles by column labels.
+     */
+    private final Map<List<String>, MethodHandle> plans =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The row handle of the last ResultSet mapped, per thread.
+     */
+    private final ThreadLocal<Layout> last = new ThreadLocal<>();
+
+    /**
+     * Creates a mapper, resolving the constructor and properties.
+     *
+     * @param theType   the mapped class
+     * @param theRecord whether to map it as a record
+     */
+    private MethodHandleMapper(final Class<?> theType,
+                               final boolean theRecord) {
+        this.type = theType;
+        this.asRecord = theRecord;
+        this.properties = new LinkedHashMap<>();
+        this.setters = new HashMap<>();
+        try {
+            MethodHandles.Lookup lookup = lookupIn(theType);
+            if (theRecord) {
+                if (!theType.isRecord()) {
+                    throw new IllegalArgumentException(
+                            theType + " is not a record");
+                }
+                RecordComponent[] components = theType.getRecordComponents();
+                Class<?>[] types = new Class<?>[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    types[i] = components[i].getType();
+                    properties.put(normalise(components[i].getName()),
+                            types[i]);
+                }
+                this.constructor = lookup.findConstructor(theType,
+                        MethodType.methodType(void.class, types));
+            } else {
+                this.constructor = lookup.findConstructor(theType,
+                        MethodType.methodType(void.class));
+                for (Method method : theType.getMethods()) {
+                    if (isSetter(method)) {
+                        String name = normalise(method.getName()
+                                .substring("set".length()));
+                        properties.put(name, method.getParameterTypes()[0]);
+                        setters.put(name, lookup.unreflect(method));
+                    }
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(
+                    "Cannot map rows to " + theType, e);
+        }
+    }
+
+    /**
+     * Returns a lookup with access to the members of a class: a private
+     * lookup if its package is open to this module, otherwise the public
+     * lookup for a public class.
+     *
+     * @param type the class
+     * @return the lookup
+     * @throws IllegalAccessException if the class is neither open nor
+     *                                public
+     */
+    private static MethodHandles.Lookup lookupIn(final Class<?> type)
+            throws IllegalAccessException {
+        try {
+            return MethodHandles.privateLookupIn(type, LOOKUP);
+        } catch (IllegalAccessException e) {
+            if (Modifier.isPublic(type.getModifiers())) {
+                return MethodHandles.publicLookup();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the mapper of a record class.
+     *
+     * @param type the record class
+     * @param <R>  the type of record
+     * @return the mapper
+     */
+    @SuppressWarnings("unchecked")
+    static <R extends Record> RowMapper<R> forRecord(final Class<R> type) {
+        return (RowMapper<R>) RECORDS.get(type);
+    }
+
+    /**
+     * Returns the mapper of a bean class.
+     *
+     * @param type the bean class
+     * @param <B>  the type of bean
+     * @return the mapper
+     */
+    @SuppressWarnings("unchecked")
+    static <B> RowMapper<B> forBean(final Class<B> type) {
+        return (RowMapper<B>) BEANS.get(type);
+    }
+
+    /**
+     * Maps the current row.
+     *
+     * @param rs the ResultSet to map from
+     * @return the record or bean
+     * @throws SQLException if a column cannot be read, or a record
+     *                      component has no column
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(final ResultSet rs) throws SQLException {
+        Layout layout = last.get();
+        if (layout == null || layout.resultSet().get() != rs) {
+            layout = new Layout(new WeakReference<>(rs),
+                    plan(rs.getMetaData()));
+            last.set(layout);
+        }
+        try {
+            return (T) (Object) layout.plan().invokeExact(rs);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLException("Cannot map row to " + type, e);
+        }
+    }
+
+    /**
+     * Gets, or composes, the row handle for the columns of a ResultSet.
+     *
+     * @param metaData the metadata of the ResultSet
+     * @return a handle of type {@code (ResultSet)Object}
+     * @throws SQLException if a record component has no column
+     */
+    private MethodHandle plan(final ResultSetMetaData metaData)
+            throws SQLException {
+        List<String> labels = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            labels.add(normalise(metaData.getColumnLabel(i)));
+        }
+        MethodHandle plan = plans.get(labels);
+        if (plan == null) {
+            plan = asRecord ? recordPlan(labels) : beanPlan(labels);
+            plans.put(List.copyOf(labels), plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Composes the canonical constructor with a getter per component.
+     *
+     * @param labels the normalised column labels
+     * @return a handle of type {@code (ResultSet)Object}
+     * @throws SQLException if a component has no column
+     */
+    private MethodHandle recordPlan(final List<String> labels)
+            throws SQLException {
+        MethodHandle[] getters = new MethodHandle[properties.size()];
+        int i = 0;
+        for (Map.Entry<String, Class<?>> component : properties.entrySet()) {
+            int index = labels.indexOf(component.getKey());
+            if (index < 0) {
+                throw new SQLException("No column for component "
+                        + component.getKey() + " of " + type);
+            }
+            getters[i++] = getter(component.getValue(), index + 1);
+        }
+        MethodHandle plan = MethodHandles.filterArguments(constructor, 0,
+                getters);
+        return MethodHandles.permuteArguments(plan.asType(
+                        MethodType.methodType(Object.class,
+                                plan.type().parameterArray())),
+                MethodType.methodType(Object.class, ResultSet.class),
+                new int[getters.length]);
+    }
+
+    /**
+     * Composes the no-arg constructor with the setters that have a column.
+     *
+     * @param labels the normalised column labels
+     * @return a handle of type {@code (ResultSet)Object}
+     */
+    private MethodHandle beanPlan(final List<String> labels) {
+        MethodHandle plan = MethodHandles.dropArguments(
+                MethodHandles.identity(Object.class), 1, ResultSet.class);
+        for (int index = labels.size() - 1; index >= 0; index--) {
+            String label = labels.get(index);
+            if (setters.containsKey(label)
+                    && labels.indexOf(label) == index) {
+                MethodHandle setter = MethodHandles.filterArguments(
+                        setters.get(label), 1,
+                        getter(properties.get(label), index + 1));
+                plan = MethodHandles.foldArguments(plan, setter.asType(
+                        MethodType.methodType(void.class, Object.class,
+                                ResultSet.class)));
+            }
+        }
+        return MethodHandles.foldArguments(plan, constructor.asType(
+                MethodType.methodType(Object.class)));
+    }
+
+    /**
+     * Reads a column as the given type.
+     *
+     * @param javaType the type to read
+     * @param column   the column index, from 1
+     * @return a handle of type {@code (ResultSet)javaType}
+     */
+    private static MethodHandle getter(final Class<?> javaType,
+                                       final int column) {
+        Class<?> primitive = PRIMITIVES.get(javaType);
+        MethodHandle getter;
+        if (primitive != null) {
+            getter = MethodHandles.foldArguments(NULLABLE,
+                    typed(primitive, column).asType(MethodType.methodType(
+                            Object.class, ResultSet.class)));
+        } else if (GETTERS.containsKey(javaType)) {
+            return typed(javaType, column);
+        } else {
+            getter = MethodHandles.insertArguments(GET_OBJECT, 1, column,
+                    javaType);
+        }
+        return getter.asType(MethodType.methodType(javaType,
+                ResultSet.class));
+    }
+
+    /**
+     * Binds the typed getter of ResultSet to a column.
+     *
+     * @param javaType a type with a getter in {@link #GETTERS}
+     * @param column   the column index, from 1
+     * @return a handle of type {@code (ResultSet)javaType}
+     */
+    private static MethodHandle typed(final Class<?> javaType,
+                                      final int column) {
+        try {
+            return MethodHandles.insertArguments(LOOKUP.findVirtual(
+                    ResultSet.class, GETTERS.get(javaType),
+                    MethodType.methodType(javaType, int.class)), 1, column);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the value read, or null if it was SQL NULL.
+     *
+     * @param value the value read
+     * @param rs    the ResultSet it was read from
+     * @return the value, or null
+     * @throws SQLException if the ResultSet is closed
+     */
+    private static Object nullable(final Object value, final ResultSet rs)
+            throws SQLException {
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * Whether a method is a public instance setter with one parameter.
+     *
+     * @param method the method
+     * @return true if it is a setter
+     */
+    private static boolean isSetter(final Method method) {
+        return method.getName().startsWith("set")
+                && method.getName().length() > "set".length()
+                && method.getParameterCount() == 1
+                && !Modifier.isStatic(method.getModifiers());
+    }
+
+    /**
+     * Normalises a column label or property name for matching.
+     *
+     * @param name the label or name
+     * @return lower case, without underscores
+     */
+    private static String normalise(final String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The row handle of a ResultSet.
+     *
+     * @param resultSet the ResultSet, weakly referenced
+     * @param plan      the row handle for its columns
+     */
+    private record Layout(WeakReference<ResultSet> resultSet,
+                          MethodHandle plan) {
+    }
+}
@@ -0,0 +1,288 @@
+package org.tamilnadujug.sql;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps each row to a Java object of type T, reading columns by label
+ * through a {@link Row}. Labels are resolved to column indexes once per
+ * column layout rather than by the driver on every read, which matters for
+ * wide rows. Adapt it with {@link RowMapper#byName(NamedRowMapper)}.
+ *
+ * <p>Usage Example:</p>
+ * <pre>
+ * RowMapper&lt;Movie&gt; mapper = RowMapper.byName(row -&gt; new Movie(
+ *         row.getShort("id"),
+ *         row.getString("title"),
+ *         row.getString("directed_by")));
+ * </pre>
+ *
+ * @param <T> the type of object to map from the row
+ */
+@FunctionalInterface
+public interface NamedRowMapper<T> {
+
+    /**
+     * Maps the current row to an object of type T.
+     *
+     * @param row the current row
+     * @return mapped object of type T
+     * @throws SQLException if an error occurs during mapping
+     */
+    T get(Row row) throws SQLException;
+
+    /**
+     * The current row of a ResultSet, read by column label. Labels match
+     * exactly, or otherwise ignoring case; the first column with a label
+     * wins. A row accessor serves every row of its ResultSet, which it
+     * references weakly, so that a mapper keeping the accessor does not
+     * keep the ResultSet reachable once it is closed.
+     */
+    final class Row {
+
+        /**
+         * The ResultSet.
+         */
+        private final WeakReference<ResultSet> rs;
+
+        /**
+         * Column indexes by label.
+         */
+        private final Map<String, Integer> indexes;
+
+        /**
+         * Column indexes by lower case label.
+         */
+        private final Map<String, Integer> folded;
+
+        /**
+         * Creates a row accessor.
+         *
+         * @param theRs      the ResultSet
+         * @param theIndexes column indexes by label
+         * @param theFolded  column indexes by lower case label
+         */
+        Row(final ResultSet theRs,
+            final Map<String, Integer> theIndexes,
+            final Map<String, Integer> theFolded) {
+            this.rs = new WeakReference<>(theRs);
+            this.indexes = theIndexes;
+            this.folded = theFolded;
+        }
+
+        /**
+         * The underlying ResultSet, for reads by index.
+         *
+         * @return the ResultSet, or null once it is no longer reachable,
+         *         which cannot happen while its rows are mapped
+         */
+        public ResultSet resultSet() {
+            return rs.get();
+        }
+
+        /**
+         * Returns the index of a column.
+         *
+         * @param label the column label
+         * @return the column index, from 1
+         * @throws SQLException if no column has the label
+         */
+        public int index(final String label) throws SQLException {
+            Integer index = indexes.get(label);
+            if (index == null) {
+                index = folded.get(label.toLowerCase(Locale.ROOT));
+                if (index == null) {
+                    throw new SQLException("No column labelled " + label);
+                }
+            }
+            return index;
+        }
+
+        /**
+         * Whether the last column read was SQL NULL.
+         *
+         * @return true if it was NULL
+         * @throws SQLException if the ResultSet is closed
+         */
+        public boolean wasNull() throws SQLException {
+            return resultSet().wasNull();
+        }
+
+        /**
+         * Reads a column as a String.
+         *
+         * @param label the column label
+         * @return the value, or null
+         * @throws SQLException if the column cannot be read
+         */
+        public String getString(final String label) throws SQLException {
+            return resultSet().getString(index(label));
+        }
+
+        /**
+         * Reads a column as an int.
+         *
+         * @param label the column label
+         * @return the value, or 0 if NULL
+         * @throws SQLException if the column cannot be read
+         */
+        public int getInt(final String label) throws SQLException {
+            return resultSet().getInt(index(label));
+        }
+
+        /**
+         * Reads a column as a long.
+         *
+         * @param label the column label
+         * @return the value, or 0 if NULL
+         * @throws SQLException if the column cannot be read
+         */
+        public long getLong(final String label) throws SQLException {
+            return resultSet().getLong(index(label));
+        }
+
+        /**
+         * Reads a column as a short.
+         *
+         * @param label the column label
+         * @return the value, or 0 if NULL
+         * @throws SQLException if the column cannot be read
+         */
+        public short getShort(final String label) throws SQLException {
+            return resultSet().getShort(index(label));
+        }
+
+        /**
+         * Reads a column as a byte.
+         *
+         * @param label the column label
+         * @return the value, or 0 if NULL
+         * @throws SQLException if the column cannot be read
+         */
+        public byte getByte(final String label) throws SQLException {
+            return resultSet().getByte(index(label));
+        }
+
+        /**
+         * Reads a column as a double.
+         *
+         * @param label the column label
+         * @return the value, or 0 if NULL
+         * @throws SQLException if the column cannot be read
+         */
+        public double getDouble(final String label) throws SQLException {
+            return resultSet().getDouble(index(label));
+        }
+
+        /**
+         * Reads a column as a float.
+         *
+         * @param label the column label
+         * @return the value, or 0 if NULL
+         * @throws SQLException if the column cannot be read
+         */
+        public float getFloat(final String label) throws SQLException {
+            return resultSet().getFloat(index(label));
+        }
+
+        /**
+         * Reads a column as a boolean.
+         *
+         * @param label the column label
+         * @return the value, or false if NULL
+         * @throws SQLException if the column cannot be read
+         */
+        public boolean getBoolean(final String label) throws SQLException {
+            return resultSet().getBoolean(index(label));
+        }
+
+        /**
+         * Reads a column as a BigDecimal.
+         *
+         * @param label the column label
+         * @return the value, or null
+         * @throws SQLException if the column cannot be read
+         */
+        public BigDecimal getBigDecimal(final String label)
+                throws SQLException {
+            return resultSet().getBigDecimal(index(label));
+        }
+
+        /**
+         * Reads a column as bytes.
+         *
+         * @param label the column label
+         * @return the value, or null
+         * @throws SQLException if the column cannot be read
+         */
+        public byte[] getBytes(final String label) throws SQLException {
+            return resultSet().getBytes(index(label));
+        }
+
+        /**
+         * Reads a column as a Date.
+         *
+         * @param label the column label
+         * @return the value, or null
+         * @throws SQLException if the column cannot be read
+         */
+        public Date getDate(final String label) throws SQLException {
+            return resultSet().getDate(index(label));
+        }
+
+        /**
+         * Reads a column as a Time.
+         *
+         * @param label the column label
+         * @return the value, or null
+         * @throws SQLException if the column cannot be read
+         */
+        public Time getTime(final String label) throws SQLException {
+            return resultSet().getTime(index(label));
+        }
+
+        /**
+         * Reads a column as a Timestamp.
+         *
+         * @param label the column label
+         * @return the value, or null
+         * @throws SQLException if the column cannot be read
+         */
+        public Timestamp getTimestamp(final String label)
+                throws SQLException {
+            return resultSet().getTimestamp(index(label));
+        }
+
+        /**
+         * Reads a column as an Object.
+         *
+         * @param label the column label
+         * @return the value, or null
+         * @throws SQLException if the column cannot be read
+         */
+        public Object getObject(final String label) throws SQLException {
+            return resultSet().getObject(index(label));
+        }
+
+        /**
+         * Reads a column as the given type.
+         *
+         * @param label the column label
+         * @param type  the type to read
+         * @param <V>   the type to read
+         * @return the value, or null
+         * @throws SQLException if the column cannot be read as the type
+         */
+        public <V> V getObject(final String label, final Class<V> type)
+                throws SQLException {
+            return resultSet().getObject(index(label), type);
+        }
+    }
+}
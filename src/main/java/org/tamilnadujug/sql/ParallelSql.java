@@ -0,0 +1,325 @@
+package org.tamilnadujug.sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * SQL operation that runs independent SQL operations concurrently, each on
+ * its own Connection from a {@link DataSource}, with at most a given
+ * number running at a time. The first failure cancels the other
+ * operations, including their running statements, and is rethrown once
+ * all of them have ended, so that none holds a Connection afterwards. The
+ * results of operations that completed are closed if they are
+ * {@link AutoCloseable}, such as a Stream of rows.
+ *
+ * <p>When executed with a single {@link Connection}, for example inside a
+ * transaction, the operations run one after another on it.</p>
+ *
+ * @param <R> the type of the combined result
+ */
+final class ParallelSql<R> implements Sql<R> {
+
+    /**
+     * The operations to run.
+     */
+    private final List<? extends Sql<?>> sqls;
+
+    /**
+     * Maximum number of operations running at a time.
+     */
+    private final int parallelism;
+
+    /**
+     * Combines the results, in the order of the operations.
+     */
+    private final Function<List<Object>, R> combiner;
+
+    /**
+     * Creates a parallel SQL operation.
+     *
+     * @param theSqls        the operations to run
+     * @param theParallelism the maximum number running at a time
+     * @param theCombiner    combines the results
+     */
+    ParallelSql(final List<? extends Sql<?>> theSqls,
+                final int theParallelism,
+                final Function<List<Object>, R> theCombiner) {
+        if (theParallelism < 1) {
+            throw new IllegalArgumentException(
+                    "parallelism must be positive: " + theParallelism);
+        }
+        this.sqls = List.copyOf(theSqls);
+        this.parallelism = theParallelism;
+        this.combiner = theCombiner;
+    }
+
+    /**
+     * Runs the operations one after another on the given connection.
+     *
+     * @param connection JDBC connection to use for execution
+     * @return the combined result
+     * @throws SQLException if an operation fails
+     */
+    @Override
+    public R execute(final Connection connection) throws SQLException {
+        List<Object> results = new ArrayList<>(sqls.size());
+        for (Sql<?> sql : sqls) {
+            results.add(sql.execute(connection));
+        }
+        return combiner.apply(results);
+    }
+
+    /**
+     * Runs the operations concurrently, each on a Connection from the given
+     * DataSource.
+     *
+     * @param dataSource JDBC DataSource to use for execution
+     * @return the combined result
+     * @throws SQLException the first failure of an operation
+     */
+    @Override
+    public R execute(final DataSource dataSource) throws SQLException {
+        Executor executor = new BoundedExecutor(
+                AsyncExecution.DEFAULT_EXECUTOR, parallelism);
+        List<Branch> branches = new ArrayList<>(sqls.size());
+        List<CompletableFuture<?>> futures = new ArrayList<>(sqls.size());
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(sqls.size());
+        if (sqls.isEmpty()) {
+            done.complete(null);
+        }
+        for (Sql<?> sql : sqls) {
+            Branch branch = new Branch(sql);
+            CompletableFuture<?> future = branch.executeAsync(dataSource,
+                    task -> executor.execute(branch.tracking(task)));
+            future.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    done.completeExceptionally(failure);
+                } else if (remaining.decrementAndGet() == 0) {
+                    done.complete(null);
+                }
+            });
+            branches.add(branch);
+            futures.add(future);
+        }
+        try {
+            done.get();
+        } catch (ExecutionException e) {
+            throw rethrow(shutdown(futures, branches, e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw shutdown(futures, branches, new SQLException(
+                    "Interrupted while waiting for results", e));
+        }
+        List<Object> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<?> future : futures) {
+            results.add(future.join());
+        }
+        return combiner.apply(results);
+    }
+
+    /**
+     * Cancels the operations, waits for all of them to end, and closes the
+     * results of those that completed, such as a Stream holding its
+     * Connection. Failures to close are added to the given failure.
+     *
+     * @param futures  the futures of the operations
+     * @param branches the operations
+     * @param failure  the failure to rethrow
+     * @param <E>      the type of failure
+     * @return the failure
+     */
+    private static <E extends Throwable> E shutdown(
+            final List<CompletableFuture<?>> futures,
+            final List<Branch> branches,
+            final E failure) {
+        futures.forEach(future -> future.cancel(true));
+        for (Branch branch : branches) {
+            branch.ended.join();
+            if (branch.result instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        return failure;
+    }
+
+    /**
+     * Rethrows the failure of an operation.
+     *
+     * @param failure the failure, an SQLException or unchecked
+     * @return never returns normally
+     * @throws SQLException if the failure is one
+     */
+    private static SQLException rethrow(final Throwable failure)
+            throws SQLException {
+        if (failure instanceof SQLException sqlException) {
+            throw sqlException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        throw (RuntimeException) failure;
+    }
+
+    /**
+     * One of the operations. It keeps its result even when its future was
+     * cancelled before it completed, and tells when its task has ended.
+     */
+    private static final class Branch implements Sql<Object> {
+
+        /**
+         * The operation.
+         */
+        private final Sql<?> sql;
+
+        /**
+         * Completed when the task running the operation has ended.
+         */
+        private final CompletableFuture<Void> ended
+                = new CompletableFuture<>();
+
+        /**
+         * The result of the operation, once it returned.
+         */
+        private volatile Object result;
+
+        /**
+         * Creates a branch.
+         *
+         * @param theSql the operation
+         */
+        private Branch(final Sql<?> theSql) {
+            this.sql = theSql;
+        }
+
+        /**
+         * Wraps the task running the operation so that it completes
+         * {@link #ended} however it ends.
+         *
+         * @param task the task
+         * @return the wrapped task
+         */
+        private Runnable tracking(final Runnable task) {
+            return () -> {
+                try {
+                    task.run();
+                } finally {
+                    ended.complete(null);
+                }
+            };
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object execute(final Connection connection)
+                throws SQLException {
+            result = sql.execute(connection);
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object execute(final DataSource dataSource)
+                throws SQLException {
+            result = sql.execute(dataSource);
+            return result;
+        }
+    }
+
+    /**
+     * Runs tasks on another executor, at most a given number at a time,
+     * queuing the others.
+     */
+    private static final class BoundedExecutor implements Executor {
+
+        /**
+         * Executor the tasks run on.
+         */
+        private final Executor executor;
+
+        /**
+         * Tasks waiting for a permit.
+         */
+        private final Deque<Runnable> queue = new ArrayDeque<>();
+
+        /**
+         * Number of tasks that can still start.
+         */
+        private int permits;
+
+        /**
+         * Creates a bounded executor.
+         *
+         * @param theExecutor the executor the tasks run on
+         * @param thePermits  the maximum number of tasks running at a time
+         */
+        private BoundedExecutor(final Executor theExecutor,
+                                final int thePermits) {
+            this.executor = theExecutor;
+            this.permits = thePermits;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void execute(final Runnable task) {
+            synchronized (this) {
+                if (permits == 0) {
+                    queue.add(task);
+                    return;
+                }
+                permits--;
+            }
+            start(task);
+        }
+
+        /**
+         * Starts a task, and the next queued one once it ends.
+         *
+         * @param task the task
+         */
+        private void start(final Runnable task) {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    next();
+                }
+            });
+        }
+
+        /**
+         * Starts the next queued task, or returns the permit.
+         */
+        private void next() {
+            Runnable task;
+            synchronized (this) {
+                task = queue.poll();
+                if (task == null) {
+                    permits++;
+                    return;
+                }
+            }
+            start(task);
+        }
+    }
+}
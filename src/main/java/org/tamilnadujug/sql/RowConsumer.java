@@ -0,0 +1,20 @@
+package org.tamilnadujug.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Consumes each row of a JDBC ResultSet as it is read, for queries whose
+ * rows are aggregated or written elsewhere rather than kept.
+ */
+@FunctionalInterface
+public interface RowConsumer {
+
+    /**
+     * Consumes the current row of the result set.
+     *
+     * @param rs the ResultSet, positioned on the row
+     * @throws SQLException if an error occurs while reading the row
+     */
+    void accept(ResultSet rs) throws SQLException;
+}
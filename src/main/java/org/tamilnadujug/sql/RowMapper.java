@@ -91,6 +91,54 @@ public interface RowMapper<T> {
     RowMapper<Object> OBJECT_MAPPER
             = rs -> rs.getObject(1);
 
+    /**
+     * Returns a mapper of rows to a record, matching column labels to
+     * record components ignoring case and underscores, so that
+     * {@code directed_by} maps to {@code directedBy}. Every component must
+     * have a column; other columns are ignored. Columns are resolved once
+     * per column layout and read with typed getters, such as
+     * {@code getLong} for a {@code long} component, into the canonical
+     * constructor.
+     *
+     * @param type the record class
+     * @param <R>  the type of record
+     * @return the shared mapper of the class
+     * @throws IllegalArgumentException if the class is not an accessible
+     *                                  record
+     */
+    static <R extends Record> RowMapper<R> forRecord(final Class<R> type) {
+        return MethodHandleMapper.forRecord(type);
+    }
+
+    /**
+     * Returns a mapper of rows to a bean, created with its no-arg
+     * constructor, calling the setter of each column that has one. Column
+     * labels are matched to setters like {@link #forRecord(Class)}; columns
+     * without a setter are ignored.
+     *
+     * @param type the bean class
+     * @param <B>  the type of bean
+     * @return the shared mapper of the class
+     * @throws IllegalArgumentException if the class has no accessible
+     *                                  no-arg constructor
+     */
+    static <B> RowMapper<B> forBean(final Class<B> type) {
+        return MethodHandleMapper.forBean(type);
+    }
+
+    /**
+     * Returns a mapper reading columns by label through a row accessor.
+     * Labels are resolved to column indexes once per ResultSet, and the
+     * resolution is reused while later ResultSets have the same labels, so
+     * hold the returned mapper with the query to resolve its columns once.
+     *
+     * @param mapper the mapper reading columns by label
+     * @param <T>    the type of object to map from each row
+     * @return the mapper
+     */
+    static <T> RowMapper<T> byName(final NamedRowMapper<T> mapper) {
+        return new LabelIndexMapper<>(mapper);
+    }
 
         /**
          * Maps a single row of the result set to an object of type T.
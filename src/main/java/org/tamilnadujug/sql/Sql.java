@@ -3,6 +3,11 @@ package org.tamilnadujug.sql;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
 
 /**
  * Represents a generic SQL operation that can be executed using a JDBC
@@ -33,4 +38,104 @@ public interface Sql<R> {
             return execute(conn);
         }
     }
+
+    /**
+     * Executes the SQL operation asynchronously using a Connection from the
+     * given DataSource. It runs on a virtual thread when the JDK supports
+     * them, otherwise on a shared pool of daemon threads.
+     *
+     * @param dataSource JDBC DataSource to use for execution
+     * @return future result of the SQL operation
+     * @see #executeAsync(DataSource, Executor)
+     */
+    default CompletableFuture<R> executeAsync(final DataSource dataSource) {
+        return executeAsync(dataSource, AsyncExecution.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Executes the SQL operation asynchronously on the given executor,
+     * using a Connection from the given DataSource.
+     *
+     * <p>Cancelling the returned future cancels the statement being
+     * executed through {@link java.sql.Statement#cancel()}, and stops the
+     * operation from creating further statements. Cancelling a stage
+     * derived from the future does not cancel the statement.</p>
+     *
+     * @param dataSource JDBC DataSource to use for execution
+     * @param executor   executor to run the SQL operation on
+     * @return future result of the SQL operation
+     */
+    default CompletableFuture<R> executeAsync(final DataSource dataSource,
+                                              final Executor executor) {
+        return AsyncExecution.execute(this, dataSource, executor);
+    }
+
+    /**
+     * Combines independent SQL operations into one that runs them
+     * concurrently, each on its own Connection, when executed with a
+     * DataSource. The first failure cancels the other operations and is
+     * rethrown. Executed with a Connection, they run one after another.
+     *
+     * @param sqls the operations to run
+     * @param <T>  the type of result of the operations
+     * @return an SQL operation returning the results, in order
+     * @see #parallel(List, int)
+     */
+    static <T> Sql<List<T>> parallel(final List<? extends Sql<? extends T>>
+                                             sqls) {
+        return parallel(sqls, Math.max(1, sqls.size()));
+    }
+
+    /**
+     * Combines independent SQL operations into one that runs them
+     * concurrently, at most {@code parallelism} at a time, each on its own
+     * Connection, when executed with a DataSource. The first failure
+     * cancels the other operations and is rethrown once they have all
+     * ended; results that completed and are {@link AutoCloseable} are
+     * closed. Executed with a Connection, they run one after another.
+     *
+     * <p>Usage Example:</p>
+     * <pre>
+     * List&lt;Integer&gt; counts = Sql.parallel(List.of(
+     *         SqlBuilder.sql("SELECT COUNT(*) FROM movie").queryForInt(),
+     *         SqlBuilder.sql("SELECT COUNT(*) FROM director").queryForInt()),
+     *         4)
+     *     .execute(dataSource);
+     * </pre>
+     *
+     * @param sqls        the operations to run
+     * @param parallelism the maximum number of connections used at a time
+     * @param <T>         the type of result of the operations
+     * @return an SQL operation returning the results, in order
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Sql<List<T>> parallel(final List<? extends Sql<? extends T>>
+                                             sqls,
+                                     final int parallelism) {
+        return new ParallelSql<>(sqls, parallelism,
+                results -> (List<T>) Collections.unmodifiableList(results));
+    }
+
+    /**
+     * Combines two independent SQL operations into one that runs them
+     * concurrently, each on its own Connection, when executed with a
+     * DataSource, and combines their results. The first failure cancels the
+     * other operation and is rethrown.
+     *
+     * @param first    the first operation
+     * @param second   the second operation
+     * @param combiner combines the results
+     * @param <A>      the type of result of the first operation
+     * @param <B>      the type of result of the second operation
+     * @param <T>      the type of the combined result
+     * @return an SQL operation returning the combined result
+     */
+    @SuppressWarnings("unchecked")
+    static <A, B, T> Sql<T> all(final Sql<A> first,
+                                final Sql<B> second,
+                                final BiFunction<A, B, T> combiner) {
+        return new ParallelSql<>(List.of(first, second), 2,
+                results -> combiner.apply((A) results.get(0),
+                        (B) results.get(1)));
+    }
 }
@@ -0,0 +1,43 @@
+package org.tamilnadujug.sql;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a record for which the {@code sql-builder-processor} annotation
+ * processor generates, at compile time, a row mapper and parameter binders.
+ * For a record {@code Movie} it generates {@code MovieSqlRow} in the same
+ * package, with:
+ *
+ * <ul>
+ *     <li>{@code MAPPER}, a {@link RowMapper} reading each component from
+ *     the column labelled with its name in snake case, {@code directedBy}
+ *     from {@code directed_by}, with typed getters;</li>
+ *     <li>{@code COLUMNS}, those labels separated by commas;</li>
+ *     <li>{@code params(builder, row)}, binding the components of a row
+ *     in declaration order to a prepared SQL builder;</li>
+ *     <li>{@code bind(row, binder)}, doing the same for a batch.</li>
+ * </ul>
+ *
+ * <p>Nothing is resolved at run time, so the generated code needs no
+ * reflection.</p>
+ *
+ * <p>Usage Example:</p>
+ * <pre>
+ * &#64;SqlRow
+ * public record Movie(Short id, String title, String directedBy) { }
+ *
+ * List&lt;Movie&gt; movies = SqlBuilder
+ *     .sql("SELECT " + MovieSqlRow.COLUMNS + " FROM movie")
+ *     .queryForList(MovieSqlRow.MAPPER)
+ *     .execute(dataSource);
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface SqlRow {
+}
@@ -0,0 +1,36 @@
+package org.tamilnadujug.sql;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps an {@link SQLException} with an unchecked exception. Used where a
+ * JDBC failure has to cross an API that cannot throw checked exceptions,
+ * such as {@link java.util.stream.Stream} or
+ * {@link java.util.function.Consumer}.
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    /**
+     * Serial version of this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param cause the {@code SQLException}
+     */
+    public UncheckedSQLException(final SQLException cause) {
+        super(cause);
+    }
+
+    /**
+     * Returns the cause of this exception.
+     *
+     * @return the {@code SQLException} which is the cause of this exception
+     */
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
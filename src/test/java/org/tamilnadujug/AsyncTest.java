@@ -0,0 +1,194 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tamilnadujug.sql.Sql;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncTest extends BaseTest {
+
+    private static final String INSERT_MOVIE = "INSERT INTO movie(title, directed_by) VALUES (?, ?)";
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void init() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testExecuteAsync() throws Exception {
+        Assertions.assertEquals(1, SqlBuilder.sql("SELECT 1").queryForInt().executeAsync(dataSource).get());
+
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 10)
+                .mapToObj(i -> SqlBuilder.prepareSql("SELECT ?::int").param(i).queryForInt()
+                        .executeAsync(dataSource, executor))
+                .toList();
+        Assertions.assertEquals(45, futures.stream().mapToInt(CompletableFuture::join).sum());
+
+        SqlBuilder.prepareSql(INSERT_MOVIE).param("Dunkirk").param("Nolan").execute(dataSource);
+        try (Stream<String> titles = SqlBuilder.sql("SELECT title FROM movie")
+                .queryForStream(rs -> rs.getString(1))
+                .executeAsync(dataSource, executor)
+                .get()) {
+            Assertions.assertEquals(List.of("Dunkirk"), titles.toList());
+        }
+    }
+
+    @Test
+    void testFailure() {
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> SqlBuilder
+                .sql("SELECT * FROM no_such_table")
+                .queryForInt()
+                .executeAsync(dataSource, executor)
+                .get());
+        Assertions.assertInstanceOf(SQLException.class, exception.getCause());
+
+        CompletableFuture<Integer> rejected = SqlBuilder.sql("SELECT 1").queryForInt()
+                .executeAsync(dataSource, task -> {
+                    throw new RejectedExecutionException();
+                });
+        CompletionException completion = assertThrows(CompletionException.class, rejected::join);
+        Assertions.assertInstanceOf(RejectedExecutionException.class, completion.getCause());
+    }
+
+    @Test
+    void testCancelRunningStatement() throws Exception {
+        CompletableFuture<Object> future = SqlBuilder.sql("SELECT pg_sleep(30)")
+                .queryForObject()
+                .executeAsync(dataSource, executor);
+        awaitSleeping();
+
+        Assertions.assertTrue(future.cancel(true));
+        Assertions.assertTrue(future.isCancelled());
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assertions.assertFalse(future.cancel(true));
+    }
+
+    @Test
+    void testCancelBeforeStatement() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Sql<Integer> insert = connection -> {
+            started.countDown();
+            await(cancelled);
+            return SqlBuilder.prepareSql(INSERT_MOVIE).param("Dunkirk").param("Nolan").execute(connection);
+        };
+
+        CompletableFuture<Integer> future = insert.executeAsync(dataSource, executor);
+        started.await();
+        Assertions.assertTrue(future.cancel(false));
+        cancelled.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(0, SqlBuilder.sql("SELECT COUNT(*) FROM movie").queryForInt().execute(dataSource));
+
+        CompletableFuture<Integer> notStarted = insert.executeAsync(dataSource, task -> {
+        });
+        Assertions.assertTrue(notStarted.cancel(false));
+    }
+
+    @Test
+    void testCancelSkipsQueuedTask() {
+        Runnable[] queued = new Runnable[1];
+        CompletableFuture<Integer> future = SqlBuilder.prepareSql(INSERT_MOVIE)
+                .param("Dunkirk")
+                .param("Nolan")
+                .executeAsync(dataSource, task -> queued[0] = task);
+
+        Assertions.assertTrue(future.cancel(false));
+        queued[0].run();
+        Assertions.assertTrue(future.isCancelled());
+    }
+
+    @Test
+    void testCancelFinishedStatement() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Sql<Integer> sql = connection -> {
+            try (Statement statement = connection.createStatement()) {
+                started.countDown();
+                await(cancelled);
+                return statement.getMaxRows();
+            }
+        };
+
+        CompletableFuture<Integer> future = sql.executeAsync(failingCancel(), executor);
+        started.await();
+        Assertions.assertTrue(future.cancel(true));
+        cancelled.countDown();
+        Assertions.assertTrue(future.isCancelled());
+    }
+
+    private void awaitSleeping() throws SQLException, InterruptedException {
+        Sql<Integer> sleeping = SqlBuilder.sql("""
+                SELECT COUNT(*) FROM pg_stat_activity
+                WHERE state = 'active' AND query = 'SELECT pg_sleep(30)'
+                """).queryForInt();
+        while (sleeping.execute(dataSource) == 0) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DataSource failingCancel() {
+        return proxy(DataSource.class, dataSource);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("cancel")) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Connection) {
+                        return proxy(Connection.class, result);
+                    } else if (result instanceof Statement) {
+                        return proxy(Statement.class, result);
+                    }
+                    return result;
+                });
+    }
+}
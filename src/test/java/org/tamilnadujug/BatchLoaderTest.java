@@ -0,0 +1,207 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tamilnadujug.sql.Sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchLoaderTest extends BaseTest {
+
+    private static final String FIND_MOVIES = "SELECT id, title, directed_by FROM movie WHERE id IN (?)";
+
+    private RecordingDataSource recorder;
+
+    @BeforeEach
+    void insertMovies() throws SQLException {
+        for (String title : List.of("Dunkirk", "Inception", "Tenet", "Memento")) {
+            SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?)")
+                    .param(title)
+                    .param("Nolan")
+                    .execute(dataSource);
+        }
+        recorder = new RecordingDataSource(dataSource);
+    }
+
+    @Test
+    void testLookupsShareOneQuery() throws SQLException {
+        List<Integer> sizes = new ArrayList<>();
+        BatchLoader<Short, Movie> movies = BatchLoader.of(FIND_MOVIES, rs -> rs.getShort(1), BaseTest::mapMovie)
+                .listener((size, elapsed) -> {
+                    Assertions.assertTrue(elapsed.compareTo(Duration.ZERO) > 0);
+                    sizes.add(size);
+                });
+        List<Sql<Movie>> lookups = List.of(movies.load((short) 3), movies.load((short) 1),
+                movies.load((short) 42), movies.load((short) 3));
+
+        try (Connection connection = recorder.dataSource().getConnection()) {
+            Assertions.assertEquals("Tenet", lookups.get(0).execute(connection).title());
+            Assertions.assertEquals("Dunkirk", lookups.get(1).execute(connection).title());
+            Assertions.assertNull(lookups.get(2).execute(connection));
+            Assertions.assertEquals("Tenet", lookups.get(3).execute(connection).title());
+        }
+
+        Assertions.assertEquals(1, recorder.count("prepareStatement(SELECT id, title, directed_by FROM movie "
+                + "WHERE id IN (?, ?, ?))"));
+        Assertions.assertEquals(List.of(3), sizes);
+        Assertions.assertEquals(1, movies.batches());
+        Assertions.assertEquals(3, movies.keys());
+    }
+
+    @Test
+    void testMaxBatchSize() throws SQLException {
+        BatchLoader<Short, Movie> movies = BatchLoader.of(FIND_MOVIES, rs -> rs.getShort(1), BaseTest::mapMovie)
+                .maxBatchSize(2);
+        List<Sql<Movie>> lookups = List.of(movies.load((short) 1), movies.load((short) 2),
+                movies.load((short) 3));
+
+        List<String> titles = new ArrayList<>();
+        for (Sql<Movie> lookup : lookups) {
+            titles.add(lookup.execute(dataSource).title());
+        }
+
+        Assertions.assertEquals(List.of("Dunkirk", "Inception", "Tenet"), titles);
+        Assertions.assertEquals(2, movies.batches());
+        Assertions.assertEquals(3, movies.keys());
+    }
+
+    @Test
+    void testLoadedValuesAreKept() throws SQLException {
+        BatchLoader<Short, Movie> movies = BatchLoader.of(FIND_MOVIES, rs -> rs.getShort(1), BaseTest::mapMovie);
+        Assertions.assertEquals("Memento", movies.load((short) 4).execute(recorder.dataSource()).title());
+        Assertions.assertEquals("Memento", movies.load((short) 4).execute(recorder.dataSource()).title());
+        Assertions.assertEquals(1, recorder.count("getConnection()"));
+
+        movies.clear();
+        Assertions.assertEquals("Memento", movies.load((short) 4).execute(dataSource).title());
+        Assertions.assertEquals(2, movies.batches());
+    }
+
+    @Test
+    void testQueryRunsOutsideTheLock() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BatchLoader<Short, Movie> movies = BatchLoader.of(FIND_MOVIES, rs -> {
+            reading.countDown();
+            await(release);
+            return rs.getShort(1);
+        }, BaseTest::mapMovie);
+        Sql<Movie> dunkirk = movies.load((short) 1);
+        Sql<Movie> tenet = movies.load((short) 3);
+        DataSource recording = recorder.dataSource();
+
+        AtomicReference<Object> leader = new AtomicReference<>();
+        Thread leading = execute(dunkirk, recording, leader);
+        reading.await();
+        AtomicReference<Object> follower = new AtomicReference<>();
+        Thread following = awaitWaiting(execute(tenet, recording, follower));
+        AtomicReference<Object> interrupted = new AtomicReference<>();
+        Thread interrupting = awaitWaiting(execute(tenet, recording, interrupted));
+        interrupting.interrupt();
+        interrupting.join(5000);
+        Assertions.assertEquals(0, movies.batches());
+        Assertions.assertEquals(1, recorder.count("getConnection()"));
+
+        release.countDown();
+        leading.join(5000);
+        following.join(5000);
+        Assertions.assertEquals("Dunkirk", ((Movie) leader.get()).title());
+        Assertions.assertEquals("Tenet", ((Movie) follower.get()).title());
+        Assertions.assertInstanceOf(InterruptedException.class, ((SQLException) interrupted.get()).getCause());
+        Assertions.assertEquals(1, movies.batches());
+        Assertions.assertEquals(1, recorder.count("getConnection()"));
+    }
+
+    @Test
+    void testFailuresAreShared() throws Exception {
+        assertShared(new SQLException("boom"));
+        assertShared(new IllegalStateException("boom"));
+        assertShared(new AssertionError("boom"));
+    }
+
+    @Test
+    void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> BatchLoader.of("SELECT 1", rs -> 1, rs -> 1));
+        assertThrows(IllegalArgumentException.class, () -> BatchLoader.of(
+                "SELECT * FROM movie WHERE id IN (?) AND title = ?", rs -> 1, rs -> 1));
+        assertThrows(IllegalArgumentException.class, () -> BatchLoader.of(FIND_MOVIES, rs -> 1, rs -> 1)
+                .maxBatchSize(0));
+    }
+
+    private void assertShared(Throwable failure) throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean failed = new AtomicBoolean();
+        BatchLoader<Short, Movie> movies = BatchLoader.of(FIND_MOVIES, rs -> {
+            if (!failed.getAndSet(true)) {
+                reading.countDown();
+                await(release);
+                if (failure instanceof SQLException sqlException) {
+                    throw sqlException;
+                } else if (failure instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw (Error) failure;
+            }
+            return rs.getShort(1);
+        }, BaseTest::mapMovie);
+        Sql<Movie> dunkirk = movies.load((short) 1);
+        Sql<Movie> tenet = movies.load((short) 3);
+
+        AtomicReference<Object> leader = new AtomicReference<>();
+        Thread leading = execute(dunkirk, dataSource, leader);
+        reading.await();
+        AtomicReference<Object> follower = new AtomicReference<>();
+        Thread following = awaitWaiting(execute(tenet, dataSource, follower));
+        release.countDown();
+        leading.join(5000);
+        following.join(5000);
+
+        Assertions.assertSame(failure, leader.get());
+        Assertions.assertSame(failure, follower.get());
+        Assertions.assertEquals(0, movies.batches());
+        Assertions.assertEquals("Tenet", tenet.execute(dataSource).title());
+        Assertions.assertEquals("Dunkirk", dunkirk.execute(dataSource).title());
+        Assertions.assertEquals(1, movies.batches());
+        Assertions.assertEquals(2, movies.keys());
+    }
+
+    private static Thread execute(Sql<Movie> lookup, DataSource source, AtomicReference<Object> outcome) {
+        Thread thread = new Thread(() -> {
+            try {
+                outcome.set(lookup.execute(source));
+            } catch (Throwable e) {
+                outcome.set(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static Thread awaitWaiting(Thread thread) throws InterruptedException {
+        while (LockSupport.getBlocker(thread) == null) {
+            Thread.sleep(5);
+        }
+        return thread;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchSizeTest extends BaseTest {
+
+    private static final String INSERT_MOVIE = "INSERT INTO movie(title, directed_by) VALUES (?, ?)";
+
+    private RecordingDataSource recorder;
+
+    @BeforeEach
+    void init() {
+        recorder = new RecordingDataSource(dataSource);
+    }
+
+    @Test
+    void testPreparedBatchSize() throws SQLException {
+        SqlBuilder.PreparedSqlBuilder.PreparedBatch batch = SqlBuilder.prepareSql(INSERT_MOVIE)
+                .param("Movie 0")
+                .param("Nolan")
+                .addBatch();
+        for (int i = 1; i < 7; i++) {
+            batch.param("Movie " + i).param("Nolan");
+            if (i < 6) {
+                batch.addBatch();
+            }
+        }
+
+        int[] updatedRows = batch.batchSize(3).executeBatch(recorder.dataSource());
+
+        Assertions.assertArrayEquals(new int[]{1, 1, 1, 1, 1, 1, 1}, updatedRows);
+        Assertions.assertEquals(3, recorder.count("executeBatch()"));
+        Assertions.assertEquals(0, recorder.count("commit()"));
+        Assertions.assertEquals(7, countMovies());
+    }
+
+    @Test
+    void testCallableBatchSize() throws SQLException {
+        int[] updatedRows = SqlBuilder.prepareCall("CALL insert_movie_in(?, ?)")
+                .param("Dunkirk")
+                .param("Nolan")
+                .addBatch()
+                .param("Inception")
+                .param("Nolan")
+                .addBatch()
+                .param("Tenet")
+                .param("Nolan")
+                .batchSize(2)
+                .commitEachBatch()
+                .executeBatch(recorder.dataSource());
+
+        Assertions.assertEquals(3, updatedRows.length);
+        Assertions.assertEquals(2, recorder.count("executeBatch()"));
+        Assertions.assertEquals(2, recorder.count("commit()"));
+        Assertions.assertEquals(3, countMovies());
+    }
+
+    @Test
+    void testStatementBatchSize() throws SQLException {
+        int[] updatedRows = SqlBuilder
+                .sql("INSERT INTO movie(title, directed_by) VALUES ('Interstellar', 'Nolan')")
+                .addBatch("INSERT INTO movie(title, directed_by) VALUES ('Dunkirk', 'Nolan'), ('Tenet', 'Nolan')")
+                .addBatch("INSERT INTO movie(title, directed_by) VALUES ('Batman', 'Nolan')")
+                .batchSize(1)
+                .commitEachBatch()
+                .executeBatch(recorder.dataSource());
+
+        Assertions.assertArrayEquals(new int[]{1, 2, 1}, updatedRows);
+        Assertions.assertEquals(3, recorder.count("executeBatch()"));
+        Assertions.assertEquals(3, recorder.count("commit()"));
+        Assertions.assertEquals(4, countMovies());
+    }
+
+    @Test
+    void testCommitEachBatchOnFailure() throws SQLException {
+        SqlBuilder.PreparedSqlBuilder.PreparedBatch batch = SqlBuilder.prepareSql(INSERT_MOVIE)
+                .param("Dunkirk")
+                .param("Nolan")
+                .addBatch()
+                .param("Inception")
+                .param("Nolan")
+                .addBatch()
+                .paramNull()
+                .param("Nolan")
+                .batchSize(2)
+                .commitEachBatch();
+
+        assertThrows(SQLException.class, () -> batch.executeBatch(recorder.dataSource()));
+
+        Assertions.assertEquals(1, recorder.count("commit()"));
+        Assertions.assertEquals(1, recorder.count("rollback()"));
+        Assertions.assertTrue(recorder.calls().indexOf("setAutoCommit(true)")
+                > recorder.calls().indexOf("rollback()"));
+        Assertions.assertEquals(2, countMovies());
+    }
+
+    @Test
+    void testInvalidBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> SqlBuilder.prepareSql(INSERT_MOVIE)
+                .param("Dunkirk")
+                .param("Nolan")
+                .addBatch()
+                .batchSize(0));
+    }
+
+    private int countMovies() throws SQLException {
+        return SqlBuilder.sql("SELECT COUNT(*) FROM movie").queryForInt().execute(dataSource);
+    }
+}
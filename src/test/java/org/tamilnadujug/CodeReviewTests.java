@@ -5,11 +5,17 @@ import com.tngtech.archunit.core.importer.ClassFileImporter;
 import com.tngtech.archunit.lang.ArchRule;
 import org.junit.jupiter.api.Test;
 import org.tamilnadujug.sql.ParamMapper;
+import org.tamilnadujug.sql.RowConsumer;
 import org.tamilnadujug.sql.RowMapper;
 import org.tamilnadujug.sql.Sql;
 import org.tamilnadujug.sql.StatementMapper;
+import org.tamilnadujug.sql.UncheckedSQLException;
 
 import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.math.BigDecimal;
 import java.sql.CallableStatement;
 import java.sql.Connection;
@@ -17,13 +23,44 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.tngtech.archunit.lang.syntax.ArchRuleDefinition.classes;
 
@@ -57,9 +94,17 @@ class CodeReviewTests {
                         Sql.class,
                         Transaction.class,
                         RowMapper.class,
+                        RowConsumer.class,
                         StatementMapper.class,
                         ParamMapper.class,
                         SqlBuilder.class,
+                        SqlTemplate.class,
+                        StreamSql.class,
+                        Parameters.class,
+                        StatementCache.class,
+                        ChunkedBatch.class,
+                        Binder.class,
+                        UncheckedSQLException.class,
                         Boolean.class,
                         Integer.class,
                         Double.class,
@@ -69,13 +114,64 @@ class CodeReviewTests {
                         Short.class,
                         Byte.class,
                         Object.class,
+                        String.class,
                         ArrayList.class,
                         List.class,
+                        Arrays.class,
                         Iterator.class,
                         HashMap.class,
                         Map.class,
                         Function.class,
-                        UnsupportedOperationException.class);// see next section
+                        Objects.class,
+                        Math.class,
+                        Consumer.class,
+                        Spliterators.class,
+                        Stream.class,
+                        StreamSupport.class,
+                        UnsupportedOperationException.class,
+                        IllegalArgumentException.class,
+                        Class.class,
+                        Record.class,
+                        Proxy.class,
+                        Method.class,
+                        InvocationTargetException.class,
+                        LinkedHashMap.class,
+                        Collection.class,
+                        Set.class,
+                        System.class,
+                        Iterable.class,
+                        BiConsumer.class,
+                        AtomicLong.class,
+                        RetryPolicy.class,
+                        RetryPolicy.Listener.class,
+                        Duration.class,
+                        ThreadLocalRandom.class,
+                        Thread.class,
+                        TimeUnit.class,
+                        InterruptedException.class,
+                        TimedConnection.class,
+                        SQLTimeoutException.class,
+                        InvocationHandler.class,
+                        PublisherSql.class,
+                        Flow.class,
+                        Executor.class,
+                        Executors.class,
+                        ResultCache.class,
+                        Predicate.class,
+                        Collections.class,
+                        SingleFlight.class,
+                        CompletableFuture.class,
+                        ExecutionException.class,
+                        TimeoutException.class,
+                        BatchLoader.class,
+                        LinkedHashSet.class,
+                        IntConsumer.class,
+                        LongConsumer.class,
+                        DoubleConsumer.class,
+                        Collector.class,
+                        Supplier.class,
+                        ReentrantLock.class,
+                        Condition.class);// see next section
 
         rule.check(importedClasses);
     }
@@ -0,0 +1,59 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class CollectTest extends BaseTest {
+
+    @BeforeEach
+    void insertMovies() throws SQLException {
+        SqlBuilder.sql("""
+                INSERT INTO movie(title, directed_by)
+                SELECT 'Movie ' || i, 'Director ' || (i % 2) FROM generate_series(1, 5) i
+                """).execute(dataSource);
+    }
+
+    @Test
+    void testQueryForEach() throws SQLException {
+        List<String> titles = new ArrayList<>();
+
+        Assertions.assertEquals(5, SqlBuilder.sql("SELECT title FROM movie ORDER BY id")
+                .queryForEach(rs -> titles.add(rs.getString(1)))
+                .execute(dataSource));
+        Assertions.assertEquals(2, SqlBuilder.prepareSql("SELECT title FROM movie WHERE directed_by = ? ORDER BY id")
+                .param("Director 0")
+                .queryForEach(rs -> titles.add(rs.getString("title")))
+                .execute(dataSource));
+
+        Assertions.assertEquals(List.of("Movie 1", "Movie 2", "Movie 3", "Movie 4", "Movie 5", "Movie 2", "Movie 4"),
+                titles);
+    }
+
+    @Test
+    void testQueryAndCollect() throws SQLException {
+        Map<String, List<String>> byDirector = SqlBuilder.sql("SELECT id, title, directed_by FROM movie ORDER BY id")
+                .queryAndCollect(BaseTest::mapMovie, Collectors.groupingBy(Movie::directedBy,
+                        Collectors.mapping(Movie::title, Collectors.toList())))
+                .execute(dataSource);
+        Assertions.assertEquals(Map.of(
+                "Director 0", List.of("Movie 2", "Movie 4"),
+                "Director 1", List.of("Movie 1", "Movie 3", "Movie 5")), byDirector);
+
+        Assertions.assertEquals("Movie 1, Movie 3, Movie 5", SqlBuilder
+                .prepareSql("SELECT title FROM movie WHERE directed_by = ? ORDER BY id")
+                .param("Director 1")
+                .queryAndCollect(rs -> rs.getString(1), Collectors.joining(", "))
+                .execute(dataSource));
+        Assertions.assertEquals(0L, SqlBuilder.prepareSql("SELECT id FROM movie WHERE id > ?")
+                .param(100)
+                .queryAndCollect(rs -> rs.getLong(1), Collectors.counting())
+                .execute(dataSource));
+    }
+}
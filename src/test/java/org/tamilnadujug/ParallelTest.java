@@ -0,0 +1,147 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.tamilnadujug.sql.Sql;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelTest extends BaseTest {
+
+    @Test
+    void testParallel() throws SQLException {
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        DataSource counting = counting(open, maxOpen);
+
+        List<Sql<Integer>> queries = IntStream.range(0, 8)
+                .mapToObj(i -> SqlBuilder.prepareSql("SELECT ?::int FROM pg_sleep(0.1)").param(i).queryForInt())
+                .toList();
+
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), Sql.parallel(queries, 3).execute(counting));
+        Assertions.assertTrue(maxOpen.get() <= 3);
+        Assertions.assertTrue(maxOpen.get() > 1);
+        Assertions.assertEquals(0, open.get());
+
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), Sql.parallel(queries).execute(dataSource));
+        Assertions.assertEquals(List.of(), Sql.<Integer>parallel(List.of()).execute(dataSource));
+    }
+
+    @Test
+    void testAll() throws SQLException {
+        SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?)")
+                .param("Dunkirk")
+                .param("Nolan")
+                .execute(dataSource);
+
+        String summary = Sql.all(
+                        SqlBuilder.sql("SELECT COUNT(*) FROM movie").queryForInt(),
+                        SqlBuilder.sql("SELECT title FROM movie").queryForString(),
+                        (count, title) -> count + " " + title)
+                .execute(dataSource);
+
+        Assertions.assertEquals("1 Dunkirk", summary);
+        Assertions.assertEquals("1 Dunkirk", Transaction.begin(Sql.all(
+                        SqlBuilder.sql("SELECT COUNT(*) FROM movie").queryForInt(),
+                        SqlBuilder.sql("SELECT title FROM movie").queryForString(),
+                        (count, title) -> count + " " + title))
+                .execute(dataSource));
+    }
+
+    @Test
+    void testFailFast() {
+        long start = System.nanoTime();
+        SQLException exception = assertThrows(SQLException.class, () -> Sql.parallel(List.of(
+                        SqlBuilder.sql("SELECT 1 FROM pg_sleep(30)").queryForInt(),
+                        SqlBuilder.sql("SELECT 1 FROM pg_sleep(30)").queryForInt(),
+                        SqlBuilder.sql("SELECT COUNT(*) FROM no_such_table").queryForInt()))
+                .execute(dataSource));
+
+        Assertions.assertEquals("42P01", exception.getSQLState());
+        Assertions.assertTrue(System.nanoTime() - start < 10_000_000_000L);
+    }
+
+    @Test
+    void testFailureClosesCompletedResults() {
+        AtomicInteger open = new AtomicInteger();
+        DataSource counting = counting(open, new AtomicInteger());
+
+        SQLException exception = assertThrows(SQLException.class, () -> Sql.<Object>parallel(List.of(
+                        SqlBuilder.sql("SELECT i FROM generate_series(1, 10) i").queryForStream(rs -> rs.getInt(1)),
+                        SqlBuilder.sql("SELECT 1 FROM pg_sleep(30)").queryForInt(),
+                        connection -> {
+                            SqlBuilder.sql("SELECT pg_sleep(0.3)").queryForString().execute(connection);
+                            throw new SQLException("boom");
+                        }))
+                .execute(counting));
+
+        Assertions.assertEquals("boom", exception.getMessage());
+        Assertions.assertEquals(0, open.get());
+    }
+
+    @Test
+    void testUncheckedFailures() {
+        assertThrows(IllegalStateException.class, () -> Sql.parallel(List.<Sql<Integer>>of(
+                        connection -> {
+                            throw new IllegalStateException();
+                        }))
+                .execute(dataSource));
+        assertThrows(AssertionError.class, () -> Sql.parallel(List.<Sql<Integer>>of(
+                        connection -> {
+                            throw new AssertionError();
+                        }))
+                .execute(dataSource));
+        assertThrows(IllegalArgumentException.class, () -> Sql.parallel(List.of(), 0));
+    }
+
+    @Test
+    void testInterrupted() throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiting = new Thread(() -> {
+            try {
+                Sql.parallel(List.of(SqlBuilder.sql("SELECT 1 FROM pg_sleep(30)").queryForInt()))
+                        .execute(dataSource);
+            } catch (SQLException e) {
+                failure.set(e);
+            }
+        });
+        waiting.start();
+        Thread.sleep(200);
+        waiting.interrupt();
+        waiting.join(10_000);
+
+        Assertions.assertInstanceOf(InterruptedException.class, failure.get().getCause());
+    }
+
+    private static DataSource counting(AtomicInteger open, AtomicInteger maxOpen) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(dataSource, args);
+                    if (!(result instanceof Connection connection)) {
+                        return result;
+                    }
+                    maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                    return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                            new Class<?>[]{Connection.class}, (c, m, a) -> {
+                                if (m.getName().equals("close")) {
+                                    open.decrementAndGet();
+                                }
+                                try {
+                                    return m.invoke(connection, a);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                            });
+                });
+    }
+}
@@ -0,0 +1,183 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+class ParamTest extends BaseTest {
+
+    @Test
+    void testPrimitiveParams() throws SQLException {
+        RecordingDataSource recorder = new RecordingDataSource(dataSource);
+        Assertions.assertEquals("42|7|1.5|2.5|true|3|4|x", SqlBuilder
+                .prepareSql("SELECT ?::int || '|' || ?::bigint || '|' || ?::float8 || '|' "
+                        + "|| ?::float4 || '|' || ?::boolean || '|' || ?::smallint || '|' "
+                        + "|| ?::smallint || '|' || ?")
+                .param(42)
+                .param(7L)
+                .param(1.5)
+                .param(2.5f)
+                .param(true)
+                .param((short) 3)
+                .param((byte) 4)
+                .param('x')
+                .queryForString()
+                .execute(recorder.dataSource()));
+
+        Assertions.assertEquals(List.of("setInt(1, 42)", "setLong(2, 7)", "setDouble(3, 1.5)",
+                        "setFloat(4, 2.5)", "setBoolean(5, true)", "setShort(6, 3)",
+                        "setByte(7, 4)", "setString(8, x)"),
+                recorder.calls().stream()
+                        .filter(call -> call.matches("set\\w+\\(\\d+, .*"))
+                        .toList());
+    }
+
+    @Test
+    void testBoxedParams() throws SQLException {
+        Assertions.assertEquals("42|7|1.5|2.5|true|3", SqlBuilder
+                .prepareSql("SELECT ?::int || '|' || ?::bigint || '|' || ?::float8 || '|' "
+                        + "|| ?::float4 || '|' || ?::boolean || '|' || ?::smallint")
+                .param(Integer.valueOf(42))
+                .param(Long.valueOf(7L))
+                .param(Double.valueOf(1.5))
+                .param(Float.valueOf(2.5f))
+                .param(Boolean.TRUE)
+                .param(Short.valueOf((short) 3))
+                .queryForString()
+                .execute(dataSource));
+
+        Assertions.assertTrue(SqlBuilder
+                .prepareSql("SELECT ?::int IS NULL AND ?::bigint IS NULL AND ?::float8 IS NULL "
+                        + "AND ?::float4 IS NULL AND ?::boolean IS NULL AND ?::smallint IS NULL")
+                .param((Integer) null)
+                .param((Long) null)
+                .param((Double) null)
+                .param((Float) null)
+                .param((Boolean) null)
+                .param((Short) null)
+                .queryForBoolean()
+                .execute(dataSource));
+    }
+
+    @Test
+    void testManyParams() throws SQLException {
+        SqlBuilder.PreparedSqlBuilder builder = SqlBuilder.prepareSql("SELECT "
+                + String.join(" + ", IntStream.range(0, 100).mapToObj(i -> "?::int").toList()));
+        IntStream.range(0, 100).forEach(builder::param);
+
+        Assertions.assertEquals(4950, builder.queryForInt().execute(dataSource));
+    }
+
+    @Test
+    void testPrimitiveBatchParams() throws SQLException {
+        SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (? || ?, ?)")
+                .param('A')
+                .param(1)
+                .param("Nolan")
+                .addBatch()
+                .param('B')
+                .param(2L)
+                .param("Nolan")
+                .addBatch()
+                .param('C')
+                .param(3.5)
+                .param("Nolan")
+                .addBatch()
+                .param('D')
+                .param(4.5f)
+                .param("Nolan")
+                .addBatch()
+                .param('E')
+                .param(false)
+                .param("Nolan")
+                .addBatch()
+                .param('F')
+                .param((short) 6)
+                .param("Nolan")
+                .addBatch()
+                .param('G')
+                .param((byte) 7)
+                .param("Nolan")
+                .executeBatch(dataSource);
+
+        Assertions.assertEquals(List.of("A1", "B2", "C3.5", "D4.5", "Efalse", "F6", "G7"),
+                SqlBuilder.sql("SELECT title FROM movie ORDER BY id")
+                        .queryForListOfString()
+                        .execute(dataSource));
+    }
+
+    @Test
+    void testPrimitiveCallableParams() throws SQLException {
+        SqlBuilder.CallableSqlBuilder callable = SqlBuilder
+                .prepareCall("CALL insert_movie_in(?::text || ?::text || ?::text || ?::text "
+                        + "|| ?::text || ?::text || ?::text || ?::text, ?)")
+                .param('A')
+                .param(1)
+                .param(2L)
+                .param(3.5)
+                .param(4.5f)
+                .param(true)
+                .param((short) 6)
+                .param((byte) 7)
+                .param("Nolan");
+        callable.execute(dataSource);
+        callable.addBatch()
+                .param('B')
+                .param(1)
+                .param(2L)
+                .param(3.5)
+                .param(4.5f)
+                .param(false)
+                .param((short) 6)
+                .param((byte) 7)
+                .param("Nolan")
+                .executeBatch(dataSource);
+
+        Assertions.assertEquals(List.of("A123.54.5true67", "A123.54.5true67", "B123.54.5false67"),
+                SqlBuilder.sql("SELECT title FROM movie ORDER BY id")
+                        .queryForListOfString()
+                        .execute(dataSource));
+    }
+
+    @Test
+    void testBoxedBatchParams() throws SQLException {
+        Object[] values = {Short.valueOf((short) 1), Integer.valueOf(2), Long.valueOf(3L),
+                Double.valueOf(4.5), Float.valueOf(5.5f), Boolean.TRUE, "7"};
+        SqlBuilder.PreparedSqlBuilder.PreparedBatch batch = SqlBuilder
+                .prepareSql("INSERT INTO movie(title, directed_by) VALUES (?::text, 'Nolan')")
+                .param("0")
+                .addBatch()
+                .param((Short) values[0]).addBatch()
+                .param((Integer) values[1]).addBatch()
+                .param((Long) values[2]).addBatch()
+                .param((Double) values[3]).addBatch()
+                .param((Float) values[4]).addBatch()
+                .param((Boolean) values[5]).addBatch()
+                .param(values[6]);
+        batch.executeBatch(dataSource);
+
+        SqlBuilder.CallableSqlBuilder.CallableBatch callableBatch = SqlBuilder
+                .prepareCall("CALL insert_movie_in(?::text, 'Nolan')")
+                .param("0")
+                .addBatch()
+                .param((Short) values[0]).addBatch()
+                .param((Integer) values[1]).addBatch()
+                .param((Long) values[2]).addBatch()
+                .param((Double) values[3]).addBatch()
+                .param((Float) values[4]).addBatch()
+                .param((Boolean) values[5]).addBatch()
+                .param(values[6]);
+        callableBatch.executeBatch(dataSource);
+
+        List<String> expected = List.of("0", "1", "2", "3", "4.5", "5.5", "true", "7");
+        Assertions.assertEquals(expected, SqlBuilder.sql("SELECT title FROM movie ORDER BY id LIMIT 8")
+                .queryForListOfString()
+                .execute(dataSource));
+        Assertions.assertEquals(expected, SqlBuilder.sql("SELECT title FROM movie ORDER BY id OFFSET 8")
+                .queryForListOfString()
+                .execute(dataSource));
+    }
+}
@@ -0,0 +1,86 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+class PrimitiveArrayTest extends BaseTest {
+
+    private static final String SERIES = "SELECT i FROM generate_series(1, 100) i ORDER BY i";
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        SqlBuilder.sql("DROP TABLE IF EXISTS PK_TABLE").execute(dataSource);
+        SqlBuilder.sql("CREATE TABLE PK_TABLE (id BIGSERIAL, amount FLOAT8 DEFAULT 2.5)").execute(dataSource);
+    }
+
+    @Test
+    void testArrays() throws SQLException {
+        int[] ints = IntStream.rangeClosed(1, 100).toArray();
+        long[] longs = LongStream.rangeClosed(1, 100).toArray();
+        double[] doubles = IntStream.rangeClosed(1, 100).asDoubleStream().toArray();
+
+        Assertions.assertArrayEquals(ints, SqlBuilder.sql(SERIES).queryForIntArray().execute(dataSource));
+        Assertions.assertArrayEquals(longs, SqlBuilder.sql(SERIES).queryForLongArray().execute(dataSource));
+        Assertions.assertArrayEquals(doubles, SqlBuilder.sql(SERIES).queryForDoubleArray().execute(dataSource));
+
+        String prepared = "SELECT i FROM generate_series(1, ?) i ORDER BY i";
+        Assertions.assertArrayEquals(ints, SqlBuilder.prepareSql(prepared).param(100)
+                .queryForIntArray().execute(dataSource));
+        Assertions.assertArrayEquals(longs, SqlBuilder.prepareSql(prepared).param(100)
+                .queryForLongArray().execute(dataSource));
+        Assertions.assertArrayEquals(doubles, SqlBuilder.prepareSql(prepared).param(100)
+                .queryForDoubleArray().execute(dataSource));
+
+        Assertions.assertArrayEquals(new long[0], SqlBuilder.prepareSql(prepared).param(0)
+                .queryForLongArray().execute(dataSource));
+        Assertions.assertArrayEquals(new int[]{0, 1}, SqlBuilder.sql("SELECT NULL::int UNION ALL SELECT 1")
+                .queryForIntArray().execute(dataSource));
+    }
+
+    @Test
+    void testForEach() throws SQLException {
+        List<Object> values = new ArrayList<>();
+
+        Assertions.assertEquals(100, SqlBuilder.sql(SERIES).queryForEachInt(values::add).execute(dataSource));
+        Assertions.assertEquals(3, SqlBuilder.prepareSql("SELECT i FROM generate_series(1, ?) i ORDER BY i")
+                .param(3)
+                .queryForEachLong(values::add)
+                .execute(dataSource));
+        Assertions.assertEquals(1, SqlBuilder.sql("SELECT 0.5::float8")
+                .queryForEachDouble(values::add)
+                .execute(dataSource));
+
+        Assertions.assertEquals(104, values.size());
+        Assertions.assertEquals(List.of(100, 1L, 2L, 3L, 0.5), values.subList(99, 104));
+    }
+
+    @Test
+    void testGeneratedKeys() throws SQLException {
+        Assertions.assertArrayEquals(new long[]{1, 2, 3}, SqlBuilder
+                .sql("INSERT INTO PK_TABLE VALUES (DEFAULT), (DEFAULT), (DEFAULT)")
+                .queryGeneratedKeysAsLongArray()
+                .execute(dataSource));
+        Assertions.assertArrayEquals(new int[]{4, 5}, SqlBuilder
+                .prepareSql("INSERT INTO PK_TABLE(amount) VALUES (?), (?)")
+                .param(1.5)
+                .param(3.5)
+                .queryGeneratedKeysAsIntArray()
+                .execute(dataSource));
+        Assertions.assertArrayEquals(new double[]{2.5}, SqlBuilder
+                .sql("INSERT INTO PK_TABLE(id) VALUES (10) RETURNING amount")
+                .queryGeneratedKeysAsDoubleArray()
+                .execute(dataSource));
+        Assertions.assertArrayEquals(new double[]{7.5}, SqlBuilder
+                .prepareSql("INSERT INTO PK_TABLE(amount) VALUES (?) RETURNING amount")
+                .param(7.5)
+                .queryGeneratedKeysAsDoubleArray()
+                .execute(dataSource));
+    }
+}
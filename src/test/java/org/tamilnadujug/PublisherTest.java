@@ -0,0 +1,271 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tamilnadujug.sql.Sql;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PublisherTest extends BaseTest {
+
+    private static final Object COMPLETE = new Object();
+
+    @BeforeEach
+    void insertMovies() throws SQLException {
+        SqlBuilder.sql("""
+                INSERT INTO movie(title, directed_by)
+                SELECT 'Movie ' || i, 'Director' FROM generate_series(1, 5) i
+                """).execute(dataSource);
+    }
+
+    @Test
+    void testRequestDrivesFetchSize() throws Exception {
+        List<Integer> fetchSizes = new CopyOnWriteArrayList<>();
+        try (Connection connection = recording(dataSource.getConnection(), fetchSizes)) {
+            connection.setAutoCommit(false);
+            Flow.Publisher<String> publisher = SqlBuilder
+                    .prepareSql("SELECT title FROM movie WHERE directed_by = ? ORDER BY id")
+                    .param("Director")
+                    .queryForPublisher(rs -> rs.getString(1))
+                    .execute(connection);
+            Recorder recorder = new Recorder();
+            publisher.subscribe(recorder);
+
+            recorder.subscription.request(2);
+            Assertions.assertEquals(List.of("Movie 1", "Movie 2"), recorder.take(2));
+            Assertions.assertNull(recorder.events.poll(200, TimeUnit.MILLISECONDS));
+
+            recorder.subscription.request(10);
+            Assertions.assertEquals(List.of("Movie 3", "Movie 4", "Movie 5", COMPLETE), recorder.take(4));
+            Assertions.assertEquals(List.of(2, 1, 10, 9, 8, 7), fetchSizes);
+            connection.commit();
+        }
+    }
+
+    @Test
+    void testDataSourceReadsThroughCursor() throws Exception {
+        RecordingDataSource calls = new RecordingDataSource(dataSource);
+        Sql<Flow.Publisher<Boolean>> autoCommit = SqlBuilder.sql("SELECT title FROM movie ORDER BY id")
+                .queryForPublisher(rs -> rs.getStatement().getConnection().getAutoCommit());
+
+        Recorder complete = new Recorder();
+        autoCommit.execute(calls.dataSource()).subscribe(complete);
+        complete.subscription.request(10);
+        Assertions.assertEquals(List.of(false, false, false, false, false, COMPLETE), complete.take(6));
+        Assertions.assertEquals(List.of("setAutoCommit(false)", "setAutoCommit(true)"),
+                calls.calls().stream().filter(call -> call.startsWith("setAutoCommit")
+                        || call.equals("rollback()")).toList());
+        Assertions.assertEquals("close()", calls.calls().get(calls.calls().size() - 1));
+
+        calls.calls().clear();
+        Recorder cancelled = new Recorder();
+        autoCommit.execute(calls.dataSource()).subscribe(cancelled);
+        cancelled.subscription.request(1);
+        Assertions.assertEquals(List.of(false), cancelled.take(1));
+        cancelled.subscription.cancel();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!calls.calls().contains("setAutoCommit(true)") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(List.of("setAutoCommit(false)", "rollback()", "setAutoCommit(true)"),
+                calls.calls().stream().filter(call -> call.startsWith("setAutoCommit")
+                        || call.equals("rollback()")).toList());
+    }
+
+    @Test
+    void testUnboundedDemand() throws Exception {
+        Recorder recorder = new Recorder();
+        SqlBuilder.sql("SELECT title FROM movie ORDER BY id")
+                .queryForPublisher(rs -> rs.getString(1))
+                .execute(dataSource)
+                .subscribe(recorder);
+
+        recorder.subscription.request(Long.MAX_VALUE);
+        recorder.subscription.request(1);
+        Assertions.assertEquals(List.of("Movie 1", "Movie 2", "Movie 3", "Movie 4", "Movie 5", COMPLETE),
+                recorder.take(6));
+    }
+
+    @Test
+    void testCancelReleasesConnection() throws Exception {
+        AtomicInteger open = new AtomicInteger();
+        DataSource counting = counting(open, false);
+        Sql<Flow.Publisher<String>> titles = SqlBuilder.sql("SELECT title FROM movie ORDER BY id")
+                .queryForPublisher(rs -> rs.getString(1));
+
+        Recorder waiting = new Recorder();
+        titles.execute(counting).subscribe(waiting);
+        awaitOpen(open, 1);
+        waiting.subscription.cancel();
+        awaitOpen(open, 0);
+
+        Recorder reading = new Recorder();
+        titles.execute(counting).subscribe(reading);
+        reading.subscription.request(1);
+        Assertions.assertEquals(List.of("Movie 1"), reading.take(1));
+        reading.subscription.cancel();
+        awaitOpen(open, 0);
+
+        Recorder failingCancel = new Recorder();
+        titles.execute(counting(open, true)).subscribe(failingCancel);
+        awaitOpen(open, 1);
+        failingCancel.subscription.cancel();
+        awaitOpen(open, 0);
+
+        Assertions.assertNull(waiting.events.poll(200, TimeUnit.MILLISECONDS));
+        Assertions.assertNull(reading.events.poll());
+        Assertions.assertNull(failingCancel.events.poll());
+    }
+
+    @Test
+    void testCancelRunningQuery() throws Exception {
+        Recorder recorder = new Recorder();
+        SqlBuilder.sql("SELECT pg_sleep(30)")
+                .queryForPublisher(rs -> rs.getObject(1))
+                .execute(dataSource)
+                .subscribe(recorder);
+        recorder.subscription.request(1);
+
+        Sql<Integer> sleeping = SqlBuilder.sql("""
+                SELECT COUNT(*) FROM pg_stat_activity
+                WHERE state = 'active' AND query = 'SELECT pg_sleep(30)'
+                """).queryForInt();
+        while (sleeping.execute(dataSource) == 0) {
+            Thread.sleep(20);
+        }
+        recorder.subscription.cancel();
+        while (sleeping.execute(dataSource) != 0) {
+            Thread.sleep(20);
+        }
+        Assertions.assertNull(recorder.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testErrors() throws Exception {
+        Recorder missing = new Recorder();
+        SqlBuilder.sql("SELECT * FROM no_such_table")
+                .queryForPublisher(rs -> rs.getString(1))
+                .execute(dataSource)
+                .subscribe(missing);
+        missing.subscription.request(1);
+        Assertions.assertInstanceOf(SQLException.class, missing.take(1).get(0));
+
+        Recorder invalid = new Recorder();
+        SqlBuilder.sql("SELECT title FROM movie")
+                .queryForPublisher(rs -> rs.getString(1))
+                .execute(dataSource)
+                .subscribe(invalid);
+        invalid.subscription.request(0);
+        Assertions.assertInstanceOf(IllegalArgumentException.class, invalid.take(1).get(0));
+    }
+
+    private static void awaitOpen(AtomicInteger open, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (open.get() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(expected, open.get());
+    }
+
+    private static Connection recording(Connection connection, List<Integer> fetchSizes) {
+        return proxy(Connection.class, connection, (type, name, args) -> {
+            if (name.equals("setFetchSize")) {
+                fetchSizes.add((Integer) args[0]);
+            }
+        });
+    }
+
+    private static DataSource counting(AtomicInteger open, boolean failCancel) {
+        return proxy(DataSource.class, dataSource, (type, name, args) -> {
+            if (name.equals("getConnection")) {
+                open.incrementAndGet();
+            } else if (type == Connection.class && name.equals("close")) {
+                open.decrementAndGet();
+            } else if (name.equals("cancel") && failCancel) {
+                throw new SQLException("Statement is closed");
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, Interceptor interceptor) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    interceptor.intercept(type, method.getName(), args);
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Connection) {
+                        return proxy(Connection.class, result, interceptor);
+                    } else if (result instanceof PreparedStatement) {
+                        return proxy(PreparedStatement.class, result, interceptor);
+                    } else if (result instanceof Statement) {
+                        return proxy(Statement.class, result, interceptor);
+                    } else if (result instanceof ResultSet) {
+                        return proxy(ResultSet.class, result, interceptor);
+                    }
+                    return result;
+                });
+    }
+
+    @FunctionalInterface
+    private interface Interceptor {
+        void intercept(Class<?> type, String name, Object[] args) throws SQLException;
+    }
+
+    private static final class Recorder implements Flow.Subscriber<Object> {
+
+        private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription theSubscription) {
+            subscription = theSubscription;
+        }
+
+        @Override
+        public void onNext(Object item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            events.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            events.add(COMPLETE);
+        }
+
+        private List<Object> take(int count) throws InterruptedException {
+            List<Object> taken = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Object event = events.poll(5, TimeUnit.SECONDS);
+                Assertions.assertNotNull(event);
+                taken.add(event);
+            }
+            return taken;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.tamilnadujug;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Test DataSource that records the JDBC calls made on its connections and
+ * statements as {@code "method(arg, ...)"} strings.
+ */
+class RecordingDataSource {
+
+    private final DataSource target;
+
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+
+    RecordingDataSource(DataSource target) {
+        this.target = target;
+    }
+
+    List<String> calls() {
+        return calls;
+    }
+
+    long count(String call) {
+        return calls.stream().filter(call::equals).count();
+    }
+
+    DataSource dataSource() {
+        return record(DataSource.class, target);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T record(Class<T> type, Object delegate) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String call = method.getName() + (args == null ? "()" : Arrays.toString(args)
+                            .replace('[', '(').replace(']', ')'));
+                    calls.add(call);
+                    Object result;
+                    try {
+                        result = method.invoke(delegate, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof CallableStatement) {
+                        return record(CallableStatement.class, result);
+                    } else if (result instanceof PreparedStatement) {
+                        return record(PreparedStatement.class, result);
+                    } else if (result instanceof Statement) {
+                        return record(Statement.class, result);
+                    } else if (result instanceof Connection) {
+                        return record(Connection.class, result);
+                    }
+                    return result;
+                });
+    }
+}
@@ -0,0 +1,212 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tamilnadujug.sql.RowMapper;
+import org.tamilnadujug.sql.Sql;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResultCacheTest extends BaseTest {
+
+    private static final String INSERT_MOVIE = "INSERT INTO movie(title, directed_by) VALUES (?, ?)";
+
+    private static final String FIND_TITLES = "SELECT title FROM movie WHERE directed_by = ? ORDER BY id";
+
+    private ResultCache cache;
+
+    @BeforeEach
+    void init() throws SQLException {
+        cache = new ResultCache(2, Duration.ofMinutes(5));
+        SqlBuilder.prepareSql(INSERT_MOVIE).param("Dunkirk").param("Nolan").execute(dataSource);
+        SqlBuilder.prepareSql(INSERT_MOVIE).param("Jaws").param("Spielberg").execute(dataSource);
+    }
+
+    @Test
+    void testHitsAndMisses() throws SQLException {
+        Sql<List<String>> nolan = SqlBuilder.prepareSql(FIND_TITLES)
+                .param("Nolan")
+                .resultCache(cache)
+                .queryForListOfString();
+
+        Assertions.assertEquals(List.of("Dunkirk"), nolan.execute(dataSource));
+        SqlBuilder.prepareSql(INSERT_MOVIE).param("Tenet").param("Nolan").execute(dataSource);
+        List<String> cached = nolan.execute(dataSource);
+        Assertions.assertEquals(List.of("Dunkirk"), cached);
+        assertThrows(UnsupportedOperationException.class, () -> cached.add("Tenet"));
+
+        Assertions.assertEquals(List.of("Dunkirk", "Tenet"), SqlBuilder.prepareSql(FIND_TITLES)
+                .param("Nolan")
+                .queryForListOfString()
+                .execute(dataSource));
+        Assertions.assertEquals(List.of("Jaws"), SqlBuilder.prepareSql(FIND_TITLES)
+                .param("Spielberg")
+                .resultCache(cache)
+                .queryForListOfString()
+                .execute(dataSource));
+
+        Assertions.assertEquals(1, cache.hits());
+        Assertions.assertEquals(2, cache.misses());
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertTrue(cache.loadTime().toNanos() > 0);
+    }
+
+    @Test
+    void testKeyIncludesResultShape() throws SQLException {
+        SqlBuilder count = SqlBuilder.sql("SELECT COUNT(*) FROM movie").resultCache(cache);
+
+        Assertions.assertEquals(2, count.queryForInt().execute(dataSource));
+        Assertions.assertEquals("2", count.queryForString().execute(dataSource));
+        Assertions.assertEquals(List.of(2), count.queryForListOfInt().execute(dataSource));
+        Assertions.assertEquals(2L, count.queryForLong().execute(dataSource));
+
+        Assertions.assertEquals(0, cache.hits());
+        Assertions.assertEquals(4, cache.misses());
+    }
+
+    @Test
+    void testKeyIncludesMapperInstance() throws SQLException {
+        ResultCache large = new ResultCache(10, Duration.ofMinutes(5));
+        SqlBuilder titles = SqlBuilder.sql("SELECT title FROM movie ORDER BY id").resultCache(large);
+
+        Assertions.assertEquals(new Title("Dunkirk"), titles.queryForOne(RowMapper.forRecord(Title.class))
+                .execute(dataSource));
+        Assertions.assertEquals(new Name("Dunkirk"), titles.queryForOne(RowMapper.forRecord(Name.class))
+                .execute(dataSource));
+        Assertions.assertEquals(List.of(new Name("Dunkirk"), new Name("Jaws")),
+                titles.queryForList(RowMapper.forRecord(Name.class)).execute(dataSource));
+        Assertions.assertEquals(List.of(new Title("Dunkirk"), new Title("Jaws")),
+                titles.queryForList(RowMapper.forRecord(Title.class)).execute(dataSource));
+        Assertions.assertEquals(new Title("Dunkirk"), titles.queryForOne(RowMapper.forRecord(Title.class))
+                .execute(dataSource));
+
+        Assertions.assertEquals(1, large.hits());
+        Assertions.assertEquals(4, large.misses());
+    }
+
+    @Test
+    void testKeyIncludesSqlType() throws SQLException {
+        ResultCache large = new ResultCache(10, Duration.ofMinutes(5));
+        String sql = "SELECT ?::text";
+
+        Assertions.assertEquals("1", SqlBuilder.prepareSql(sql).param("1", Types.VARCHAR)
+                .resultCache(large).queryForString().execute(dataSource));
+        Assertions.assertEquals("1", SqlBuilder.prepareSql(sql).param("1", Types.INTEGER)
+                .resultCache(large).queryForString().execute(dataSource));
+        Assertions.assertNull(SqlBuilder.prepareSql(sql).paramNull(Types.VARCHAR, "text")
+                .resultCache(large).queryForString().execute(dataSource));
+        Assertions.assertNull(SqlBuilder.prepareSql(sql).paramNull(Types.INTEGER, "text")
+                .resultCache(large).queryForString().execute(dataSource));
+        Assertions.assertEquals("1", SqlBuilder.prepareSql(sql).param("1", Types.INTEGER)
+                .resultCache(large).queryForString().execute(dataSource));
+
+        Assertions.assertEquals(1, large.hits());
+        Assertions.assertEquals(4, large.misses());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() throws SQLException {
+        SqlTemplate template = SqlBuilder.template(FIND_TITLES).resultCache(cache);
+
+        template.bind().param("Nolan").queryForString().execute(dataSource);
+        template.bind().param("Spielberg").queryForString().execute(dataSource);
+        template.bind().param("Nolan").queryForString().execute(dataSource);
+        template.bind().param("Bigelow").queryForString().execute(dataSource);
+        Assertions.assertEquals(1, cache.evictions());
+
+        Assertions.assertEquals("Dunkirk", template.bind().param("Nolan").queryForString().execute(dataSource));
+        Assertions.assertEquals(2, cache.hits());
+        Assertions.assertEquals("Jaws", template.bind().param("Spielberg").queryForString().execute(dataSource));
+        Assertions.assertEquals(4, cache.misses());
+        Assertions.assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testExpiry() throws Exception {
+        ResultCache shortLived = new ResultCache(10, Duration.ofMillis(50));
+        Sql<String> title = SqlBuilder.prepareSql(FIND_TITLES)
+                .param("Nolan")
+                .resultCache(shortLived)
+                .queryForString();
+
+        title.execute(dataSource);
+        Thread.sleep(100);
+        title.execute(dataSource);
+
+        Assertions.assertEquals(0, shortLived.hits());
+        Assertions.assertEquals(2, shortLived.misses());
+        Assertions.assertEquals(1, shortLived.evictions());
+    }
+
+    @Test
+    void testInvalidation() throws SQLException {
+        ResultCache large = new ResultCache(10, Duration.ofMinutes(5));
+        SqlBuilder.prepareSql(FIND_TITLES).param("Nolan").resultCache(large, "movie")
+                .queryForString().execute(dataSource);
+        SqlBuilder.prepareSql("SELECT octet_length(?)").param(new byte[]{1}).resultCache(large)
+                .queryForInt().execute(dataSource);
+        SqlBuilder.sql("SELECT COUNT(*) FROM movie").resultCache(large, "movie", "count")
+                .queryForInt().execute(dataSource);
+        SqlBuilder.sql("SELECT 1").resultCache(large).queryForInt().execute(dataSource);
+        Assertions.assertEquals(4, large.size());
+
+        large.invalidateTag("count");
+        Assertions.assertEquals(3, large.size());
+        large.invalidate("SELECT title FROM movie");
+        Assertions.assertEquals(2, large.size());
+        large.clear();
+        Assertions.assertEquals(0, large.size());
+    }
+
+    @Test
+    void testInvalidationDuringLoad() throws SQLException {
+        Sql<String> racing = SqlBuilder.prepareSql(FIND_TITLES)
+                .param("Nolan")
+                .resultCache(cache, "movie")
+                .queryForOne(rs -> {
+                    cache.invalidateTag("movie");
+                    return rs.getString(1);
+                });
+
+        Assertions.assertEquals("Dunkirk", racing.execute(dataSource));
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals("Dunkirk", racing.execute(dataSource));
+        Assertions.assertEquals(0, cache.hits());
+        Assertions.assertEquals(2, cache.misses());
+
+        Sql<Integer> cleared = SqlBuilder.sql("SELECT 1")
+                .resultCache(cache)
+                .queryForOne(rs -> {
+                    cache.clear();
+                    return rs.getInt(1);
+                });
+        Assertions.assertEquals(1, cleared.execute(dataSource));
+        Assertions.assertEquals(0, cache.size());
+
+        Sql<String> stored = SqlBuilder.prepareSql(FIND_TITLES)
+                .param("Nolan")
+                .resultCache(cache, "movie")
+                .queryForString();
+        stored.execute(dataSource);
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache(0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache(1, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache(1, Duration.ofSeconds(-1)));
+    }
+
+    record Title(String title) {
+    }
+
+    record Name(String title) {
+    }
+}
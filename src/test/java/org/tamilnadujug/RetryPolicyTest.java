@@ -0,0 +1,125 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryPolicyTest extends BaseTest {
+
+    private static final String INSERT_MOVIE = "INSERT INTO movie(title, directed_by) VALUES (?, ?)";
+
+    private final List<String> attempts = new ArrayList<>();
+
+    private final RetryPolicy policy = RetryPolicy.of(4)
+            .backoff(Duration.ofMillis(1), Duration.ofMillis(4))
+            .listener((attempt, failure) -> attempts.add(attempt + ":"
+                    + (failure == null ? "ok" : failure.getSQLState())));
+
+    @Test
+    void testRetryUntilSuccess() throws SQLException {
+        AtomicInteger failures = new AtomicInteger(2);
+
+        int updatedRows = Transaction
+                .begin(SqlBuilder.prepareSql(INSERT_MOVIE).param("Dunkirk").param("Nolan"))
+                .thenApply(inserted -> connection -> {
+                    if (failures.getAndDecrement() > 0) {
+                        throw new SQLException("could not serialize access", "40001");
+                    }
+                    return inserted;
+                })
+                .retry(policy)
+                .execute(dataSource);
+
+        Assertions.assertEquals(1, updatedRows);
+        Assertions.assertEquals(List.of("1:40001", "2:40001", "3:ok"), attempts);
+        Assertions.assertEquals(1, countMovies());
+    }
+
+    @Test
+    void testRetryCauseAndChainedStages() throws SQLException {
+        AtomicInteger failures = new AtomicInteger(1);
+
+        int updatedRows = Transaction
+                .begin(connection -> {
+                    if (failures.getAndDecrement() > 0) {
+                        throw new BatchUpdateException("batch failed", "08000", new int[0],
+                                new SQLException("deadlock detected", "40P01"));
+                    }
+                    return 0;
+                })
+                .retry(policy)
+                .thenApply(zero -> SqlBuilder.prepareSql(INSERT_MOVIE).param("Dunkirk").param("Nolan"))
+                .savePoint("sp", inserted -> Transaction.begin(SqlBuilder.prepareSql(INSERT_MOVIE)
+                        .param("Tenet")
+                        .param("Nolan")))
+                .execute(dataSource);
+
+        Assertions.assertEquals(1, updatedRows);
+        Assertions.assertEquals(List.of("1:08000", "2:ok"), attempts);
+        Assertions.assertEquals(2, countMovies());
+    }
+
+    @Test
+    void testGiveUp() {
+        SQLException exception = assertThrows(SQLException.class, () -> Transaction
+                .begin(connection -> {
+                    throw new SQLException("could not serialize access", "40001");
+                })
+                .retry(policy)
+                .execute(dataSource));
+
+        Assertions.assertEquals("40001", exception.getSQLState());
+        Assertions.assertEquals(4, attempts.size());
+
+        attempts.clear();
+        assertThrows(SQLException.class, () -> Transaction
+                .begin(SqlBuilder.prepareSql(INSERT_MOVIE).paramNull().param("Nolan"))
+                .retry(policy)
+                .execute(dataSource));
+        Assertions.assertEquals(List.of("1:23502"), attempts);
+
+        attempts.clear();
+        assertThrows(SQLException.class, () -> Transaction
+                .begin(connection -> {
+                    throw new SQLException("lock timeout", "55P03");
+                })
+                .retry(policy.sqlStates("55P03").deadline(Duration.ZERO))
+                .execute(dataSource));
+        Assertions.assertEquals(List.of("1:55P03"), attempts);
+    }
+
+    @Test
+    void testInterruptedBackoff() {
+        Thread.currentThread().interrupt();
+        SQLException exception = assertThrows(SQLException.class, () -> Transaction
+                .begin(connection -> {
+                    throw new SQLException("could not serialize access", "40001");
+                })
+                .retry(RetryPolicy.of(3).backoff(Duration.ofSeconds(1), Duration.ofSeconds(1)))
+                .execute(dataSource));
+
+        Assertions.assertTrue(Thread.interrupted());
+        Assertions.assertInstanceOf(InterruptedException.class, exception.getSuppressed()[0]);
+    }
+
+    @Test
+    void testInvalidPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.of(0));
+        assertThrows(IllegalArgumentException.class, () -> policy
+                .backoff(Duration.ofMillis(-1), Duration.ofMillis(1)));
+        assertThrows(IllegalArgumentException.class, () -> policy
+                .backoff(Duration.ofMillis(2), Duration.ofMillis(1)));
+    }
+
+    private int countMovies() throws SQLException {
+        return SqlBuilder.sql("SELECT COUNT(*) FROM movie").queryForInt().execute(dataSource);
+    }
+}
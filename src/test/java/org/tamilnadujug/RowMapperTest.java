@@ -0,0 +1,247 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tamilnadujug.sql.NamedRowMapper;
+import org.tamilnadujug.sql.RowMapper;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RowMapperTest extends BaseTest {
+
+    @BeforeEach
+    void insertMovies() throws SQLException {
+        SqlBuilder.sql("""
+                INSERT INTO movie(title, directed_by)
+                SELECT 'Movie ' || i, 'Director ' || i FROM generate_series(1, 3) i
+                """).execute(dataSource);
+    }
+
+    @Test
+    void testForRecord() throws SQLException {
+        List<Movie> expected = SqlBuilder.sql("SELECT id, title, directed_by FROM movie ORDER BY id")
+                .queryForList(BaseTest::mapMovie)
+                .execute(dataSource);
+
+        Assertions.assertEquals(expected, SqlBuilder.sql("SELECT id, title, directed_by FROM movie ORDER BY id")
+                .queryForList(RowMapper.forRecord(Movie.class))
+                .execute(dataSource));
+        Assertions.assertEquals(expected, SqlBuilder.sql("SELECT directed_by, 0 AS extra, title, id FROM movie ORDER BY id")
+                .queryForList(RowMapper.forRecord(Movie.class))
+                .execute(dataSource));
+        Assertions.assertEquals(new Movie(null, "Untitled", null), SqlBuilder
+                .sql("SELECT NULL::smallint AS id, 'Untitled' AS TITLE, NULL AS directed_by")
+                .queryForOne(RowMapper.forRecord(Movie.class))
+                .execute(dataSource));
+        Assertions.assertSame(RowMapper.forRecord(Movie.class), RowMapper.forRecord(Movie.class));
+    }
+
+    @Test
+    void testTypedColumns() throws SQLException {
+        Assertions.assertEquals(new Typed(1L, 2, 3.5, true, new BigDecimal("4.50"), LocalDate.of(2024, 1, 2), null),
+                SqlBuilder.sql("""
+                        SELECT 1::bigint AS big, 2 AS small, 3.5::float8 AS real_value, true AS flag,
+                               4.50::numeric AS amount, DATE '2024-01-02' AS day, NULL::int AS maybe
+                        """)
+                        .queryForOne(RowMapper.forRecord(Typed.class))
+                        .execute(dataSource));
+    }
+
+    @Test
+    void testForBean() throws SQLException {
+        List<MovieBean> movies = SqlBuilder.sql("SELECT id, title, directed_by, 0 AS extra FROM movie ORDER BY id")
+                .queryForList(RowMapper.forBean(MovieBean.class))
+                .execute(dataSource);
+
+        Assertions.assertEquals(3, movies.size());
+        Assertions.assertEquals(1, movies.get(0).getId());
+        Assertions.assertEquals("Movie 2", movies.get(1).getTitle());
+        Assertions.assertEquals("Director 3", movies.get(2).getDirectedBy());
+
+        MovieBean partial = SqlBuilder.sql("SELECT title FROM movie ORDER BY id")
+                .queryForOne(RowMapper.forBean(MovieBean.class))
+                .execute(dataSource);
+        Assertions.assertEquals(0, partial.getId());
+        Assertions.assertEquals("Movie 1", partial.getTitle());
+        Assertions.assertNull(partial.getDirectedBy());
+
+        Assertions.assertEquals(new Date(42), SqlBuilder.sql("SELECT 42::bigint AS time")
+                .queryForOne(RowMapper.forBean(Date.class))
+                .execute(dataSource));
+    }
+
+    @Test
+    void testByName() throws SQLException {
+        List<Movie> expected = SqlBuilder.sql("SELECT id, title, directed_by FROM movie ORDER BY id")
+                .queryForList(BaseTest::mapMovie)
+                .execute(dataSource);
+        Accessors accessors = new Accessors();
+        RowMapper<Movie> mapper = RowMapper.byName(row -> {
+            accessors.seen(row);
+            return new Movie(row.getShort("id"), row.getString("TITLE"), row.getString("Directed_By"));
+        });
+
+        Assertions.assertEquals(expected, SqlBuilder.sql("SELECT id, title, directed_by FROM movie ORDER BY id")
+                .queryForList(mapper)
+                .execute(dataSource));
+        Assertions.assertEquals(1, accessors.count.get());
+        Assertions.assertEquals(expected, SqlBuilder.sql("SELECT directed_by, title, id FROM movie ORDER BY id")
+                .queryForList(mapper)
+                .execute(dataSource));
+        Assertions.assertEquals(expected, SqlBuilder.sql("SELECT directed_by, title, id FROM movie ORDER BY id")
+                .queryForList(mapper)
+                .execute(dataSource));
+        Assertions.assertEquals(3, accessors.count.get());
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, title, directed_by FROM movie ORDER BY id")) {
+            while (rs.next()) {
+                Assertions.assertNotNull(mapper.get(rs));
+                System.gc();
+            }
+        }
+        Assertions.assertEquals(4, accessors.count.get());
+    }
+
+    @Test
+    void testByNameAcrossThreads() throws Exception {
+        Accessors accessors = new Accessors();
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        RowMapper<String> mapper = RowMapper.byName(row -> {
+            accessors.seen(row);
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return row.getString("title");
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<List<String>> first = SqlBuilder.sql("SELECT title FROM movie ORDER BY id")
+                    .queryForList(mapper)
+                    .executeAsync(dataSource, executor);
+            CompletableFuture<List<String>> second = SqlBuilder.sql("SELECT id, title FROM movie ORDER BY id")
+                    .queryForList(mapper)
+                    .executeAsync(dataSource, executor);
+            List<String> titles = List.of("Movie 1", "Movie 2", "Movie 3");
+            Assertions.assertEquals(titles, first.get(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(titles, second.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(2, accessors.count.get());
+    }
+
+    @Test
+    void testByNameTypes() throws SQLException {
+        String sql = """
+                SELECT 1 AS i, 2::bigint AS l, 3::smallint AS s, 4.5::float8 AS d, 5.5::float4 AS f, true AS b,
+                       6.50::numeric AS n, '\\x0102'::bytea AS bytes, DATE '2024-01-02' AS day,
+                       TIME '10:11:12' AS t, TIMESTAMP '2024-01-02 10:11:12' AS ts, 'x' AS "Label",
+                       'y' AS "label", NULL::int AS nothing
+                """;
+        List<Object> values = SqlBuilder.sql(sql)
+                .queryForOne(RowMapper.byName(row -> List.of(row.getInt("i"), row.getLong("l"), row.getShort("s"),
+                        row.getByte("s"), row.getDouble("d"), row.getFloat("f"), row.getBoolean("b"),
+                        row.getBigDecimal("n"), List.of(row.getBytes("bytes")[1]), row.getDate("day").toString(),
+                        row.getTime("t").toString(), row.getTimestamp("ts").toString(), row.getString("Label"),
+                        row.getString("label"), row.getObject("LABEL"), row.getObject("i", Integer.class),
+                        row.getInt("nothing"), row.wasNull(), row.index("nothing"),
+                        row.resultSet().getString(1))))
+                .execute(dataSource);
+        Assertions.assertEquals(List.of(1, 2L, (short) 3, (byte) 3, 4.5, 5.5f, true, new BigDecimal("6.50"),
+                List.of((byte) 2), "2024-01-02", "10:11:12", "2024-01-02 10:11:12.0", "x", "y", "x", 1,
+                0, true, 14, "1"), values);
+
+        SQLException missing = Assertions.assertThrows(SQLException.class,
+                () -> SqlBuilder.sql("SELECT 1 AS id")
+                        .queryForOne(RowMapper.byName(row -> row.getInt("title")))
+                        .execute(dataSource));
+        Assertions.assertEquals("No column labelled title", missing.getMessage());
+    }
+
+    @Test
+    void testErrors() {
+        SQLException missing = Assertions.assertThrows(SQLException.class,
+                () -> SqlBuilder.sql("SELECT id, title FROM movie")
+                        .queryForList(RowMapper.forRecord(Movie.class))
+                        .execute(dataSource));
+        Assertions.assertTrue(missing.getMessage().contains("directedby"));
+
+        @SuppressWarnings("unchecked")
+        Class<? extends Record> notRecord = (Class<? extends Record>) (Class<?>) MovieBean.class;
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> RowMapper.forRecord(notRecord));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> RowMapper.forBean(Movie.class));
+    }
+
+    record Typed(long big, int small, double realValue, boolean flag, BigDecimal amount, LocalDate day,
+                 Integer maybe) {
+    }
+
+    public static class MovieBean {
+
+        private int id;
+
+        private String title;
+
+        private String directedBy;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int theId) {
+            id = theId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String theTitle) {
+            title = theTitle;
+        }
+
+        public String getDirectedBy() {
+            return directedBy;
+        }
+
+        public void setDirectedBy(String theDirectedBy) {
+            directedBy = theDirectedBy;
+        }
+    }
+
+    private static final class Accessors {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final ThreadLocal<WeakReference<NamedRowMapper.Row>> last = new ThreadLocal<>();
+
+        private void seen(NamedRowMapper.Row row) {
+            WeakReference<NamedRowMapper.Row> previous = last.get();
+            if (previous == null || previous.get() != row) {
+                count.incrementAndGet();
+                last.set(new WeakReference<>(row));
+            }
+        }
+    }
+}
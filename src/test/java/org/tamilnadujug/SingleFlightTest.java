@@ -0,0 +1,234 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.tamilnadujug.sql.RowMapper;
+import org.tamilnadujug.sql.Sql;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest extends BaseTest {
+
+    private static final String FIND_TITLES = "SELECT title FROM movie, pg_sleep(0.5) WHERE directed_by = ?";
+
+    private final SingleFlight flights = new SingleFlight(Duration.ofSeconds(10));
+
+    @Test
+    void testIdenticalQueriesShareOneCall() throws Exception {
+        SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?)")
+                .param("Dunkirk")
+                .param("Nolan")
+                .execute(dataSource);
+        AtomicInteger borrowed = new AtomicInteger();
+        DataSource counting = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    borrowed.incrementAndGet();
+                    return method.invoke(dataSource, args);
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(9);
+        try {
+            Future<List<String>> leader = executor.submit(() -> titles("Nolan").execute(counting));
+            awaitInFlight(1);
+            List<Future<List<String>>> followers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                followers.add(executor.submit(() -> titles("Nolan").execute(counting)));
+            }
+            List<String> result = leader.get();
+            Assertions.assertEquals(List.of("Dunkirk"), result);
+            for (Future<List<String>> follower : followers) {
+                Assertions.assertSame(result, follower.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThrows(UnsupportedOperationException.class, () -> titles("Nolan").execute(dataSource).add("Tenet"));
+
+        Assertions.assertEquals(1, borrowed.get());
+        Assertions.assertEquals(2, flights.executions());
+        Assertions.assertEquals(8, flights.collapsed());
+        Assertions.assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void testDifferentParametersRunIndependently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> nolan = executor.submit(() -> titles("Nolan").execute(dataSource));
+            awaitInFlight(1);
+            Future<List<String>> spielberg = executor.submit(() -> titles("Spielberg").execute(dataSource));
+            nolan.get();
+            spielberg.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(2, flights.executions());
+        Assertions.assertEquals(0, flights.collapsed());
+    }
+
+    @Test
+    void testDifferentMappersRunIndependently() throws Exception {
+        SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?)")
+                .param("Dunkirk")
+                .param("Nolan")
+                .execute(dataSource);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Title> title = executor.submit(() -> SqlBuilder.prepareSql(FIND_TITLES)
+                    .param("Nolan")
+                    .singleFlight(flights)
+                    .queryForOne(RowMapper.forRecord(Title.class))
+                    .execute(dataSource));
+            awaitInFlight(1);
+            Future<Name> name = executor.submit(() -> SqlBuilder.prepareSql(FIND_TITLES)
+                    .param("Nolan")
+                    .singleFlight(flights)
+                    .queryForOne(RowMapper.forRecord(Name.class))
+                    .execute(dataSource));
+            Assertions.assertEquals(new Title("Dunkirk"), title.get());
+            Assertions.assertEquals(new Name("Dunkirk"), name.get());
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(2, flights.executions());
+        Assertions.assertEquals(0, flights.collapsed());
+    }
+
+    @Test
+    void testWithResultCache() throws SQLException {
+        ResultCache cache = new ResultCache(10, Duration.ofMinutes(1));
+        Sql<Integer> count = SqlBuilder.sql("SELECT COUNT(*) FROM movie")
+                .resultCache(cache)
+                .singleFlight(flights)
+                .queryForInt();
+
+        Assertions.assertEquals(0, count.execute(dataSource));
+        Assertions.assertEquals(0, count.execute(dataSource));
+        Assertions.assertEquals(1, cache.hits());
+        Assertions.assertEquals(1, flights.executions());
+    }
+
+    @Test
+    void testFailuresAreShared() throws Exception {
+        assertShared(new SQLException("boom"), SQLException.class);
+        assertShared(new IllegalStateException("boom"), IllegalStateException.class);
+        assertShared(new AssertionError("boom"), AssertionError.class);
+    }
+
+    @Test
+    void testMaxWait() throws Exception {
+        SingleFlight impatient = new SingleFlight(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        Sql<Integer> slow = impatient.coalesced("slow", List.of(), Integer.class, connection -> {
+            await(release);
+            return 1;
+        });
+        Thread leader = new Thread(() -> {
+            try {
+                slow.execute((Connection) null);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        leader.start();
+        while (impatient.inFlight() == 0) {
+            Thread.sleep(10);
+        }
+
+        assertThrows(SQLTimeoutException.class, () -> slow.execute((Connection) null));
+        Assertions.assertEquals(1, impatient.timeouts());
+
+        AtomicReference<Throwable> interrupted = new AtomicReference<>();
+        Thread waiting = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            try {
+                slow.execute((Connection) null);
+            } catch (SQLException e) {
+                interrupted.set(e.getCause());
+            }
+        });
+        waiting.start();
+        waiting.join(5000);
+        Assertions.assertInstanceOf(InterruptedException.class, interrupted.get());
+
+        release.countDown();
+        leader.join(5000);
+        Assertions.assertEquals(0, impatient.inFlight());
+        assertThrows(IllegalArgumentException.class, () -> new SingleFlight(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new SingleFlight(Duration.ofSeconds(-1)));
+    }
+
+    private <E extends Throwable> void assertShared(E failure, Class<E> type) throws Exception {
+        SingleFlight group = new SingleFlight(Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        Sql<Integer> failing = group.coalesced("failing", List.of(), Integer.class, connection -> {
+            await(release);
+            if (failure instanceof SQLException sqlException) {
+                throw sqlException;
+            } else if (failure instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw (Error) failure;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> failing.execute((Connection) null));
+            while (group.inFlight() == 0) {
+                Thread.sleep(10);
+            }
+            Future<Integer> follower = executor.submit(() -> failing.execute((Connection) null));
+            while (group.collapsed() == 0) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            Assertions.assertSame(failure, assertThrows(Exception.class, leader::get).getCause());
+            Assertions.assertSame(failure, assertThrows(Exception.class, follower::get).getCause());
+            Assertions.assertInstanceOf(type, failure);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Sql<List<String>> titles(String director) {
+        return SqlBuilder.prepareSql(FIND_TITLES)
+                .param(director)
+                .singleFlight(flights)
+                .queryForListOfString();
+    }
+
+    private void awaitInFlight(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flights.inFlight() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Title(String title) {
+    }
+
+    record Name(String title) {
+    }
+}
@@ -0,0 +1,100 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+class SqlTemplateTest extends BaseTest {
+
+    private static final SqlTemplate INSERT_MOVIE = SqlBuilder
+            .template("INSERT INTO movie(title, directed_by) VALUES (?, ?)");
+
+    private static final SqlTemplate FIND_TITLE = SqlBuilder
+            .template("SELECT title FROM movie WHERE id = ?");
+
+    @BeforeEach
+    void init() throws SQLException {
+        for (String title : List.of("Dunkirk", "Inception", "Tenet")) {
+            INSERT_MOVIE.bind()
+                    .param(title)
+                    .param("Nolan")
+                    .execute(dataSource);
+        }
+    }
+
+    @Test
+    void testTemplate() throws SQLException {
+        Assertions.assertEquals("Inception", FIND_TITLE.bind()
+                .param(2L)
+                .queryForString()
+                .execute(dataSource));
+        Assertions.assertNull(FIND_TITLE.bind()
+                .param(99L)
+                .queryForString()
+                .execute(dataSource));
+    }
+
+    @Test
+    void testTemplateAcrossThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> titles = IntStream.rangeClosed(1, 30)
+                    .mapToObj(i -> executor.submit(() -> FIND_TITLE.bind()
+                            .param((long) (i % 3) + 1)
+                            .queryForString()
+                            .execute(dataSource)))
+                    .toList();
+            for (int i = 0; i < titles.size(); i++) {
+                Assertions.assertEquals(List.of("Inception", "Tenet", "Dunkirk").get(i % 3),
+                        titles.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testTemplateOptions() throws SQLException {
+        SqlTemplate allMovies = SqlBuilder.template("SELECT title FROM movie ORDER BY id");
+        SqlTemplate firstTwo = allMovies.fetchSize(10).maxRows(2).forwardOnly();
+
+        Assertions.assertNotSame(allMovies, firstTwo);
+        Assertions.assertEquals(3, allMovies.bind().queryForListOfString().execute(dataSource).size());
+
+        RecordingDataSource recorder = new RecordingDataSource(dataSource);
+        Assertions.assertEquals(List.of("Dunkirk", "Inception"),
+                firstTwo.bind().queryForListOfString().execute(recorder.dataSource()));
+        Assertions.assertEquals(1, recorder.count("setFetchSize(10)"));
+        Assertions.assertEquals(1, recorder.count("setMaxRows(2)"));
+        Assertions.assertEquals(1, recorder.count("setFetchDirection(1000)"));
+    }
+
+    @Test
+    void testTemplateParameterCount() throws SQLException {
+        SqlTemplate sum = SqlBuilder.template("SELECT " + String.join(" + ", Collections.nCopies(10, "?::int")));
+        SqlBuilder.PreparedSqlBuilder builder = sum.bind();
+        for (int i = 1; i <= 10; i++) {
+            builder.param(i);
+        }
+        Assertions.assertEquals(55, builder.queryForInt().execute(dataSource));
+        Assertions.assertEquals(1, SqlBuilder.template("SELECT 1").bind().queryForInt().execute(dataSource));
+    }
+
+    @Test
+    void testTemplateSingleFlight() throws SQLException {
+        SingleFlight flights = new SingleFlight(Duration.ofSeconds(1));
+        SqlTemplate coalesced = FIND_TITLE.singleFlight(flights).fetchSize(10);
+
+        Assertions.assertEquals("Dunkirk", coalesced.bind().param(1L).queryForString().execute(dataSource));
+        Assertions.assertEquals(1, flights.executions());
+    }
+}
@@ -0,0 +1,250 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tamilnadujug.sql.Sql;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatementCacheTest extends BaseTest {
+
+    private static final String INSERT_MOVIE = "INSERT INTO movie(title, directed_by) VALUES (?, ?)";
+
+    private static final String FIND_TITLE = "SELECT title FROM movie WHERE directed_by = ? ORDER BY id";
+
+    private StatementCache cache;
+
+    private RecordingDataSource recorder;
+
+    @BeforeEach
+    void init() {
+        cache = new StatementCache(8);
+        recorder = new RecordingDataSource(dataSource);
+    }
+
+    @Test
+    void testReuseWithinTransaction() throws SQLException {
+        SqlTemplate insert = SqlBuilder.template(INSERT_MOVIE).statementCache(cache);
+        List<String> titles = List.of("Dunkirk", "Inception", "Tenet", "Memento");
+
+        Transaction.begin(connection -> {
+            for (String title : titles) {
+                insert.bind().param(title).param("Nolan").execute(connection);
+            }
+            return titles.size();
+        }).execute(recorder.dataSource());
+
+        Assertions.assertEquals(1, recorder.count("prepareStatement(" + INSERT_MOVIE + ")"));
+        Assertions.assertEquals(1, cache.misses());
+        Assertions.assertEquals(3, cache.hits());
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(titles, SqlBuilder.prepareSql(FIND_TITLE)
+                .param("Nolan")
+                .queryForListOfString()
+                .execute(dataSource));
+    }
+
+    @Test
+    void testQueriesShareStatement() throws SQLException {
+        SqlBuilder.prepareSql(INSERT_MOVIE).param("Dunkirk").param("Nolan").execute(dataSource);
+
+        try (Connection connection = recorder.dataSource().getConnection()) {
+            SqlBuilder.PreparedSqlBuilder builder = SqlBuilder.prepareSql(FIND_TITLE)
+                    .param("Nolan")
+                    .statementCache(cache);
+            Assertions.assertEquals("Dunkirk", builder.queryForString().execute(connection));
+            Assertions.assertEquals(List.of("Dunkirk"),
+                    builder.maxRows(5).queryForListOfString().execute(connection));
+            Assertions.assertTrue(builder.queryForExists().execute(connection));
+            try (Stream<String> titles = builder.forwardOnly()
+                    .queryForStream(rs -> rs.getString(1))
+                    .execute(connection)) {
+                Assertions.assertEquals(List.of("Dunkirk"), titles.toList());
+            }
+            cache.evict(connection);
+        }
+
+        Assertions.assertEquals(1, recorder.calls().stream()
+                .filter(call -> call.startsWith("prepareStatement(")).count());
+        Assertions.assertEquals(3, cache.hits());
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(4, recorder.count("clearParameters()"));
+        Assertions.assertEquals(5, recorder.count("setFetchDirection(1000)"));
+    }
+
+    @Test
+    void testGeneratedKeysAndCallable() throws SQLException {
+        try (Connection connection = recorder.dataSource().getConnection()) {
+            for (String title : List.of("Dunkirk", "Inception")) {
+                SqlBuilder.prepareSql(INSERT_MOVIE)
+                        .param(title)
+                        .param("Nolan")
+                        .statementCache(cache)
+                        .queryGeneratedKeys(rs -> rs.getLong(1))
+                        .execute(connection);
+                SqlBuilder.prepareCall("CALL insert_movie_in(?, ?)")
+                        .param(title + " II")
+                        .param("Nolan")
+                        .statementCache(cache)
+                        .execute(connection);
+            }
+            cache.clear();
+        }
+
+        Assertions.assertEquals(1, recorder.count("prepareStatement(" + INSERT_MOVIE + ", 1)"));
+        Assertions.assertEquals(1, recorder.count("prepareCall(CALL insert_movie_in(?, ?))"));
+        Assertions.assertEquals(2, cache.hits());
+        Assertions.assertEquals(2, cache.misses());
+        Assertions.assertEquals(4, SqlBuilder.sql("SELECT COUNT(*) FROM movie")
+                .queryForInt()
+                .execute(dataSource));
+    }
+
+    @Test
+    void testEviction() throws SQLException {
+        StatementCache small = new StatementCache(1);
+        try (Connection connection = dataSource.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                SqlBuilder.prepareSql("SELECT 1").statementCache(small).queryForInt().execute(connection);
+                SqlBuilder.prepareSql("SELECT 2").statementCache(small).queryForInt().execute(connection);
+            }
+        }
+        Assertions.assertEquals(0, small.hits());
+        Assertions.assertEquals(6, small.misses());
+        Assertions.assertEquals(5, small.evictions());
+        Assertions.assertEquals(1, small.size());
+    }
+
+    @Test
+    void testConcurrentUseOfSameSql() throws SQLException {
+        SqlBuilder.prepareSql(INSERT_MOVIE).param("Dunkirk").param("Nolan").execute(dataSource);
+
+        try (Connection connection = dataSource.getConnection()) {
+            SqlBuilder.PreparedSqlBuilder builder = SqlBuilder.prepareSql(FIND_TITLE)
+                    .param("Nolan")
+                    .statementCache(cache);
+            try (Stream<String> outer = builder.queryForStream(rs -> rs.getString(1)).execute(connection)) {
+                Assertions.assertEquals("Dunkirk", builder.queryForString().execute(connection));
+                Assertions.assertEquals(List.of("Dunkirk"), outer.toList());
+            }
+            Assertions.assertEquals(2, cache.misses());
+            Assertions.assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    void testLease() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement ps = cache.prepare(connection, "SELECT 1", false, 0,
+                    PreparedStatement.class, () -> connection.prepareStatement("SELECT 1"));
+            Assertions.assertFalse(ps.isClosed());
+            ps.close();
+            ps.close();
+            Assertions.assertTrue(ps.isClosed());
+            Assertions.assertEquals(1, cache.size());
+
+            SqlBuilder.PreparedSqlBuilder invalid = SqlBuilder.prepareSql("SELECT * FROM no_such_table")
+                    .statementCache(cache);
+            assertThrows(SQLException.class, () -> invalid.queryForInt().execute(connection));
+        }
+    }
+
+    @Test
+    void testAsyncExecutionsShareStatements() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            DataSource pooled = pooled(connection);
+            SqlTemplate insert = SqlBuilder.template(INSERT_MOVIE).statementCache(cache);
+            Assertions.assertEquals(1, insert.bind().param("Dunkirk").param("Nolan")
+                    .executeAsync(pooled).get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, insert.bind().param("Tenet").param("Nolan")
+                    .executeAsync(pooled).get(5, TimeUnit.SECONDS));
+
+            Assertions.assertEquals(1, cache.misses());
+            Assertions.assertEquals(1, cache.hits());
+            Assertions.assertEquals(1, cache.size());
+            cache.evict(pooled.getConnection());
+            Assertions.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    void testAsyncCancelOfReusedStatement() throws Exception {
+        SqlTemplate sleep = SqlBuilder.template("SELECT pg_sleep(?)").statementCache(cache);
+        Sql<Integer> sleeping = SqlBuilder.sql("""
+                SELECT COUNT(*) FROM pg_stat_activity
+                WHERE state = 'active' AND query = 'SELECT pg_sleep($1)'
+                """).queryForInt();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Connection connection = dataSource.getConnection()) {
+            DataSource pooled = pooled(connection);
+            sleep.bind().param(0.0).queryForOne(rs -> 0).executeAsync(pooled, executor).get(5, TimeUnit.SECONDS);
+
+            CompletableFuture<Integer> running = sleep.bind().param(30.0).queryForOne(rs -> 0)
+                    .executeAsync(pooled, executor);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sleeping.execute(dataSource) == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            Assertions.assertTrue(running.cancel(true));
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(0, sleeping.execute(dataSource));
+            Assertions.assertEquals(1, cache.hits());
+
+            List<Runnable> tasks = new ArrayList<>();
+            AtomicReference<CompletableFuture<Integer>> cancelled = new AtomicReference<>();
+            cancelled.set(Transaction.begin(tx -> {
+                cancelled.get().cancel(true);
+                return sleep.bind().param(0.0).queryForOne(rs -> 0).execute(tx);
+            }).executeAsync(pooled, tasks::add));
+            tasks.get(0).run();
+            Assertions.assertTrue(cancelled.get().isCancelled());
+            Assertions.assertEquals(2, cache.hits());
+            Assertions.assertEquals(0, cache.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static DataSource pooled(Connection connection) {
+        Connection borrowed = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        return borrowed;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new StatementCache(0));
+    }
+}
@@ -0,0 +1,134 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatementOptionsTest extends BaseTest {
+
+    private static final String SELECT_MOVIES = "SELECT id, title, directed_by FROM movie ORDER BY id";
+
+    private RecordingDataSource recorder;
+
+    @BeforeEach
+    void init() throws SQLException {
+        SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?), (?, ?), (?, ?)")
+                .param("Dunkirk").param("Nolan")
+                .param("Inception").param("Nolan")
+                .param("Titanic").param("Cameroon")
+                .execute(dataSource);
+        recorder = new RecordingDataSource(dataSource);
+    }
+
+    @Test
+    void testSqlOptions() throws SQLException {
+        List<Movie> movies = SqlBuilder.sql(SELECT_MOVIES)
+                .fetchSize(2)
+                .maxRows(2)
+                .forwardOnly()
+                .queryForList(BaseTest::mapMovie)
+                .execute(recorder.dataSource());
+
+        Assertions.assertEquals(2, movies.size());
+        Assertions.assertEquals(List.of("createStatement(1003, 1007)", "setFetchSize(2)",
+                        "setMaxRows(2)", "setFetchDirection(1000)"),
+                recorder.calls().subList(1, 5));
+    }
+
+    @Test
+    void testPreparedSqlOptions() throws SQLException {
+        SqlBuilder.PreparedSqlBuilder builder = SqlBuilder
+                .prepareSql("SELECT id, title, directed_by FROM movie WHERE directed_by = ?")
+                .param("Nolan")
+                .fetchSize(10)
+                .maxRows(1)
+                .forwardOnly();
+
+        Assertions.assertEquals("Dunkirk", builder.queryForOne(BaseTest::mapMovie)
+                .execute(recorder.dataSource()).title());
+        Assertions.assertEquals(1, builder.queryForList(BaseTest::mapMovie)
+                .execute(recorder.dataSource()).size());
+        Assertions.assertTrue(builder.queryForExists()
+                .execute(recorder.dataSource()));
+        try (Stream<Movie> movies = builder.queryForStream(BaseTest::mapMovie)
+                .execute(recorder.dataSource())) {
+            Assertions.assertEquals(1, movies.count());
+        }
+
+        Assertions.assertEquals(4, recorder.count("prepareStatement("
+                + builder.getSql() + ", 1003, 1007)"));
+        Assertions.assertEquals(2, recorder.count("setFetchSize(10)"));
+        Assertions.assertEquals(2, recorder.count("setFetchSize(1)"));
+        Assertions.assertEquals(4, recorder.count("setMaxRows(1)"));
+    }
+
+    @Test
+    void testDefaultOptions() throws SQLException {
+        Assertions.assertEquals(3, SqlBuilder.sql(SELECT_MOVIES)
+                .queryForList(BaseTest::mapMovie)
+                .execute(recorder.dataSource()).size());
+        try (Stream<Movie> movies = SqlBuilder.prepareSql(SELECT_MOVIES)
+                .queryForStream(BaseTest::mapMovie)
+                .execute(recorder.dataSource())) {
+            Assertions.assertEquals(3, movies.count());
+        }
+
+        Assertions.assertEquals(1, recorder.count("createStatement()"));
+        Assertions.assertEquals(1, recorder.count("prepareStatement(" + SELECT_MOVIES + ")"));
+        Assertions.assertEquals(List.of("setFetchSize(1000)"), recorder.calls().stream()
+                .filter(call -> call.startsWith("setFetchSize")
+                        || call.startsWith("setMaxRows")
+                        || call.startsWith("setFetchDirection"))
+                .toList());
+    }
+
+    @Test
+    void testFirstRowOnly() throws SQLException {
+        Assertions.assertTrue(SqlBuilder.sql(SELECT_MOVIES)
+                .fetchSize(100)
+                .maxRows(100)
+                .queryForExists()
+                .execute(recorder.dataSource()));
+        Assertions.assertEquals("Dunkirk", SqlBuilder.sql("SELECT title FROM movie ORDER BY id")
+                .queryForString()
+                .execute(recorder.dataSource()));
+        Assertions.assertEquals(1, SqlBuilder.prepareSql("SELECT id FROM movie WHERE directed_by = ? ORDER BY id")
+                .param("Nolan")
+                .queryForInt()
+                .execute(recorder.dataSource()));
+        Assertions.assertTrue(SqlBuilder.prepareSql("SELECT 1 FROM movie WHERE directed_by = ?")
+                .param("Nolan")
+                .queryForExists()
+                .execute(recorder.dataSource()));
+
+        Assertions.assertEquals(4, recorder.count("setFetchSize(1)"));
+        Assertions.assertEquals(4, recorder.count("setMaxRows(1)"));
+        Assertions.assertEquals(0, recorder.count("setFetchSize(100)"));
+    }
+
+    @Test
+    void testLargeMaxRows() throws SQLException {
+        Assertions.assertEquals(3, SqlBuilder.sql(SELECT_MOVIES)
+                .maxRows(Integer.MAX_VALUE + 1L)
+                .queryForList(BaseTest::mapMovie)
+                .execute(recorder.dataSource())
+                .size());
+        Assertions.assertEquals(1, recorder.count("setMaxRows(2147483647)"));
+    }
+
+    @Test
+    void testInvalidFetchSize() {
+        assertThrows(SQLException.class, () -> SqlBuilder.sql(SELECT_MOVIES)
+                .fetchSize(-1)
+                .queryForList(BaseTest::mapMovie)
+                .execute(recorder.dataSource()));
+        Assertions.assertEquals("close()",
+                recorder.calls().get(recorder.calls().indexOf("setFetchSize(-1)") + 1));
+    }
+}
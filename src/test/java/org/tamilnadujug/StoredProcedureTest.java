@@ -3,6 +3,7 @@ package org.tamilnadujug;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
 
 import java.sql.CallableStatement;
 import java.sql.Connection;
@@ -122,4 +123,38 @@ class StoredProcedureTest extends BaseTest {
 
         }
     }
+
+    @Test
+    void testBatchUsesPrepareCall() throws SQLException {
+        PGSimpleDataSource callMode = new PGSimpleDataSource();
+        callMode.setURL(dataSource.getURL());
+        callMode.setUser(dataSource.getUser());
+        callMode.setPassword(dataSource.getPassword());
+        callMode.setEscapeSyntaxCallMode("callIfNoReturn");
+        RecordingDataSource recorder = new RecordingDataSource(callMode);
+        StatementCache cache = new StatementCache(4);
+
+        SqlBuilder.CallableSqlBuilder.CallableBatch batch = SqlBuilder.prepareCall("{call insert_movie_in(?, ?)}")
+                .param("Dunkirk")
+                .param("Nolan")
+                .statementCache(cache)
+                .addBatch();
+        for (int i = 0; i < 4; i++) {
+            batch.param("Movie " + i).param("Nolan");
+            if (i < 3) {
+                batch.addBatch();
+            }
+        }
+        try (Connection connection = recorder.dataSource().getConnection()) {
+            assertEquals(5, batch.batchSize(2).execute(connection).length);
+            assertEquals(5, batch.execute(connection).length);
+            cache.evict(connection);
+        }
+
+        assertEquals(1, recorder.count("prepareCall({call insert_movie_in(?, ?)})"));
+        assertEquals(0, recorder.calls().stream().filter(call -> call.startsWith("prepareStatement(")).count());
+        assertEquals(6, recorder.count("executeBatch()"));
+        assertEquals(1, cache.hits());
+        assertEquals(10, SqlBuilder.sql("SELECT COUNT(*) FROM movie").queryForInt().execute(dataSource));
+    }
 }
@@ -0,0 +1,157 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tamilnadujug.sql.UncheckedSQLException;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamTest extends BaseTest {
+
+    @BeforeEach
+    void init() throws SQLException {
+        SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?), (?, ?), (?, ?)")
+                .param("Dunkirk").param("Nolan")
+                .param("Inception").param("Nolan")
+                .param("Titanic").param("Cameroon")
+                .execute(dataSource);
+    }
+
+    @Test
+    void testStream() throws SQLException {
+        try (Stream<Movie> movies = SqlBuilder.sql("SELECT id, title, directed_by FROM movie ORDER BY id")
+                .queryForStream(BaseTest::mapMovie)
+                .execute(dataSource)) {
+            Assertions.assertEquals(List.of("Dunkirk", "Inception", "Titanic"),
+                    movies.map(Movie::title).toList());
+        }
+    }
+
+    @Test
+    void testPreparedStream() throws SQLException {
+        try (Stream<String> titles = SqlBuilder.prepareSql("SELECT title FROM movie WHERE directed_by = ? ORDER BY id")
+                .param("Nolan")
+                .queryForStream(rs -> rs.getString(1))
+                .execute(dataSource)) {
+            Assertions.assertEquals("Dunkirk", titles.findFirst().orElseThrow());
+        }
+    }
+
+    @Test
+    void testStreamFetchesInBatches() throws SQLException {
+        RecordingDataSource recorder = new RecordingDataSource(dataSource);
+        try (Stream<Integer> numbers = SqlBuilder.sql("SELECT i FROM generate_series(1, 5000) i")
+                .queryForStream(rs -> rs.getInt(1))
+                .execute(recorder.dataSource())) {
+            Assertions.assertEquals(5000, numbers.count());
+            Assertions.assertEquals(1, recorder.count("setAutoCommit(false)"));
+            Assertions.assertEquals(1, recorder.count("setFetchSize(1000)"));
+            Assertions.assertEquals(0, recorder.count("setAutoCommit(true)"));
+        }
+        List<String> calls = recorder.calls();
+        Assertions.assertEquals(List.of("setAutoCommit(true)", "close()"), calls.subList(calls.size() - 2, calls.size()));
+
+        RecordingDataSource prepared = new RecordingDataSource(dataSource);
+        try (Stream<Integer> numbers = SqlBuilder.prepareSql("SELECT i FROM generate_series(1, ?) i")
+                .param(10)
+                .fetchSize(3)
+                .queryForStream(rs -> rs.getInt(1))
+                .execute(prepared.dataSource())) {
+            Assertions.assertEquals(10, numbers.count());
+        }
+        Assertions.assertEquals(1, prepared.count("setFetchSize(3)"));
+        Assertions.assertEquals(0, prepared.count("setFetchSize(1000)"));
+        Assertions.assertEquals(1, prepared.count("setAutoCommit(true)"));
+
+        try (Connection connection = dataSource.getConnection();
+             Stream<Integer> numbers = SqlBuilder.sql("SELECT 1")
+                     .queryForStream(rs -> rs.getInt(1))
+                     .execute(connection)) {
+            Assertions.assertEquals(1, numbers.count());
+            Assertions.assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    void testFailedStreamRestoresConnection() throws SQLException {
+        RecordingDataSource recorder = new RecordingDataSource(dataSource);
+        assertThrows(SQLException.class, () -> SqlBuilder.sql("SELECT title FROM no_such_table")
+                .queryForStream(rs -> rs.getString(1))
+                .execute(recorder.dataSource()));
+        Assertions.assertEquals(1, recorder.count("rollback()"));
+        Assertions.assertEquals(1, recorder.count("setAutoCommit(true)"));
+    }
+
+    @Test
+    void testStreamKeepsConnectionOpen() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Stream<Movie> movies = SqlBuilder.prepareSql("SELECT id, title, directed_by FROM movie")
+                    .queryForStream(BaseTest::mapMovie)
+                    .execute(connection)) {
+                Assertions.assertEquals(3, movies.count());
+            }
+            Assertions.assertFalse(connection.isClosed());
+        }
+    }
+
+    @Test
+    void testStreamMappingFailure() throws SQLException {
+        try (Stream<String> titles = SqlBuilder.sql("SELECT title FROM movie")
+                .queryForStream(rs -> rs.getString(99))
+                .execute(dataSource)) {
+            UncheckedSQLException exception = assertThrows(UncheckedSQLException.class, titles::toList);
+            Assertions.assertNotNull(exception.getCause());
+        }
+    }
+
+    @Test
+    void testInvalidStream() {
+        assertThrows(SQLException.class, () -> SqlBuilder.sql("SELECT title FROM no_such_table")
+                .queryForStream(rs -> rs.getString(1))
+                .execute(dataSource));
+        assertThrows(SQLException.class, () -> SqlBuilder.prepareSql("SELECT title FROM no_such_table")
+                .queryForStream(rs -> rs.getString(1))
+                .execute(dataSource));
+    }
+
+    @Test
+    void testStreamCloseFailure() throws SQLException {
+        DataSource failingOnClose = (DataSource) Proxy.newProxyInstance(
+                DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> failOnClose(dataSource.getConnection()));
+        Stream<String> titles = SqlBuilder.sql("SELECT title FROM movie")
+                .queryForStream(rs -> rs.getString(1))
+                .execute(failingOnClose);
+        assertThrows(UncheckedSQLException.class, titles::close);
+    }
+
+    /**
+     * Wraps the connection so that close releases it but reports a failure.
+     */
+    private static Connection failOnClose(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        Object result = method.invoke(connection, args);
+                        if (method.getName().equals("close")) {
+                            throw new SQLException("close failed");
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
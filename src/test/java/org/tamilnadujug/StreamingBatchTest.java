@@ -0,0 +1,150 @@
+package org.tamilnadujug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tamilnadujug.sql.Sql;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamingBatchTest extends BaseTest {
+
+    private static final String INSERT_MOVIE = "INSERT INTO movie(title, directed_by) VALUES (?, ?)";
+
+    private static final String INSERT_ALL_TYPES = """
+            INSERT INTO AllTypes
+            (str, intVal, longVal, doubleVal, floatVal, boolVal, shortVal, byteVal,
+            dateVal, timeVal, timestampVal, bigDecimalVal, bytesVal, urlVal, nullVal)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    @BeforeEach
+    void init() throws SQLException {
+        SqlBuilder.sql("TRUNCATE TABLE AllTypes").execute(dataSource);
+    }
+
+    @Test
+    void testBatchFromStream() throws SQLException {
+        RecordingDataSource recorder = new RecordingDataSource(dataSource);
+        Stream<Integer> rows = IntStream.range(0, 2500).boxed();
+
+        int[] updatedRows = SqlBuilder.prepareSql(INSERT_MOVIE)
+                .batch(rows::iterator, (i, binder) -> binder
+                        .param("Movie " + i)
+                        .param("Nolan"), 1000)
+                .execute(recorder.dataSource());
+
+        Assertions.assertEquals(2500, updatedRows.length);
+        Assertions.assertEquals(2500, IntStream.of(updatedRows).sum());
+        Assertions.assertEquals(3, recorder.count("executeBatch()"));
+        Assertions.assertEquals("Movie 2499", SqlBuilder.sql("SELECT title FROM movie ORDER BY id DESC")
+                .queryForString()
+                .execute(dataSource));
+    }
+
+    @Test
+    void testBatchInTransaction() throws SQLException {
+        List<String> titles = List.of("Dunkirk", "Inception", "Tenet");
+        Sql<int[]> insertAll = SqlBuilder.prepareSql(INSERT_MOVIE)
+                .batch(titles, (title, binder) -> binder.param(title).param("Nolan"), 2);
+
+        assertThrows(SQLException.class, () -> Transaction.begin(insertAll)
+                .thenApply(updatedRows -> SqlBuilder.prepareSql(INSERT_MOVIE)
+                        .paramNull()
+                        .param("Nolan"))
+                .execute(dataSource));
+        Assertions.assertEquals(0, countMovies());
+
+        Assertions.assertArrayEquals(new int[]{1, 1, 1}, Transaction.begin(insertAll).execute(dataSource));
+        Assertions.assertEquals(3, countMovies());
+        Assertions.assertArrayEquals(new int[0], SqlBuilder.prepareSql(INSERT_MOVIE)
+                .batch(List.<String>of(), (title, binder) -> binder.param(title), 10)
+                .execute(dataSource));
+    }
+
+    @Test
+    void testBinderTypes() throws SQLException {
+        Date date = Date.valueOf("2024-12-12");
+        Time time = Time.valueOf("14:30:00");
+        Timestamp timestamp = Timestamp.valueOf("2024-12-12 14:30:00");
+
+        int[] updatedRows = SqlBuilder.prepareSql(INSERT_ALL_TYPES)
+                .batch(List.of(1, 2, 3), (row, binder) -> {
+                    switch (row) {
+                        case 1 -> binder.param('A').param(42).param(7L).param(1.5).param(2.5f)
+                                .param(true).param((short) 3).param((byte) 4)
+                                .param(date).param(time).param(timestamp)
+                                .param(new BigDecimal("12.50")).param(new byte[]{1, 2})
+                                .param((Object) "http://example.com").paramNull();
+                        case 2 -> binder.param("B").param(Integer.valueOf(42)).param(Long.valueOf(7L))
+                                .param(Double.valueOf(1.5)).param(Float.valueOf(2.5f))
+                                .param(Boolean.TRUE).param(Short.valueOf((short) 3))
+                                .param(4, Types.SMALLINT)
+                                .param(date).param(time).param(timestamp)
+                                .param(new BigDecimal("12.50")).param(new byte[]{1, 2})
+                                .param("http://example.com").paramNull(Types.VARCHAR, "VARCHAR");
+                        default -> binder.param("C").param((Integer) null).param((Long) null)
+                                .param((Double) null).param((Float) null)
+                                .param((Boolean) null).param((Short) null).paramNull()
+                                .paramNull().paramNull().paramNull()
+                                .paramNull().paramNull().paramNull().paramNull();
+                    }
+                }, 2)
+                .execute(dataSource);
+
+        Assertions.assertArrayEquals(new int[]{1, 1, 1}, updatedRows);
+        Assertions.assertEquals(2, SqlBuilder.sql("""
+                        SELECT COUNT(*) FROM AllTypes
+                        WHERE intVal = 42 AND longVal = 7 AND doubleVal = 1.5 AND floatVal = 2.5
+                        AND boolVal AND shortVal = 3 AND byteVal = 4 AND dateVal = '2024-12-12'
+                        AND timeVal = '14:30:00' AND timestampVal = '2024-12-12 14:30:00'
+                        AND bigDecimalVal = 12.5 AND bytesVal = '\\x0102'
+                        AND urlVal = 'http://example.com' AND nullVal IS NULL
+                        """)
+                .queryForInt()
+                .execute(dataSource));
+        Assertions.assertEquals("C", SqlBuilder.sql("""
+                        SELECT str FROM AllTypes
+                        WHERE intVal IS NULL AND longVal IS NULL AND doubleVal IS NULL
+                        AND floatVal IS NULL AND boolVal IS NULL AND shortVal IS NULL
+                        """)
+                .queryForString()
+                .execute(dataSource));
+    }
+
+    @Test
+    void testRowsMustMatchFirstRow() throws SQLException {
+        List<String> titles = List.of("Dunkirk", "Inception", "Tenet");
+        SQLException mismatch = assertThrows(SQLException.class, () -> Transaction.begin(SqlBuilder
+                        .prepareSql(INSERT_MOVIE)
+                        .batch(titles, (title, binder) -> {
+                            binder.param(title);
+                            if (!title.equals("Inception")) {
+                                binder.param("Nolan");
+                            }
+                        }, 10))
+                .execute(dataSource));
+        Assertions.assertEquals("Parameters do not match with first set of parameters", mismatch.getMessage());
+        Assertions.assertEquals(0, countMovies());
+    }
+
+    @Test
+    void testInvalidChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> SqlBuilder.prepareSql(INSERT_MOVIE)
+                .batch(List.of("Dunkirk"), (title, binder) -> binder.param(title), 0));
+    }
+
+    private int countMovies() throws SQLException {
+        return SqlBuilder.sql("SELECT COUNT(*) FROM movie").queryForInt().execute(dataSource);
+    }
+}
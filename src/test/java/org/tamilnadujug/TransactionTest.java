@@ -4,8 +4,14 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class TransactionTest extends BaseTest {
@@ -189,5 +195,293 @@ class TransactionTest extends BaseTest {
                         .execute(dataSource));
     }
 
+    @Test
+    void testBatchesInTransaction() throws SQLException {
+        RecordingDataSource recorder = new RecordingDataSource(dataSource);
+
+        int[] updatedRows = Transaction
+                .begin(SqlBuilder.prepareSql("INSERT INTO director(name) VALUES (?)")
+                        .param("Nolan")
+                        .addBatch()
+                        .param("Villeneuve"))
+                .thenApply(directors -> SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?)")
+                        .param("Dunkirk")
+                        .param("Nolan")
+                        .addBatch()
+                        .param("Dune")
+                        .param("Villeneuve"))
+                .thenApply(movies -> SqlBuilder.prepareCall("CALL insert_movie_in(?, ?)")
+                        .param("Tenet")
+                        .param("Nolan")
+                        .addBatch()
+                        .param("Arrival")
+                        .param("Villeneuve"))
+                .thenApply(calls -> SqlBuilder
+                        .sql("INSERT INTO movie(title, directed_by) VALUES ('Memento', 'Nolan')")
+                        .addBatch("INSERT INTO movie(title, directed_by) VALUES ('Sicario', 'Villeneuve')"))
+                .execute(recorder.dataSource());
+
+        Assertions.assertArrayEquals(new int[]{1, 1}, updatedRows);
+        Assertions.assertEquals(1, recorder.count("getConnection()"));
+        Assertions.assertEquals(1, recorder.count("commit()"));
+        Assertions.assertEquals(2,
+                SqlBuilder.prepareSql("SELECT COUNT(id) FROM director")
+                        .queryForInt()
+                        .execute(dataSource));
+        Assertions.assertEquals(6,
+                SqlBuilder.prepareSql("SELECT COUNT(id) FROM movie")
+                        .queryForInt()
+                        .execute(dataSource));
+    }
+
+    @Test
+    void testBatchFailureInTransaction() {
+        assertThrows(SQLException.class, () -> Transaction
+                .begin(SqlBuilder.prepareSql("INSERT INTO director(name) VALUES (?)")
+                        .param("Nolan")
+                        .addBatch()
+                        .param("Villeneuve"))
+                .thenApply(directors -> SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?)")
+                        .param("Dunkirk")
+                        .param("Nolan")
+                        .addBatch()
+                        .paramNull()
+                        .param("Villeneuve"))
+                .execute(dataSource));
+
+        Assertions.assertEquals(0, assertDoesNotThrow(() ->
+                SqlBuilder.prepareSql("SELECT COUNT(id) FROM director")
+                        .queryForInt()
+                        .execute(dataSource)));
+    }
+
+    @Test
+    void testRollbackAndRestore() throws SQLException {
+        long rollbacks = Transaction.rollbacks();
+        try (Connection connection = dataSource.getConnection()) {
+            assertThrows(SQLException.class, () -> Transaction
+                    .begin(SqlBuilder.prepareSql("INSERT INTO director(name) VALUES (?)")
+                            .param("Nolan"))
+                    .thenApply(directors -> SqlBuilder.prepareSql("INSERT INTO director(name) VALUES (?)")
+                            .paramNull())
+                    .execute(connection));
+
+            Assertions.assertTrue(connection.getAutoCommit());
+            Assertions.assertEquals(0,
+                    SqlBuilder.prepareSql("SELECT COUNT(id) FROM director")
+                            .queryForInt()
+                            .execute(connection));
+
+            assertThrows(SQLException.class, () -> Transaction
+                    .begin(readOnly -> {
+                        readOnly.setReadOnly(true);
+                        return 0;
+                    })
+                    .thenApply(zero -> SqlBuilder.prepareSql("INSERT INTO director(name) VALUES (?)")
+                            .param("Nolan"))
+                    .execute(connection));
+
+            Assertions.assertFalse(connection.isReadOnly());
+            Assertions.assertTrue(connection.getAutoCommit());
+        }
+        Assertions.assertEquals(rollbacks + 2, Transaction.rollbacks());
+    }
+
+    @Test
+    void testRollbackFailureIsSuppressed() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        SQLException exception = assertThrows(SQLException.class, () -> Transaction
+                .begin(closing -> {
+                    closing.close();
+                    throw new SQLException("failed");
+                })
+                .execute(connection));
+
+        Assertions.assertEquals("failed", exception.getMessage());
+        Assertions.assertEquals(2, exception.getSuppressed().length);
+    }
+
+    @Test
+    void testRestoreAfterRollbackFailure() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            Connection failingRollback = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("rollback")) {
+                            throw new SQLException("rollback failed");
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+            SQLException exception = assertThrows(SQLException.class, () -> Transaction
+                    .begin(conn -> {
+                        throw new SQLException("failed");
+                    })
+                    .readOnly()
+                    .isolation(Connection.TRANSACTION_SERIALIZABLE)
+                    .execute(failingRollback));
+
+            Assertions.assertEquals("failed", exception.getMessage());
+            Assertions.assertEquals("rollback failed", exception.getSuppressed()[0].getMessage());
+            Assertions.assertTrue(connection.getAutoCommit());
+            Assertions.assertFalse(connection.isReadOnly());
+            Assertions.assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+        }
+    }
+
+    @Test
+    void testIsolationAndReadOnly() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            Assertions.assertEquals("serializable true", Transaction
+                    .begin(tx -> tx.getTransactionIsolation() == Connection.TRANSACTION_SERIALIZABLE
+                            ? "serializable" : "other")
+                    .thenApply(level -> SqlBuilder.sql("SELECT '" + level + " ' || current_setting('transaction_read_only')::boolean")
+                            .queryForString())
+                    .isolation(Connection.TRANSACTION_SERIALIZABLE)
+                    .readOnly()
+                    .execute(connection));
+            Assertions.assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+            Assertions.assertFalse(connection.isReadOnly());
+            Assertions.assertTrue(connection.getAutoCommit());
+
+            assertThrows(SQLException.class, () -> Transaction
+                    .begin(SqlBuilder.prepareSql("INSERT INTO director(name) VALUES (?)")
+                            .param("Nolan"))
+                    .readOnly()
+                    .isolation(Connection.TRANSACTION_REPEATABLE_READ)
+                    .execute(connection));
+            Assertions.assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+            Assertions.assertFalse(connection.isReadOnly());
+        }
+    }
+
+    @Test
+    void testTimeout() throws SQLException {
+        RecordingDataSource recorder = new RecordingDataSource(dataSource);
+
+        SQLException exception = assertThrows(SQLException.class, () -> Transaction
+                .begin(SqlBuilder.sql("SELECT 1").queryForInt())
+                .thenApply(one -> SqlBuilder.prepareSql("SELECT pg_sleep(?)").param(5).queryForObject())
+                .timeout(Duration.ofSeconds(1))
+                .execute(recorder.dataSource()));
+
+        Assertions.assertEquals("57014", exception.getSQLState());
+        Assertions.assertEquals(2, recorder.count("setQueryTimeout(1)"));
+    }
+
+    @Test
+    void testTimeoutWithStatementCache() throws SQLException {
+        StatementCache cache = new StatementCache(4);
+        SqlTemplate selectOne = SqlBuilder.template("SELECT 1").statementCache(cache);
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertThrows(SQLTimeoutException.class, () -> Transaction
+                    .begin(timed -> {
+                        Assertions.assertEquals(timed, timed);
+                        Assertions.assertNotEquals(connection, timed);
+                        Assertions.assertEquals(System.identityHashCode(timed), timed.hashCode());
+                        selectOne.bind().queryForInt().execute(timed);
+                        selectOne.bind().queryForInt().execute(timed);
+                        sleep(300);
+                        return selectOne.bind().queryForInt().execute(timed);
+                    })
+                    .timeout(Duration.ofMillis(200))
+                    .execute(connection));
+            Assertions.assertEquals(2, cache.hits());
+            Assertions.assertEquals(0, cache.size());
+
+            assertThrows(SQLTimeoutException.class, () -> Transaction
+                    .begin(timed -> {
+                        sleep(300);
+                        return SqlBuilder.sql("SELECT 1").queryForInt().execute(timed);
+                    })
+                    .timeout(Duration.ofMillis(200))
+                    .execute(connection));
+
+            Assertions.assertEquals(1, selectOne.bind().queryForInt().execute(connection));
+            Assertions.assertEquals(1, Transaction.begin(selectOne.bind().queryForInt())
+                    .timeout(Duration.ofSeconds(5))
+                    .execute(connection));
+            Assertions.assertEquals(3, cache.hits());
+            cache.evict(connection);
+            Assertions.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    void testSavepointsInLoop() throws SQLException {
+        RecordingDataSource recorder = new RecordingDataSource(dataSource);
+        Transaction<Integer> transaction = Transaction.begin(connection -> 0);
+        for (int i = 0; i < 2000; i++) {
+            String title = i % 10 == 0 ? null : "Movie " + i;
+            transaction = transaction.savePoint("sp", count -> Transaction
+                            .begin(SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?)")
+                                    .param(title)
+                                    .param("Nolan"))
+                            .thenApply(rows -> connection -> count + rows),
+                    (count, e) -> count);
+        }
+
+        Assertions.assertEquals(1800, transaction.execute(recorder.dataSource()));
+        Assertions.assertEquals(2000, recorder.count("setSavepoint(sp)"));
+        Assertions.assertEquals(2000, recorder.calls().stream()
+                .filter(call -> call.startsWith("releaseSavepoint(")).count());
+        Assertions.assertEquals(200, recorder.calls().stream()
+                .filter(call -> call.startsWith("rollback(")).count());
+        Assertions.assertEquals(1800,
+                SqlBuilder.prepareSql("SELECT COUNT(id) FROM movie")
+                        .queryForInt()
+                        .execute(dataSource));
+    }
+
+    @Test
+    void testNestedSavepointsAndRethrow() throws SQLException {
+        int result = Transaction
+                .begin(SqlBuilder.prepareSql("INSERT INTO director(name) VALUES (?)")
+                        .param("Nolan"))
+                .savePoint("outer", directors -> Transaction
+                        .begin(SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?)")
+                                .param("Dunkirk")
+                                .param("Nolan"))
+                        .savePoint("inner", movies -> Transaction
+                                        .begin(SqlBuilder.prepareSql("INSERT INTO movie(title, directed_by) VALUES (?, ?)")
+                                                .paramNull()
+                                                .param("Nolan")),
+                                (movies, e) -> -movies))
+                .execute(dataSource);
+
+        Assertions.assertEquals(-1, result);
+        Assertions.assertEquals(1,
+                SqlBuilder.prepareSql("SELECT COUNT(id) FROM movie")
+                        .queryForInt()
+                        .execute(dataSource));
+
+        SQLException exception = assertThrows(SQLException.class, () -> Transaction
+                .begin(SqlBuilder.prepareSql("INSERT INTO director(name) VALUES (?)")
+                        .param("Villeneuve"))
+                .savePoint("sp", directors -> Transaction
+                                .begin(SqlBuilder.prepareSql("INSERT INTO director(name) VALUES (?)")
+                                        .paramNull()),
+                        (directors, e) -> {
+                            throw e;
+                        })
+                .execute(dataSource));
+
+        Assertions.assertEquals("23502", exception.getSQLState());
+        Assertions.assertEquals(1,
+                SqlBuilder.prepareSql("SELECT COUNT(id) FROM director")
+                        .queryForInt()
+                        .execute(dataSource));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
 }